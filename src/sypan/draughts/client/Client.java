@@ -3,21 +3,29 @@ package sypan.draughts.client;
 import java.awt.Dimension;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.EnumSet;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 
 import sypan.draughts.client.config.Configuration;
+import sypan.draughts.client.config.Setting;
+import sypan.draughts.client.config.Setting.Application;
 import sypan.draughts.client.config.ShadowQuality;
 import sypan.draughts.client.gui.GUI;
 import sypan.draughts.client.gui.StateType;
 import sypan.draughts.client.manager.*;
 import sypan.draughts.client.manager.SoundManager.SoundType;
+import sypan.draughts.client.profile.FrameProfiler;
+import sypan.draughts.client.profile.FrameProfiler.Section;
 import sypan.draughts.game.Game;
+import sypan.draughts.game.GameSaver;
 import sypan.draughts.game.piece.Piece;
 import sypan.draughts.game.piece.Tile;
 import sypan.draughts.game.player.Side;
 import sypan.utility.Logger;
 
 import com.jme3.app.SimpleApplication;
+import com.jme3.app.state.AppState;
+import com.jme3.audio.AudioData.DataType;
 import com.jme3.audio.AudioNode;
 import com.jme3.light.DirectionalLight;
 import com.jme3.math.Vector2f;
@@ -26,6 +34,7 @@ import com.jme3.renderer.RenderManager;
 import com.jme3.shadow.DirectionalLightShadowRenderer;
 import com.jme3.shadow.EdgeFilteringMode;
 import com.jme3.system.AppSettings;
+import com.jme3.system.JmeContext;
 import sypan.utility.Utility;
 
 /**
@@ -46,22 +55,26 @@ public class Client extends SimpleApplication {
     private ScheduledThreadPoolExecutor executor;
     private AudioNode gameMusic;
 
-    private Configuration config;
+    private Configuration config, appliedConfig;
     private DraughtsCamera draughtsCamera;
     private EffectManager effectManager;
+    private FrameProfiler frameProfiler;
     private Game currentGame;
     private GUI draughtsGUI;
     private GraphicalBoard graphicalBoard;
     private Input input;
+    private AssetPreloader assetPreloader;
+    private SplashScreen splashScreen;
     private ModelManager modelStore;
     private Piece movingPiece;
+    private QualityGovernor qualityGovernor;
     private Side mySide;
     private SoundManager soundManager;
 
     private Dimension activeResolution;
     private ShadowQuality activeShadowQuality;
 
-    private boolean pieceMoving, showHover, updateShadows;
+    private boolean pieceMoving, showHover, updateShadows, initialised, benchmarking;
 
     public static void main(String[] args) {
         Logger.init();
@@ -79,17 +92,64 @@ public class Client extends SimpleApplication {
         c.start();
     }
 
+    /**
+     * Starts the client without a window, for
+     * {@link sypan.draughts.tool.RenderBenchmark}. The configuration is used as
+     * it is and never saved, and no crashed game is recovered.
+     *
+     * @param config - the settings to run with.
+     * @param contextType - {@code OffscreenSurface} to render to an offscreen
+     * buffer, or {@code Headless} to render nothing at all.
+     * @param benchmark - the state driving the benchmark, attached before the
+     * client starts.
+     **/
+    public static void startBenchmark(Configuration config, JmeContext.Type contextType, AppState benchmark) {
+        Client c = new Client();
+        c.setPauseOnLostFocus(false);
+        c.setShowSettings(false);
+        c.setDisplayStatView(false);
+        c.setDisplayFps(false);
+
+        c.config = config;
+        c.activeResolution = config.getResolution();
+        c.benchmarking = true;
+        c.configureApplication();
+
+        c.getStateManager().attach(benchmark);
+        c.start(contextType);
+    }
+
+    /**
+     * Shows the splash screen and starts loading the game's assets in the
+     * background - the rest of the client is initialised as they load, in
+     * {@code initialiseScene} and {@code initialiseInterface}.
+     **/
     @Override
     public void simpleInitApp() {
-        draughtsGUI = new GUI(this);
+        appliedConfig = config.copy();
+        qualityGovernor = new QualityGovernor(this);
+        frameProfiler = new FrameProfiler(this);
 
-        effectManager = new EffectManager(this);
-        modelStore = new ModelManager(this);
-        soundManager = new SoundManager(this);
+        splashScreen = new SplashScreen(this);
+        splashScreen.show(this);
 
-        input = new Input(this);
         executor = new ScheduledThreadPoolExecutor(2);
 
+        if (!benchmarking) {
+            GameSaver.recover();
+        }
+
+        assetPreloader = new AssetPreloader(this, this::initialiseScene, this::initialiseInterface);
+    }
+
+    /**
+     * Builds the board and everything in the scene. Called once the models
+     * and textures have loaded.
+     **/
+    private void initialiseScene() {
+        effectManager = new EffectManager(this);
+        modelStore = new ModelManager(this);
+
         graphicalBoard = new GraphicalBoard(this);
         graphicalBoard.attach();
 
@@ -98,11 +158,29 @@ public class Client extends SimpleApplication {
         rootNode.addLight(directionalLight);
 
         addShadows();
+    }
+
+    /**
+     * Builds the interface, removes the splash screen and shows the main menu.
+     * Called once every asset has loaded.
+     **/
+    private void initialiseInterface() {
+        guiNode.addControl(frameProfiler.createMarker(Section.GUI, true));
+        draughtsGUI = new GUI(this);
+        guiNode.addControl(frameProfiler.createMarker(Section.GUI, false));
+
+        soundManager = new SoundManager(this);
+        input = new Input(this);
+
         initMusic();
 
         if (!DEBUG_FREECAM) {
             draughtsCamera = new DraughtsCamera(this);
         }
+        splashScreen.hide();
+        assetPreloader.release();
+        initialised = true;
+
         displayMainMenu();
     }
 
@@ -112,26 +190,41 @@ public class Client extends SimpleApplication {
             setState(StateType.STATE_MAIN_MENU);
         }
         graphicalBoard.initialisePieces();
-        gameMusic.play();
+
+        if (hasAudio()) {
+            gameMusic.play();
+        }
     }
 
     private void initMusic() {
-        gameMusic = new AudioNode(assetManager, "music/TOUGH_CHOICES.wav", false);
+        gameMusic = new AudioNode(assetManager, "music/TOUGH_CHOICES.wav", DataType.Stream);
         gameMusic.setVolume(config.getMusicVolume());
         gameMusic.setPositional(false);
         gameMusic.setLooping(true);
     }
 
     public void stopMusic() {
+        if (!hasAudio()) {
+            return;
+        }
         enqueue(() -> {
             gameMusic.stop();
             return null;
         });
     }
 
+    /**
+     * @return {@code false} if the client was started without audio - as it
+     * is by a {@code Headless} benchmark - in which case nothing may be
+     * played.
+     **/
+    public boolean hasAudio() {
+        return (getAudioRenderer() != null);
+    }
+
     @Override
     public void simpleRender(RenderManager renderManager) {
-        if (updateShadows) {
+        if (updateShadows && initialised) {
             addShadows();
             updateShadows = false;
         }
@@ -139,9 +232,20 @@ public class Client extends SimpleApplication {
 
     @Override
     public void simpleUpdate(float timePerFrame) {
+        if (!initialised) {
+            splashScreen.setProgress(assetPreloader.getProgress());
+            return;
+        }
+        frameProfiler.endFrame(timePerFrame);
+        qualityGovernor.update(timePerFrame);
+
+        frameProfiler.begin(Section.EFFECTS);
         effectManager.update(timePerFrame);
+        frameProfiler.end(Section.EFFECTS);
 
         if (showHover) {
+            frameProfiler.begin(Section.HOVER);
+
             Tile currentHoverTile = input.calculateHoverTile();
 
             if (isGameRunning()) {
@@ -163,14 +267,23 @@ public class Client extends SimpleApplication {
                 else {
                     graphicalBoard.setHoverTile(null);
                 }
+                input.setCurrentHoverTile(currentHoverTile);
             }
+            else {
+                input.setCurrentHoverTile(null);
+            }
+            frameProfiler.end(Section.HOVER);
         }
         if (pieceMoving) {
+            frameProfiler.begin(Section.INTERPOLATION);
+
             if (!config.movesSmoothly() || handlePieceInterpolation(movingPiece, timePerFrame)) {
                 movingPiece.setAtTarget();
                 movingPiece = null;
                 pieceMoving = false;
+                input.setCurrentHoverTile(null);
             }
+            frameProfiler.end(Section.INTERPOLATION);
         }
     }
 
@@ -178,9 +291,13 @@ public class Client extends SimpleApplication {
     public void destroy() {
         super.destroy();
         executor.shutdown();
-        config.save(this);
 
-        if (!DEBUG_FREECAM) {
+        if (!benchmarking) {
+            config.save(this);
+        }
+        GameSaver.shutdown();
+
+        if (!DEBUG_FREECAM && draughtsCamera != null) {
             draughtsCamera.destroy();
         }
     }
@@ -214,18 +331,25 @@ public class Client extends SimpleApplication {
         }
     }
 
+    /**
+     * Adds shadows of the quality chosen by the {@link QualityGovernor} - the
+     * configured quality, unless it has been lowered to hold the frame rate.
+     **/
     public void addShadows() {
-        if (config.getShadowQuality() == ShadowQuality.OFF) {
+        ShadowQuality shadowQuality = qualityGovernor.getShadowQuality();
+
+        if (shadowQuality == ShadowQuality.OFF) {
+            activeShadowQuality = shadowQuality;
             return;
         }
 
-        int shadowMapSize = 128 << (4 - config.getShadowQuality().ordinal()),
-            shadowRenderPasses = (4 - config.getShadowQuality().ordinal());
+        int shadowMapSize = 128 << (4 - shadowQuality.ordinal()),
+            shadowRenderPasses = (4 - shadowQuality.ordinal());
  
         shadowRenderer = new DirectionalLightShadowRenderer(assetManager, shadowMapSize, shadowRenderPasses);
         shadowRenderer.setLight(directionalLight);
 
-        switch(config.getShadowQuality()) {
+        switch(shadowQuality) {
             case HIGH:
                 shadowRenderer.setEdgeFilteringMode(EdgeFilteringMode.PCF4); // PCF8 looks awesome but is really expensive
             break;
@@ -236,10 +360,19 @@ public class Client extends SimpleApplication {
         }
         viewPort.addProcessor(shadowRenderer);
 
-        activeShadowQuality = config.getShadowQuality();
+        activeShadowQuality = shadowQuality;
         Logger.logInfo("Added shadows (quality: " + activeShadowQuality + " - " + "map size: " + shadowMapSize + ", " + "renderer passes: " + shadowRenderPasses + ")");
     }
 
+    /**
+     * Replaces the shadows with ones of the current quality. Must be called
+     * from the render thread.
+     **/
+    public void refreshShadows() {
+        clearShadows();
+        addShadows();
+    }
+
     /**
      * Handles the interpolation of pieces.
      *
@@ -279,21 +412,48 @@ public class Client extends SimpleApplication {
     }
 
     /**
-     * Called after the game's settings are changed.
+     * Called after the game's settings are changed. Only the settings that
+     * changed since they were last applied are applied, each in the cheapest
+     * way it can be - the graphics context is restarted only if a setting
+     * needs it.
+     *
+     * @see Setting
      **/
     public void refreshConfig() {
-        if (!activeResolution.equals(config.getResolution())) {
-            draughtsGUI.markRestartRequired();
+        EnumSet<Setting> changes = Setting.changed(appliedConfig, config);
+
+        appliedConfig = config.copy();
+
+        if (changes.isEmpty()) {
+            return;
         }
+        Logger.logInfo("Applying changed settings: " + changes);
 
-        modelStore.reloadModels(this);
-        gameMusic.setVolume(config.getMusicVolume());
-        draughtsGUI.updateVolume();
+        if (changes.contains(Setting.RESOLUTION) && !activeResolution.equals(config.getResolution())) {
+            draughtsGUI.markRestartRequired();
+        }
+        if (changes.contains(Setting.MUSIC_VOLUME)) {
+            gameMusic.setVolume(config.getMusicVolume());
+        }
+        if (changes.contains(Setting.SOUND_VOLUME)) {
+            draughtsGUI.updateVolume();
+        }
+        if (changes.contains(Setting.SHADOW_QUALITY) || changes.contains(Setting.MODEL_QUALITY)
+         || changes.contains(Setting.EFFECTS) || changes.contains(Setting.QUALITY_GOVERNOR)) {
+            qualityGovernor.reset();
+            effectManager.setParticleScale(qualityGovernor.getParticleScale());
+            modelStore.reloadModels(this);
+        }
 
-        clearShadows();
-        configureApplication();
-        restart();
-        updateShadows = true;
+        if (Setting.require(changes, Application.CONTEXT_RESTART)) {
+            clearShadows();
+            configureApplication();
+            restart();
+            updateShadows = true;
+        }
+        else if (qualityGovernor.getShadowQuality() != activeShadowQuality) {
+            refreshShadows();
+        }
     }
 
     public void setCurrentGame(Game game) {
@@ -326,6 +486,7 @@ public class Client extends SimpleApplication {
         if (!showHover) {
             enqueue(() -> {
                 graphicalBoard.setHoverTile(null);
+                input.setCurrentHoverTile(null);
                 return null;
             });
         }
@@ -367,6 +528,14 @@ public class Client extends SimpleApplication {
         return modelStore;
     }
 
+    public QualityGovernor getQualityGovernor() {
+        return qualityGovernor;
+    }
+
+    public FrameProfiler getFrameProfiler() {
+        return frameProfiler;
+    }
+
     public Vector2f getScreenDimensions() {
         return new Vector2f(this.settings.getWidth(), this.settings.getHeight());
     }
@@ -387,6 +556,13 @@ public class Client extends SimpleApplication {
         return showHover;
     }
 
+    /**
+     * @return {@code true} once the scene and interface have been built.
+     **/
+    public boolean isInitialised() {
+        return initialised;
+    }
+
     public boolean isGameRunning() {
         return currentGame != null;
     }
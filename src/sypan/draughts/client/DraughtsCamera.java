@@ -21,12 +21,22 @@ public class DraughtsCamera extends ChaseCamera {
         DESTROYED, IDLE, MOVING, ROAMING
     };
 
-    private final float CAMERA_SPEED = 0.25f;
-    private final int CAMERA_SLEEP_MS = 3, CAMERA_SLEEP_MS_FAST = 1;
+    /**
+     * Rotation speeds, in degrees per second.
+     **/
+    private final static float ROAM_SPEED = 1.6f, ROTATION_SPEED = 90, ROTATION_SPEED_FAST = 270;
+
+    private final static float MIN_MOVE_SECONDS = 0.25f;
 
     private final Client client;
-    
-    private CameraStatus cameraStatus;
+
+    private volatile CameraStatus cameraStatus;
+
+    /**
+     * The move in progress, in degrees. Only touched on the render thread.
+     **/
+    private float fromHorizontal, fromVertical, toHorizontal, toVertical, moveSeconds, moveDuration;
+    private Runnable onArrival;
 
     protected DraughtsCamera(Client client) {
         super(client.getCamera(), client.getGraphicalBoard().getBoardNode(), client.getInputManager());
@@ -50,69 +60,106 @@ public class DraughtsCamera extends ChaseCamera {
      * @see MainMenuState
      **/
     protected void idleRoam(Client client) {
-        cameraStatus = CameraStatus.ROAMING;
-
-        final float ROAM_SPEED = CAMERA_SPEED / 50;
-
-        setDefaultVerticalRotation(50 * FastMath.DEG_TO_RAD);
-
-        client.getExecutor().submit(() -> {
-            float currentHorizontal = getHorizontalRotation();
-            
-            while (cameraStatus == CameraStatus.ROAMING) {
-                currentHorizontal += ROAM_SPEED;
-                
-                setDefaultHorizontalRotation(currentHorizontal * FastMath.DEG_TO_RAD);
-                Thread.sleep(CAMERA_SLEEP_MS);
+        client.enqueue(() -> {
+            if (cameraStatus != CameraStatus.DESTROYED) {
+                cameraStatus = CameraStatus.ROAMING;
+                setDefaultVerticalRotation(50 * FastMath.DEG_TO_RAD);
             }
             return null;
         });
     }
 
     /**
-     * Rotates the camera to the specified side.
+     * Rotates the camera to the specified side, easing in and out. The camera
+     * counts as moving from the moment this is called.
      *
      * @param game - the current game.
-     * @param side - the side to rotate to, either {@code Side.BLACK] or {@code Side.WHITE}.
-     *
-     * @throws InterruptedException if the thread is interrupted.
-     *
-     */
-    public void moveToSide(Game game, Side side) throws InterruptedException {
+     * @param side - the side to rotate to, either {@code Side.BLACK}, {@code Side.WHITE}
+     * or {@code Side.SPECTATOR}.
+     * @param onArrival - run on the render thread once the camera arrives. May
+     * be {@code null}.
+     **/
+    public void moveToSide(Game game, Side side, Runnable onArrival) {
         cameraStatus = CameraStatus.MOVING;
 
-        client.getExecutor().submit(() -> {
-            float currentHorizontal = getHorizontalRotation() * FastMath.RAD_TO_DEG,
-                  currentVertical = getVerticalRotation() * FastMath.RAD_TO_DEG,
-                  targetHorizontal = (side.isPlaying() ? (game.getCurrentTurn() == Side.BLACK ? 90 : -90) : -180),
-                  verticalAxis = (client.getConfig().overheadCamera() ? 90 : 50);
-            
-            long sleepTime = (client.getConfig().rotateQuickly() ? CAMERA_SLEEP_MS_FAST : CAMERA_SLEEP_MS);
-            
-            while (currentHorizontal != targetHorizontal || currentVertical != verticalAxis) {
-                if ((game.getCurrentTurn() == Side.WHITE ? targetHorizontal - currentHorizontal > 0.25f : targetHorizontal - currentHorizontal < 0.25f)) {
-                    currentHorizontal = targetHorizontal;
-                }
-                else {
-                    currentHorizontal += (currentHorizontal < targetHorizontal ? CAMERA_SPEED : -CAMERA_SPEED);
-                }
-                
-                if (verticalAxis - currentVertical < 0.25f) {
-                    currentVertical = verticalAxis;
-                }
-                else {
-                    currentVertical += (currentVertical < verticalAxis ? rotationSpeed : -rotationSpeed);
-                }
-                
-                setDefaultHorizontalRotation(currentHorizontal * FastMath.DEG_TO_RAD);
-                setDefaultVerticalRotation(currentVertical * FastMath.DEG_TO_RAD);
-                Thread.sleep(sleepTime);
+        client.enqueue(() -> {
+            if (cameraStatus == CameraStatus.DESTROYED) {
+                return null;
+            }
+            toHorizontal = (side.isPlaying() ? (game.getCurrentTurn() == Side.BLACK ? 90 : -90) : -180);
+            toVertical = (client.getConfig().overheadCamera() ? 90 : 50);
+            fromVertical = getVerticalRotation() * FastMath.RAD_TO_DEG;
+
+            // Take the short way round, however far the camera has roamed
+            float turn = (getHorizontalRotation() * FastMath.RAD_TO_DEG - toHorizontal) % 360;
+
+            if (turn > 180) {
+                turn -= 360;
             }
-            cameraStatus = CameraStatus.IDLE;
+            else if (turn < -180) {
+                turn += 360;
+            }
+            fromHorizontal = toHorizontal + turn;
+
+            float distance = Math.max(Math.abs(turn), Math.abs(toVertical - fromVertical));
+
+            moveDuration = Math.max(MIN_MOVE_SECONDS, distance / (client.getConfig().rotateQuickly() ? ROTATION_SPEED_FAST : ROTATION_SPEED));
+            moveSeconds = 0;
+            this.onArrival = onArrival;
+            cameraStatus = CameraStatus.MOVING;
             return null;
         });
     }
 
+    /**
+     * Advances the camera's motion. Called every frame on the render thread,
+     * as the camera is a control of the board, so the camera moves at the same
+     * speed at any frame rate.
+     *
+     * @param timePerFrame - the seconds since the last frame.
+     **/
+    @Override
+    public void update(float timePerFrame) {
+        animate(timePerFrame);
+        super.update(timePerFrame);
+    }
+
+    private void animate(float timePerFrame) {
+        switch (cameraStatus == null ? CameraStatus.IDLE : cameraStatus) {
+            case ROAMING:
+                setDefaultHorizontalRotation(getHorizontalRotation() + ROAM_SPEED * FastMath.DEG_TO_RAD * timePerFrame);
+            break;
+
+            case MOVING:
+                if (moveDuration == 0) {
+                    break; // The move hasn't been set up yet
+                }
+                moveSeconds = Math.min(moveSeconds + timePerFrame, moveDuration);
+
+                float progress = moveSeconds / moveDuration,
+                      eased = progress * progress * (3 - 2 * progress); // Smoothstep
+
+                setDefaultHorizontalRotation(FastMath.interpolateLinear(eased, fromHorizontal, toHorizontal) * FastMath.DEG_TO_RAD);
+                setDefaultVerticalRotation(FastMath.interpolateLinear(eased, fromVertical, toVertical) * FastMath.DEG_TO_RAD);
+
+                if (progress == 1) {
+                    Runnable arrived = onArrival;
+
+                    cameraStatus = CameraStatus.IDLE;
+                    moveDuration = 0;
+                    onArrival = null;
+
+                    if (arrived != null) {
+                        arrived.run();
+                    }
+                }
+            break;
+
+            default:
+            break;
+        }
+    }
+
     public boolean isMoving() {
         return cameraStatus == CameraStatus.MOVING;
     }
@@ -2,7 +2,6 @@ package sypan.draughts.client;
 
 import java.util.ArrayList;
 
-import sypan.draughts.client.effect.ExplosionEffect;
 import sypan.draughts.client.manager.ModelManager.ModelType;
 import sypan.draughts.client.manager.SoundManager.SoundType;
 import sypan.draughts.game.Game;
@@ -10,6 +9,7 @@ import sypan.draughts.game.LogicalBoard;
 import sypan.draughts.game.piece.Piece;
 import sypan.draughts.game.piece.PieceType;
 import sypan.draughts.game.piece.Tile;
+import sypan.utility.Logger;
 
 import com.jme3.light.SpotLight;
 import com.jme3.material.Material;
@@ -17,10 +17,12 @@ import com.jme3.math.ColorRGBA;
 import com.jme3.math.FastMath;
 import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
+import com.jme3.renderer.Caps;
 import com.jme3.renderer.queue.RenderQueue.ShadowMode;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
+import com.jme3.scene.instancing.InstancedNode;
 import com.jme3.scene.shape.Quad;
 import com.jme3.texture.Texture;
 import com.jme3.texture.Texture.WrapMode;
@@ -30,7 +32,10 @@ import com.jme3.texture.Texture.WrapMode;
  * of {@code Node} so it may be attached to the scene directly.<p>
  * 
  * An instance of {@code GraphicalBoard} may exist without an associated {@link LogicalBoard} to
- * support the board (complete with pieces) appearing as backing for the main menu.
+ * support the board (complete with pieces) appearing as backing for the main menu.<p>
+ *
+ * Where the graphics card supports it, the pieces are drawn with hardware instancing - see
+ * {@link PieceMaterials}.
  * 
  * @author Carl Linley
  **/
@@ -43,6 +48,7 @@ public class GraphicalBoard extends Node {
     private final Client c;
     private final ArrayList<Piece> renderedPieces, lockedPieces;
     private final Node pieceNode, boardNode;
+    private final PieceMaterials pieceMaterials;
     private final boolean[] lightDisplayed;
 
     private Piece hoverPiece, selectedPiece;
@@ -53,12 +59,19 @@ public class GraphicalBoard extends Node {
 
     protected GraphicalBoard(Client c) {
         this.c = c;
-        pieceNode = new Node();
+
+        boolean useInstancing = c.getRenderer().getCaps().contains(Caps.MeshInstancing);
+
+        pieceNode = (useInstancing ? new InstancedNode("PIECES") : new Node("PIECES"));
+        pieceMaterials = new PieceMaterials(c.getAssetManager(), useInstancing);
         boardNode = new Node();
         lightDisplayed = new boolean[2];
         lockedPieces = new ArrayList<>(12);
         renderedPieces = new ArrayList<>();
 
+        if (!useInstancing) {
+            Logger.logInfo("Hardware instancing is not supported - drawing pieces individually.");
+        }
         initialiseLighting();
         initialiseGeometry();
     }
@@ -273,9 +286,13 @@ public class GraphicalBoard extends Node {
      **/
     public void renderPiece(Piece newPiece, Tile originTile) {
         setPiece(newPiece, originTile);
-        newPiece.getModel().setMaterial(newPiece.createMaterial(c));
+        newPiece.setMaterials(pieceMaterials);
         pieceNode.attachChild(newPiece.getModel());
         renderedPieces.add(newPiece);
+
+        if (pieceMaterials.useInstancing()) {
+            ((InstancedNode) pieceNode).instance();
+        }
     }
 
     /**
@@ -285,8 +302,8 @@ public class GraphicalBoard extends Node {
      **/
     public void removePiece(Piece toRemove) {
         if (toRemove != null) {
-            if (c.getConfig().useEffects()) {
-                c.getEffectManager().createEffect(new ExplosionEffect(c, toRemove.isKing(), toRemove.getSide()), toRemove.getTile().getWorldLocation().add(0, 1, 0));
+            if (c.getQualityGovernor().useEffects()) {
+                c.getEffectManager().createExplosion(toRemove.isKing(), toRemove.getSide(), toRemove.getTile().getWorldLocation().add(0, 1, 0));
             }
             pieceNode.detachChild(toRemove.getModel());
             renderedPieces.remove(toRemove);
@@ -351,8 +368,16 @@ public class GraphicalBoard extends Node {
         return lockedPieces.contains(toCheck);
     }
 
+    /**
+     * Removes every piece from the graphical board. The pieces are detached
+     * one by one, rather than with {@code detachAllChildren}, so that the
+     * instanced geometry they are drawn with stays attached for the next set of
+     * pieces.
+     **/
     public void clearPieces() {
-        pieceNode.detachAllChildren();
+        for (Piece p : renderedPieces) {
+            pieceNode.detachChild(p.getModel());
+        }
         renderedPieces.clear();
         lockedPieces.clear();
     }
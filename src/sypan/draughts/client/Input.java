@@ -4,7 +4,6 @@ import sypan.draughts.game.GameReplay;
 import sypan.draughts.game.piece.Tile;
 import sypan.utility.Logger;
 
-import com.jme3.collision.CollisionResults;
 import com.jme3.input.KeyInput;
 import com.jme3.input.MouseInput;
 import com.jme3.input.controls.ActionListener;
@@ -12,8 +11,11 @@ import com.jme3.input.controls.AnalogListener;
 import com.jme3.input.controls.KeyTrigger;
 import com.jme3.input.controls.MouseButtonTrigger;
 import com.jme3.math.ColorRGBA;
-import com.jme3.math.Ray;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
 
 /**
  * {@code Input} handles game input - mouse movement, mouse clicks, and key
@@ -23,16 +25,29 @@ import com.jme3.math.Vector3f;
  **/
 final class Input implements ActionListener, AnalogListener {
 
-    private final CollisionResults collisionResults;
+    /**
+     * The height of the surface of the board, in world space.
+     **/
+    private final static float BOARD_SURFACE_Y = -0.09f;
+
     private final Client client;
-    private final Ray mouseRay;
-    
+
+    private final Vector2f lastCursor;
+    private final Vector3f lastCameraLocation, rayOrigin, rayDirection;
+    private final Quaternion lastCameraRotation;
+
+    private Tile pickedTile;
+    private boolean pickValid;
+
     private Tile hoverTile;
 
     protected Input(Client c) {
         this.client = c;
-        collisionResults = new CollisionResults();
-        mouseRay = new Ray();
+        lastCursor = new Vector2f();
+        lastCameraLocation = new Vector3f();
+        lastCameraRotation = new Quaternion();
+        rayOrigin = new Vector3f();
+        rayDirection = new Vector3f();
 
         init();
     }
@@ -40,7 +55,15 @@ final class Input implements ActionListener, AnalogListener {
     void init() { // Prevent leaking this
         client.getInputManager().addMapping("SELECT", new MouseButtonTrigger(MouseInput.BUTTON_LEFT));
         client.getInputManager().addMapping("CONTINUE", new KeyTrigger(KeyInput.KEY_SPACE));
-        client.getInputManager().addListener(this, "SELECT", "CONTINUE");
+        client.getInputManager().addMapping("HINT", new KeyTrigger(KeyInput.KEY_H));
+        client.getInputManager().addMapping("REPLAY_BACK", new KeyTrigger(KeyInput.KEY_LEFT));
+        client.getInputManager().addMapping("REPLAY_FORWARD", new KeyTrigger(KeyInput.KEY_RIGHT));
+        client.getInputManager().addMapping("REPLAY_START", new KeyTrigger(KeyInput.KEY_HOME));
+        client.getInputManager().addMapping("REPLAY_END", new KeyTrigger(KeyInput.KEY_END));
+        client.getInputManager().addMapping("PROFILER", new KeyTrigger(KeyInput.KEY_F3));
+        client.getInputManager().addMapping("PROFILER_EXPORT", new KeyTrigger(KeyInput.KEY_F4));
+        client.getInputManager().addListener(this, "SELECT", "CONTINUE", "HINT", "REPLAY_BACK", "REPLAY_FORWARD", "REPLAY_START", "REPLAY_END",
+                "PROFILER", "PROFILER_EXPORT");
         Logger.logInfo("Input handler initialised.");
     }
 
@@ -56,6 +79,29 @@ final class Input implements ActionListener, AnalogListener {
                     }
                 break;
 
+                case "REPLAY_BACK":
+                case "REPLAY_FORWARD":
+                case "REPLAY_START":
+                case "REPLAY_END":
+                    if (client.isGameRunning() && client.getCurrentGame().isReplay()) {
+                        seekReplay((GameReplay) client.getCurrentGame(), actionName);
+                    }
+                break;
+
+                case "PROFILER":
+                    client.getFrameProfiler().toggleOverlay();
+                break;
+
+                case "PROFILER_EXPORT":
+                    client.getFrameProfiler().export();
+                break;
+
+                case "HINT":
+                    if (client.isGameRunning() && !client.getCurrentGame().isReplay() && !client.getCurrentGame().gameEnded()) {
+                        client.getCurrentGame().showHint();
+                    }
+                break;
+
                 case "SELECT":
                     if (client.isGameRunning() && client.getCurrentGame().isReplay()) {
                         return;
@@ -77,6 +123,8 @@ final class Input implements ActionListener, AnalogListener {
                     if (t == null) {
                         return;
                     }
+                    t = t.clone(); // The picked tile is reused
+                    hoverTile = null; // The board changes under the cursor, so light it again
                     if (client.getGraphicalBoard().getSelectedTile() == null) {
                         if (!client.getCurrentGame().getLogicalBoard().pieceOccupies(t)) {
                             return;
@@ -97,57 +145,96 @@ final class Input implements ActionListener, AnalogListener {
         }
     }
 
+    private void seekReplay(GameReplay replay, String actionName) {
+        switch (actionName) {
+            case "REPLAY_BACK":
+                replay.previousTurn();
+            break;
+
+            case "REPLAY_FORWARD":
+                replay.skipTurn();
+            break;
+
+            case "REPLAY_START":
+                replay.seek(0);
+            break;
+
+            default:
+                replay.seek(replay.getStepCount());
+            break;
+        }
+    }
+
     @Override
     public void onAnalog(String actionName, float keyPressed, float timePerFrame) {
     }
 
     /**
      * This method returns the board tile that the mouse is currently hovering
-     * over. It also stores this tile in the {@code hoverTile} member variable,
-     * which is then accessed via {@code getCurrentHoverTile()} to determine
-     * whether or not the hover light needs altering.
+     * over.<p>
+     *
+     * The mouse ray is intersected with the plane of the board directly rather
+     * than collided with the board's geometry, and the result is reused until
+     * the cursor or the camera moves - so most frames cost a few comparisons
+     * and create no garbage.
      *
-     * @return the tile the mouse is currently hovering over.
+     * @return the tile the mouse is currently hovering over, or {@code null}
+     * if it is off the board. The same instance is returned until the tile
+     * changes, so it must not be modified.
      **/
     protected Tile calculateHoverTile() {
-        collisionResults.clear();
-
         if (client.getDraughtsCamera().isMoving()) {
+            pickValid = false;
             return null;
         }
+        Camera camera = client.getCamera();
+        Vector2f cursor = client.getInputManager().getCursorPosition();
 
-        Vector3f origin = client.getCamera().getWorldCoordinates(client.getInputManager().getCursorPosition(), 0.0f),
-                direction = client.getCamera().getWorldCoordinates(client.getInputManager().getCursorPosition(), 0.3f).subtractLocal(origin).normalizeLocal();
-
-        mouseRay.setOrigin(origin);
-        mouseRay.setDirection(direction);
-
-        client.getGraphicalBoard().getBoardNode().collideWith(mouseRay, collisionResults);
+        if (pickValid && cursor.equals(lastCursor) && camera.getLocation().equals(lastCameraLocation) && camera.getRotation().equals(lastCameraRotation)) {
+            return pickedTile;
+        }
+        lastCursor.set(cursor);
+        lastCameraLocation.set(camera.getLocation());
+        lastCameraRotation.set(camera.getRotation());
+        pickValid = true;
 
-        if (collisionResults.size() > 0) {
-            Vector3f p = collisionResults.getCollision(0).getContactPoint();
+        camera.getWorldCoordinates(cursor, 0, rayOrigin);
+        camera.getWorldCoordinates(cursor, 0.3f, rayDirection).subtractLocal(rayOrigin);
 
-            int x = (int) (p.getX() + 1) / 2,
-                    y = (int) (p.getZ() + 1) / 2;
+        // Where the ray meets the plane of the board, if it does
+        float distance = (BOARD_SURFACE_Y - rayOrigin.getY()) / rayDirection.getY();
 
-            if (x < 0 || y < 0 || x > 7 || y > 7) {
-                return null;
-            }
+        if (rayDirection.getY() == 0 || distance < 0) {
+            return (pickedTile = null);
+        }
+        int x = (int) FastMath.floor((rayOrigin.getX() + rayDirection.getX() * distance + 1) / 2),
+            y = (int) FastMath.floor((rayOrigin.getZ() + rayDirection.getZ() * distance + 1) / 2);
 
-            if (hoverTile != null) {
-                return hoverTile.set(x, y);
-            }
-            else {
-                return new Tile(x, y);
-            }
+        if (x < 0 || y < 0 || x > 7 || y > 7) {
+            return (pickedTile = null);
         }
-        return null;
+        if (pickedTile == null || pickedTile.getX() != x || pickedTile.getY() != y) {
+            pickedTile = new Tile(x, y);
+        }
+        return pickedTile;
     }
 
     /**
-     * @return the current tile that the player is hovering over.
+     * @return the tile the hover light was last set for, or {@code null} if
+     * it must be set again on the next frame.
      **/
     protected Tile getCurrentHoverTile() {
         return hoverTile;
     }
+
+    /**
+     * Records the tile the hover light has been set for, so that it is only
+     * set again once {@link #calculateHoverTile} returns a different tile.
+     * Pass {@code null} when the board changes under the cursor.
+     *
+     * @param hoverTile - the tile, or {@code null}.
+     **/
+    protected void setCurrentHoverTile(Tile hoverTile) {
+        this.hoverTile = hoverTile;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package sypan.draughts.client;
+
+import java.util.HashMap;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+
+/**
+ * {@code PieceMaterials} stores the materials the pieces are drawn with. There
+ * is one material per colour, shared by every piece of that colour - a piece
+ * is tinted (hovered, selected, locked) by switching it to another material,
+ * rather than by changing a material of its own.<p>
+ *
+ * Sharing materials is what lets the pieces be drawn with hardware
+ * instancing - the {@code InstancedNode} the pieces are attached to draws
+ * every piece with the same mesh and material in one draw call, so the whole
+ * board takes a handful of draw calls instead of one (or more) per piece.
+ *
+ * @author Carl Linley
+ **/
+public class PieceMaterials {
+
+    private final AssetManager assetManager;
+    private final HashMap<ColorRGBA, Material> materialStore;
+    private final boolean useInstancing;
+
+    /**
+     * @param assetManager - the asset manager to create materials with.
+     * @param useInstancing - {@code true} if the materials will be drawn with
+     * hardware instancing.
+     **/
+    public PieceMaterials(AssetManager assetManager, boolean useInstancing) {
+        this.assetManager = assetManager;
+        this.useInstancing = useInstancing;
+
+        materialStore = new HashMap<>();
+    }
+
+    /**
+     * @param colour - the colour of the material.
+     * @return the material of the specified colour, which is created the first
+     * time it is asked for.
+     **/
+    public Material get(ColorRGBA colour) {
+        Material pieceMaterial = materialStore.get(colour);
+
+        if (pieceMaterial == null) {
+            pieceMaterial = new Material(assetManager, "Common/MatDefs/Light/Lighting.j3md");
+            pieceMaterial.setColor("Diffuse", colour);
+            pieceMaterial.setColor("Specular", ColorRGBA.White);
+            pieceMaterial.setFloat("Shininess", 128.0f);
+            pieceMaterial.setBoolean("UseMaterialColors", true);
+            pieceMaterial.setBoolean("UseInstancing", useInstancing);
+
+            materialStore.put(colour.clone(), pieceMaterial);
+        }
+        return pieceMaterial;
+    }
+
+    public boolean useInstancing() {
+        return useInstancing;
+    }
+}
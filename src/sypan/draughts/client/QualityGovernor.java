@@ -0,0 +1,305 @@
+package sypan.draughts.client;
+
+import sypan.draughts.client.config.Configuration;
+import sypan.draughts.client.config.ModelQuality;
+import sypan.draughts.client.config.ShadowQuality;
+import sypan.utility.Logger;
+
+import com.jme3.font.BitmapText;
+import com.jme3.math.ColorRGBA;
+
+/**
+ * {@code QualityGovernor} measures how long frames take and lowers the graphics
+ * when the client cannot hold its target frame rate, raising them again once it
+ * comfortably can. The settings chosen in Settings are the most it will use -
+ * it never raises anything above them, and never changes the saved
+ * {@link Configuration}.<p>
+ *
+ * The graphics are lowered one step at a time, down the {@code LADDER} -
+ * shadows first, as they cost the most, then particle counts, model quality,
+ * and finally effects altogether. Steps that would change nothing (shadows that
+ * are already off, for instance) are skipped.<p>
+ *
+ * To stop the graphics flickering between two levels, the governor lowers them
+ * only after {@code DOWNGRADE_SECONDS} of slow frames, raises them only after a
+ * much longer run of fast frames, and ignores the frames just after a change.
+ * If raising the graphics soon leads to lowering them again, it waits twice as
+ * long before trying again.<p>
+ *
+ * While the graphics are lowered, a small note in the corner of the screen says
+ * so.
+ *
+ * @author Carl Linley
+ **/
+public class QualityGovernor {
+
+    private enum Step {
+        SHADOWS, PARTICLES, MODELS, EFFECTS
+    };
+
+    private final static Step[] LADDER = {Step.SHADOWS, Step.PARTICLES, Step.SHADOWS, Step.MODELS, Step.PARTICLES,
+                                          Step.SHADOWS, Step.MODELS, Step.EFFECTS, Step.MODELS};
+
+    /**
+     * Frame times are averaged over windows of this many seconds.
+     **/
+    private final static float WINDOW_SECONDS = 0.5f;
+
+    /**
+     * A window is slow if its average frame time is over the budget by this
+     * ratio, and fast if it is under the budget by this one.
+     **/
+    private final static float SLOW_RATIO = 1.2f, FAST_RATIO = 0.75f;
+
+    private final static float DOWNGRADE_SECONDS = 2f, UPGRADE_SECONDS = 10f, MAX_UPGRADE_SECONDS = 120f,
+                               SETTLE_SECONDS = 3f, OSCILLATION_SECONDS = 15f;
+
+    /**
+     * Frames longer than this are loading or a stall, not a sign of the
+     * graphics being too much for the machine.
+     **/
+    private final static float MAX_FRAME_SECONDS = 0.25f;
+
+    private final Client client;
+    private final BitmapText indicator;
+
+    private int level;
+    private float windowTime, sinceChange, slowTime, fastTime, upgradeSeconds;
+    private int windowFrames;
+    private boolean lastChangeUp;
+
+    private ShadowQuality shadowQuality;
+    private ModelQuality modelQuality;
+    private float particleScale;
+    private boolean useEffects;
+
+    public QualityGovernor(Client c) {
+        this.client = c;
+
+        indicator = new BitmapText(c.getAssetManager().loadFont("Interface/Fonts/Default.fnt"));
+        indicator.setColor(ColorRGBA.Yellow);
+        indicator.setLocalTranslation(4, indicator.getLineHeight() + 4, 0);
+
+        reset();
+    }
+
+    /**
+     * Returns the graphics to the configured settings and starts measuring
+     * afresh. Called when the settings are changed.
+     **/
+    public final void reset() {
+        level = 0;
+        upgradeSeconds = UPGRADE_SECONDS;
+        resetMeasurements();
+        calculateSettings();
+        updateIndicator();
+    }
+
+    private void resetMeasurements() {
+        windowTime = 0;
+        windowFrames = 0;
+        sinceChange = 0;
+        slowTime = 0;
+        fastTime = 0;
+    }
+
+    /**
+     * Measures a frame, and lowers or raises the graphics if it is time to.
+     * Called every frame.
+     *
+     * @param timePerFrame - the time the last frame took.
+     **/
+    public void update(float timePerFrame) {
+        if (!client.getConfig().adaptsQuality()) {
+            if (level != 0) {
+                setLevel(0);
+            }
+            return;
+        }
+        sinceChange += timePerFrame;
+
+        if (sinceChange < SETTLE_SECONDS || timePerFrame > MAX_FRAME_SECONDS) {
+            return;
+        }
+        windowTime += timePerFrame;
+        windowFrames++;
+
+        if (windowTime < WINDOW_SECONDS) {
+            return;
+        }
+        float averageFrame = windowTime / windowFrames, budget = 1f / client.getConfig().getTargetFrameRate();
+
+        if (averageFrame > budget * SLOW_RATIO) {
+            slowTime += windowTime;
+            fastTime = 0;
+        }
+        else if (averageFrame < budget * FAST_RATIO) {
+            fastTime += windowTime;
+            slowTime = 0;
+        }
+        else {
+            slowTime = 0;
+            fastTime = 0;
+        }
+        windowTime = 0;
+        windowFrames = 0;
+
+        if (slowTime >= DOWNGRADE_SECONDS) {
+            stepDown(averageFrame);
+        }
+        else if (fastTime >= upgradeSeconds) {
+            stepUp();
+        }
+    }
+
+    private void stepDown(float averageFrame) {
+        if (lastChangeUp && sinceChange < OSCILLATION_SECONDS) {
+            upgradeSeconds = Math.min(upgradeSeconds * 2, MAX_UPGRADE_SECONDS);
+        }
+        for (int newLevel = level + 1; newLevel <= LADDER.length; newLevel++) {
+            if (changesSettings(newLevel)) {
+                Logger.logInfo("Lowering graphics to hold " + client.getConfig().getTargetFrameRate() + " FPS (average frame: "
+                        + Math.round(averageFrame * 1000) + "ms).");
+                lastChangeUp = false;
+                setLevel(newLevel);
+                return;
+            }
+        }
+        resetMeasurements(); // Nothing left to lower
+    }
+
+    private void stepUp() {
+        for (int newLevel = level - 1; newLevel >= 0; newLevel--) {
+            if (changesSettings(newLevel)) {
+                Logger.logInfo("Raising graphics.");
+                lastChangeUp = true;
+                setLevel(newLevel);
+                return;
+            }
+        }
+        resetMeasurements();
+    }
+
+    private boolean changesSettings(int newLevel) {
+        int oldLevel = level;
+        ShadowQuality oldShadows = shadowQuality;
+        ModelQuality oldModels = modelQuality;
+        float oldParticles = particleScale;
+        boolean oldEffects = useEffects;
+
+        level = newLevel;
+        calculateSettings();
+
+        boolean changed = (shadowQuality != oldShadows || modelQuality != oldModels || particleScale != oldParticles || useEffects != oldEffects);
+
+        level = oldLevel;
+        calculateSettings();
+        return changed;
+    }
+
+    /**
+     * Moves to a level of the ladder, applying whatever it changes.
+     **/
+    private void setLevel(int newLevel) {
+        ShadowQuality oldShadows = shadowQuality;
+        ModelQuality oldModels = modelQuality;
+        float oldParticles = particleScale;
+
+        level = newLevel;
+        calculateSettings();
+        resetMeasurements();
+
+        if (shadowQuality != oldShadows) {
+            client.refreshShadows();
+        }
+        if (modelQuality != oldModels) {
+            client.getModelStore().reloadModels(client);
+        }
+        if (particleScale != oldParticles) {
+            client.getEffectManager().setParticleScale(particleScale);
+        }
+        if (level != LADDER.length && LADDER[level] == Step.MODELS && modelQuality != ModelQuality.MIN) {
+            client.getModelStore().preloadTier(ModelQuality.values()[modelQuality.ordinal() + 1]); // The next step down
+        }
+        updateIndicator();
+    }
+
+    /**
+     * Works out the settings of the current level from the configured ones.
+     **/
+    private void calculateSettings() {
+        Configuration config = client.getConfig();
+        int shadowSteps = 0, particleSteps = 0, modelSteps = 0, effectSteps = 0;
+
+        for (int i = 0; i != level; i++) {
+            switch (LADDER[i]) {
+                case SHADOWS:
+                    shadowSteps++;
+                break;
+
+                case PARTICLES:
+                    particleSteps++;
+                break;
+
+                case MODELS:
+                    modelSteps++;
+                break;
+
+                case EFFECTS:
+                    effectSteps++;
+                break;
+            }
+        }
+        shadowQuality = ShadowQuality.values()[Math.min(config.getShadowQuality().ordinal() + shadowSteps, ShadowQuality.OFF.ordinal())];
+        modelQuality = ModelQuality.values()[Math.min(config.getModelQuality().ordinal() + modelSteps, ModelQuality.MIN.ordinal())];
+        particleScale = 1f / (1 << particleSteps);
+        useEffects = config.useEffects() && effectSteps == 0;
+    }
+
+    private void updateIndicator() {
+        if (level == 0) {
+            indicator.removeFromParent();
+            return;
+        }
+        indicator.setText("Graphics lowered to hold frame rate (" + level + "/" + LADDER.length + ")");
+
+        if (indicator.getParent() == null) {
+            client.getGuiNode().attachChild(indicator);
+        }
+    }
+
+    /**
+     * @return the shadow quality to render with.
+     **/
+    public ShadowQuality getShadowQuality() {
+        return shadowQuality;
+    }
+
+    /**
+     * @return the model quality to load models with.
+     **/
+    public ModelQuality getModelQuality() {
+        return modelQuality;
+    }
+
+    /**
+     * @return the scale of the number of particles in effects, from 0 to 1.
+     **/
+    public float getParticleScale() {
+        return particleScale;
+    }
+
+    /**
+     * @return {@code true} if effects should be played.
+     **/
+    public boolean useEffects() {
+        return useEffects;
+    }
+
+    /**
+     * @return how far the graphics have been lowered - zero if not at all.
+     **/
+    public int getLevel() {
+        return level;
+    }
+}
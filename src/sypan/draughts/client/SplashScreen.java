@@ -0,0 +1,68 @@
+package sypan.draughts.client;
+
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.shape.Quad;
+import com.jme3.ui.Picture;
+
+/**
+ * {@code SplashScreen} is shown while the client starts - the splash image in
+ * the centre of a black screen, with a bar beneath it showing how much of the
+ * game's assets have loaded.
+ *
+ * @author Carl Linley
+ **/
+final class SplashScreen extends Node {
+
+    private final static float SPLASH_WIDTH = 480, SPLASH_HEIGHT = 240, BAR_HEIGHT = 6, BAR_GAP = 16;
+
+    private final Geometry progressBar;
+
+    SplashScreen(Client c) {
+        super("SPLASH_SCREEN");
+
+        float screenWidth = c.getScreenDimensions().getX(), screenHeight = c.getScreenDimensions().getY(),
+              splashX = (screenWidth - SPLASH_WIDTH) / 2, splashY = (screenHeight - SPLASH_HEIGHT) / 2;
+
+        Geometry background = new Geometry("SPLASH_BACKGROUND", new Quad(screenWidth, screenHeight));
+        background.setMaterial(createMaterial(c, ColorRGBA.Black));
+
+        Picture splashImage = new Picture("SPLASH_IMAGE");
+        splashImage.setImage(c.getAssetManager(), "icons/splash.png", true);
+        splashImage.setWidth(SPLASH_WIDTH);
+        splashImage.setHeight(SPLASH_HEIGHT);
+        splashImage.setLocalTranslation(splashX, splashY, 1);
+
+        progressBar = new Geometry("SPLASH_PROGRESS", new Quad(SPLASH_WIDTH, BAR_HEIGHT));
+        progressBar.setMaterial(createMaterial(c, ColorRGBA.White));
+        progressBar.setLocalTranslation(splashX, splashY - BAR_GAP - BAR_HEIGHT, 1);
+
+        attachChild(background);
+        attachChild(splashImage);
+        attachChild(progressBar);
+        setProgress(0);
+    }
+
+    private static Material createMaterial(Client c, ColorRGBA colour) {
+        Material material = new Material(c.getAssetManager(), "Common/MatDefs/Misc/Unshaded.j3md");
+        material.setColor("Color", colour);
+        return material;
+    }
+
+    /**
+     * @param progress - the share of assets loaded, from 0 to 1.
+     **/
+    void setProgress(float progress) {
+        progressBar.setLocalScale(Math.max(progress, 0.001f), 1, 1);
+    }
+
+    void show(Client c) {
+        c.getGuiNode().attachChild(this);
+    }
+
+    void hide() {
+        removeFromParent();
+    }
+}
@@ -1,6 +1,7 @@
 package sypan.draughts.client.config;
 
 import java.awt.Dimension;
+import java.awt.GraphicsEnvironment;
 import java.awt.Toolkit;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -20,6 +21,8 @@ public final class Configuration implements Serializable {
 
     private static final long serialVersionUID = 7244185130997590376L;
 
+    public static final int DEFAULT_REPETITION_LIMIT = 3, DEFAULT_QUIET_TURN_LIMIT = 80, DEFAULT_TARGET_FRAME_RATE = 60;
+
     private Dimension windowResolution = new Dimension(800, 600);
 
     private ModelQuality modelQuality = ModelQuality.HIGH;
@@ -28,13 +31,52 @@ public final class Configuration implements Serializable {
 
     private int soundVolume = 25, musicVolume = 50;
 
+    /**
+     * Games are drawn once the same position is reached this many times, or
+     * this many turns pass without a capture or a man moving. Zero (as loaded
+     * from a configuration saved before these existed) means the default.
+     **/
+    private int repetitionLimit = DEFAULT_REPETITION_LIMIT, quietTurnLimit = DEFAULT_QUIET_TURN_LIMIT;
+
+    /**
+     * The frame rate the quality governor lowers the graphics to hold. Zero (as
+     * loaded from a configuration saved before it existed) means the default.
+     **/
+    private int targetFrameRate = DEFAULT_TARGET_FRAME_RATE;
+
     private boolean snapToBoard, overheadCamera, usesVSync = true,
-                    isFullscreen = true, useEffects = true, rotateQuickly;
+                    isFullscreen = true, useEffects = true, rotateQuickly, fixedQuality;
 
     public Configuration() {
         setResolution(null);
     }
 
+    /**
+     * @return a copy of this configuration, which later changes to this one do
+     * not affect.
+     **/
+    public Configuration copy() {
+        Configuration copy = new Configuration();
+
+        copy.windowResolution = new Dimension(windowResolution);
+        copy.modelQuality = modelQuality;
+        copy.shadowQuality = shadowQuality;
+        copy.antiAliasing = antiAliasing;
+        copy.soundVolume = soundVolume;
+        copy.musicVolume = musicVolume;
+        copy.repetitionLimit = repetitionLimit;
+        copy.quietTurnLimit = quietTurnLimit;
+        copy.targetFrameRate = targetFrameRate;
+        copy.snapToBoard = snapToBoard;
+        copy.overheadCamera = overheadCamera;
+        copy.usesVSync = usesVSync;
+        copy.isFullscreen = isFullscreen;
+        copy.useEffects = useEffects;
+        copy.rotateQuickly = rotateQuickly;
+        copy.fixedQuality = fixedQuality;
+        return copy;
+    }
+
     public void save(Client c) {
         try {
             FileOutputStream fileOut = new FileOutputStream("gamecfg.ser");
@@ -71,9 +113,26 @@ public final class Configuration implements Serializable {
         this.rotateQuickly = rotateQuickly;
     }
 
+    public void setDrawRules(int repetitionLimit, int quietTurnLimit) {
+        this.repetitionLimit = repetitionLimit;
+        this.quietTurnLimit = quietTurnLimit;
+    }
+
+    /**
+     * @param adaptsQuality - {@code true} if the graphics may be lowered below
+     * these settings to hold the target frame rate.
+     * @param targetFrameRate - the frame rate to hold.
+     **/
+    public void setQualityGovernor(boolean adaptsQuality, int targetFrameRate) {
+        this.fixedQuality = !adaptsQuality;
+        this.targetFrameRate = targetFrameRate;
+    }
+
     public void setResolution(Dimension windowResolution) {
         if (windowResolution == null) {
-            this.windowResolution = Toolkit.getDefaultToolkit().getScreenSize();
+            if (!GraphicsEnvironment.isHeadless()) { // No screen to size to on a headless machine - keep the default
+                this.windowResolution = Toolkit.getDefaultToolkit().getScreenSize();
+            }
             return;
         }
         this.windowResolution = windowResolution;
@@ -118,6 +177,10 @@ public final class Configuration implements Serializable {
         return rotateQuickly;
     }
 
+    public boolean adaptsQuality() {
+        return !fixedQuality;
+    }
+
     public float getMusicVolume() {
         return (float) musicVolume / 100;
     }
@@ -126,6 +189,18 @@ public final class Configuration implements Serializable {
         return (float) soundVolume / 100;
     }
 
+    public int getRepetitionLimit() {
+        return (repetitionLimit > 0 ? repetitionLimit : DEFAULT_REPETITION_LIMIT);
+    }
+
+    public int getQuietTurnLimit() {
+        return (quietTurnLimit > 0 ? quietTurnLimit : DEFAULT_QUIET_TURN_LIMIT);
+    }
+
+    public int getTargetFrameRate() {
+        return (targetFrameRate > 0 ? targetFrameRate : DEFAULT_TARGET_FRAME_RATE);
+    }
+
     public ModelQuality getModelQuality() {
         return modelQuality;
     }
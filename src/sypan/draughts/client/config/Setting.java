@@ -0,0 +1,100 @@
+package sypan.draughts.client.config;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * {@code Setting} lists every setting in the {@link Configuration}, along with
+ * the work needed to apply a change to it. When the settings are saved, only
+ * the settings that changed are applied, and only in the way they need - so
+ * changing the volume no longer restarts the graphics context.
+ *
+ * @author Carl Linley
+ **/
+public enum Setting {
+
+    RESOLUTION(Application.NEXT_LAUNCH, Configuration::getResolution),
+    FULLSCREEN(Application.CONTEXT_RESTART, Configuration::isFullscreen),
+    VSYNC(Application.CONTEXT_RESTART, Configuration::vSynced),
+    ANTI_ALIASING(Application.CONTEXT_RESTART, Configuration::getAntiAliasing),
+    SHADOW_QUALITY(Application.PROCESSOR_SWAP, Configuration::getShadowQuality),
+    MODEL_QUALITY(Application.LIVE, Configuration::getModelQuality),
+    EFFECTS(Application.LIVE, Configuration::useEffects),
+    QUALITY_GOVERNOR(Application.LIVE, c -> c.adaptsQuality() + "@" + c.getTargetFrameRate()),
+    SOUND_VOLUME(Application.LIVE, Configuration::getSound),
+    MUSIC_VOLUME(Application.LIVE, Configuration::getMusic),
+    SNAP_TO_BOARD(Application.LIVE, Configuration::movesSmoothly),
+    OVERHEAD_CAMERA(Application.LIVE, Configuration::overheadCamera),
+    ROTATE_QUICKLY(Application.LIVE, Configuration::rotateQuickly),
+    DRAW_RULES(Application.LIVE, c -> c.getRepetitionLimit() + "/" + c.getQuietTurnLimit());
+
+    /**
+     * The work needed to apply a change to a setting, cheapest first.
+     **/
+    public enum Application {
+
+        /**
+         * Applied as it is read, or with a simple update - instant.
+         **/
+        LIVE,
+
+        /**
+         * Applied by replacing a scene processor - a few frames at most.
+         **/
+        PROCESSOR_SWAP,
+
+        /**
+         * Applied by restarting the graphics context - a stall of a second
+         * or more.
+         **/
+        CONTEXT_RESTART,
+
+        /**
+         * Applied only when the client is next started.
+         **/
+        NEXT_LAUNCH
+    };
+
+    private final Application application;
+    private final Function<Configuration, Object> value;
+
+    private Setting(Application application, Function<Configuration, Object> value) {
+        this.application = application;
+        this.value = value;
+    }
+
+    /**
+     * @param before - the settings before the change.
+     * @param after - the settings after the change.
+     * @return every setting that differs between the two.
+     **/
+    public static EnumSet<Setting> changed(Configuration before, Configuration after) {
+        EnumSet<Setting> changed = EnumSet.noneOf(Setting.class);
+
+        for (Setting setting : values()) {
+            if (!Objects.equals(setting.value.apply(before), setting.value.apply(after))) {
+                changed.add(setting);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @param settings - a set of changed settings.
+     * @param application - the work to check for.
+     * @return true if any of the specified settings needs the specified work.
+     **/
+    public static boolean require(EnumSet<Setting> settings, Application application) {
+        for (Setting setting : settings) {
+            if (setting.application == application) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Application getApplication() {
+        return application;
+    }
+}
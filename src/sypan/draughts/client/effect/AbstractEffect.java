@@ -7,7 +7,9 @@ import sypan.draughts.client.gui.AbstractGUIState;
 import sypan.draughts.client.manager.EffectManager;
 
 import com.jme3.asset.AssetManager;
+import com.jme3.effect.ParticleEmitter;
 import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
 
 /**
  * Similarly to {@link AbstractGUIState}, this class was formerly an interface
@@ -27,9 +29,14 @@ import com.jme3.scene.Node;
 abstract class AbstractEffect extends Node implements Effect {
 
     private boolean effectComplete;
-    private float currentTime;
+    private float currentTime, particleScale = 1;
     private Client client;
 
+    /**
+     * The number of particles each of the effect's emitters was built with.
+     **/
+    private int[] fullParticleCounts;
+
     /**
      * This method should be used to update the effect. It is called by {link
      * EffectManager}'s update loop every frame.
@@ -60,6 +67,15 @@ abstract class AbstractEffect extends Node implements Effect {
         effectComplete = true;
     }
 
+    /**
+     * Clears the effect's time and completion, so that a pooled effect may be
+     * played again.
+     **/
+    protected void restart() {
+        effectComplete = false;
+        currentTime = 0;
+    }
+
     /**
      * Increments the floating point storing the time since this effect's
      * beginning by the specified value.<p>
@@ -73,6 +89,33 @@ abstract class AbstractEffect extends Node implements Effect {
         currentTime += timePerFrame;
     }
 
+    /**
+     * Scales the number of particles of every emitter in this effect, relative
+     * to the number each was built with. This reallocates the emitters, so is
+     * only done when the scale changes.
+     *
+     * @param newScale - the scale, from 0 to 1.
+     **/
+    void setParticleScale(float newScale) {
+        if (newScale == particleScale) {
+            return;
+        }
+        if (fullParticleCounts == null) {
+            fullParticleCounts = new int[getQuantity()];
+
+            for (int i = 0; i != getQuantity(); i++) {
+                Spatial child = getChild(i);
+                fullParticleCounts[i] = (child instanceof ParticleEmitter ? ((ParticleEmitter) child).getMaxNumParticles() : 0);
+            }
+        }
+        for (int i = 0; i != fullParticleCounts.length; i++) {
+            if (fullParticleCounts[i] != 0) {
+                ((ParticleEmitter) getChild(i)).setNumParticles(Math.max(1, Math.round(fullParticleCounts[i] * newScale)));
+            }
+        }
+        particleScale = newScale;
+    }
+
     @Override
     public void attachToScene(Node rootNode) {
         client.enqueue(() -> {
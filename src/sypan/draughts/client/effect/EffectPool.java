@@ -0,0 +1,114 @@
+package sypan.draughts.client.effect;
+
+import java.util.ArrayDeque;
+
+import sypan.draughts.client.Client;
+import sypan.draughts.game.piece.Piece;
+import sypan.draughts.game.player.Side;
+
+/**
+ * {@code EffectPool} builds every explosion and promotion effect the game
+ * needs when the client starts, and hands them out again and again. Building
+ * an explosion means seven particle emitters, their materials and a light -
+ * doing that for every capture made the frame hitch, most of all on a
+ * multi-jump.<p>
+ *
+ * The pool also caps the number of effects playing at once: once every effect
+ * of a type is playing, no more are handed out until one completes.<p>
+ *
+ * The number of particles in the effects may be scaled down by the
+ * {@code QualityGovernor} - an effect is rebuilt to the current scale as it is
+ * handed out.<p>
+ *
+ * Effects are handed out by the {@code EffectManager}, which returns them to
+ * the pool once they are complete.
+ *
+ * @author Carl Linley
+ **/
+public class EffectPool {
+
+    public final static int MAX_EXPLOSIONS = 8, MAX_PROMOTIONS = 2;
+
+    private final ArrayDeque<ExplosionEffect> freeExplosions;
+    private final ArrayDeque<PromotionEffect> freePromotions;
+
+    private float particleScale = 1;
+
+    /**
+     * Builds every pooled effect, and uploads their shaders and textures so the
+     * first effect played does not have to.
+     *
+     * @param c - the current instance of {@link Client}.
+     **/
+    public EffectPool(Client c) {
+        freeExplosions = new ArrayDeque<>(MAX_EXPLOSIONS);
+        freePromotions = new ArrayDeque<>(MAX_PROMOTIONS);
+
+        for (int i = 0; i != MAX_EXPLOSIONS; i++) {
+            ExplosionEffect explosion = new ExplosionEffect(c);
+
+            c.getRenderManager().preloadScene(explosion);
+            freeExplosions.add(explosion);
+        }
+        for (int i = 0; i != MAX_PROMOTIONS; i++) {
+            PromotionEffect promotion = new PromotionEffect(c);
+
+            c.getRenderManager().preloadScene(promotion);
+            freePromotions.add(promotion);
+        }
+    }
+
+    /**
+     * @param largeExplosion - {@code true} for the larger explosion of a king.
+     * @param pieceSide - the side of the piece exploding.
+     * @return an explosion ready to be played, or {@code null} if every
+     * explosion is already playing.
+     **/
+    public synchronized Effect obtainExplosion(boolean largeExplosion, Side pieceSide) {
+        ExplosionEffect explosion = freeExplosions.poll();
+
+        if (explosion != null) {
+            explosion.setParticleScale(particleScale);
+            explosion.prepare(largeExplosion, pieceSide);
+        }
+        return explosion;
+    }
+
+    /**
+     * @param toPromote - the piece being promoted.
+     * @return a promotion effect ready to be played, or {@code null} if every
+     * promotion effect is already playing.
+     **/
+    public synchronized Effect obtainPromotion(Piece toPromote) {
+        PromotionEffect promotion = freePromotions.poll();
+
+        if (promotion != null) {
+            promotion.setParticleScale(particleScale);
+            promotion.prepare(toPromote);
+        }
+        return promotion;
+    }
+
+    /**
+     * @param particleScale - the scale of the number of particles in effects
+     * handed out from now on, from 0 to 1.
+     **/
+    public synchronized void setParticleScale(float particleScale) {
+        this.particleScale = particleScale;
+    }
+
+    /**
+     * Returns a completed effect to the pool. Effects not from the pool are
+     * ignored.
+     *
+     * @param effect - the completed effect.
+     **/
+    public synchronized void release(Effect effect) {
+        if (effect instanceof ExplosionEffect) {
+            freeExplosions.add((ExplosionEffect) effect);
+        }
+        else if (effect instanceof PromotionEffect) {
+            freePromotions.add((PromotionEffect) effect);
+        }
+    }
+}
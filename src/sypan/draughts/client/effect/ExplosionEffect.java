@@ -19,6 +19,9 @@ import com.jme3.math.Vector3f;
  * It is based on a class named {@code TestExplosionEffect}, which can be found
  * in JMonkeyEngine's Google code repository (URL in the <b>See Also</b> section).<p>
  *
+ * Explosions are pooled by the {@link EffectPool} rather than created for each
+ * capture.<p>
+ *
  * @see
  * <a href="https://jmonkeyengine.googlecode.com/svn/trunk/engine/src/test/jme3test/effect/TestExplosionEffect.java">
  * https://jmonkeyengine.googlecode.com/svn/trunk/engine/src/test/jme3test/effect/TestExplosionEffect.java</a>
@@ -32,19 +35,24 @@ public class ExplosionEffect extends AbstractEffect {
         PRIMARY_EMISSION, SECONDARY_EMISSION, DECOMPOSITION, COMPLETE
     };
 
-    private final ColorRGBA debrisColour;
-
     private ExplosionStage currentStage = ExplosionStage.PRIMARY_EMISSION;
 
     private ParticleEmitter debrisEmitter, flameEmitter, flashEmitter, roundSparkEmitter,
                             shockwaveEmitter, smokeTrailEmitter, sparkEmitter;
 
-    private PointLight explosionLight;
+    private final PointLight explosionLight;
     private float lightRadius;
+    private boolean largeExplosion, lightAttached;
 
-    public ExplosionEffect(Client c, boolean largeExplosion, Side pieceSide) {
+    /**
+     * Builds the explosion's emitters and light. The explosion is played with
+     * {@link #prepare}, and may be played again once it is complete - see
+     * {@link EffectPool}.
+     *
+     * @param c - the current instance of {@link Client}.
+     **/
+    ExplosionEffect(Client c) {
         setClient(c);
-        debrisColour = (pieceSide == Side.BLACK ? ColorRGBA.DarkGray : ColorRGBA.LightGray);
 
         createFlame();
         createFlash();
@@ -54,14 +62,33 @@ public class ExplosionEffect extends AbstractEffect {
         createDebris();
         createShockwave();
 
-        setLocalScale(largeExplosion ? 1f : 0.25f);
-
         explosionLight = new PointLight();
-        explosionLight.setRadius((lightRadius = (largeExplosion ? 50f : 25f)));
         explosionLight.setColor(ColorRGBA.Orange);
-        c.getRootNode().addLight(explosionLight);
+    }
+
+    /**
+     * Readies the explosion to be played.
+     *
+     * @param largeExplosion - {@code true} for the larger explosion of a king.
+     * @param pieceSide - the side of the piece exploding, which colours the
+     * debris.
+     **/
+    void prepare(boolean largeExplosion, Side pieceSide) {
+        restart();
+
+        this.largeExplosion = largeExplosion;
+        currentStage = ExplosionStage.PRIMARY_EMISSION;
 
-        getClient().getSoundManager().playSound((largeExplosion ? SoundType.KING_EXPLOSION : SoundType.MAN_EXPLOSION), getLocalTranslation());
+        ColorRGBA debrisColour = (pieceSide == Side.BLACK ? ColorRGBA.DarkGray : ColorRGBA.LightGray);
+
+        debrisEmitter.setStartColor(debrisColour);
+        debrisEmitter.setEndColor(debrisColour.mult(new ColorRGBA(1, 1, 1, 0)));
+
+        setLocalScale(largeExplosion ? 1f : 0.25f);
+
+        explosionLight.setRadius((lightRadius = (largeExplosion ? 50f : 25f)));
+        getClient().getRootNode().addLight(explosionLight);
+        lightAttached = true;
     }
 
     @Override
@@ -76,6 +103,7 @@ public class ExplosionEffect extends AbstractEffect {
                 debrisEmitter.emitAllParticles();
                 shockwaveEmitter.emitAllParticles();
 
+                getClient().getSoundManager().playSound((largeExplosion ? SoundType.KING_EXPLOSION : SoundType.MAN_EXPLOSION), getLocalTranslation());
                 currentStage = ExplosionStage.SECONDARY_EMISSION;
             break;
 
@@ -106,17 +134,22 @@ public class ExplosionEffect extends AbstractEffect {
     }
 
     private void updateLight() {
-        if (explosionLight == null) {
+        if (!lightAttached) {
             return;
         }
 
         if (lightRadius != -1 && (lightRadius -= getTime()) > 0) {
-            if (explosionLight != null) {// Null check required, sometimes explosionLight is prematurely null.
-                explosionLight.setRadius(lightRadius);
-            }
-        } else {
+            explosionLight.setRadius(lightRadius);
+        }
+        else {
+            removeLight();
+        }
+    }
+
+    private void removeLight() {
+        if (lightAttached) {
             getClient().getRootNode().removeLight(explosionLight);
-            explosionLight = null;
+            lightAttached = false;
         }
     }
 
@@ -129,6 +162,7 @@ public class ExplosionEffect extends AbstractEffect {
         flameEmitter.killAllParticles();
         roundSparkEmitter.killAllParticles();
         shockwaveEmitter.killAllParticles();
+        removeLight();
     }
 
     /**
@@ -286,8 +320,6 @@ public class ExplosionEffect extends AbstractEffect {
         debrisEmitter.setSelectRandomImage(true);
         debrisEmitter.setRandomAngle(true);
         debrisEmitter.setRotateSpeed(FastMath.TWO_PI * 4);
-        debrisEmitter.setStartColor(debrisColour);
-        debrisEmitter.setEndColor(debrisColour.mult(new ColorRGBA(1, 1, 1, 0)));
         debrisEmitter.setStartSize(.2f);
         debrisEmitter.setEndSize(.2f);
         debrisEmitter.setParticlesPerSec(0);
@@ -11,7 +11,8 @@ import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector3f;
 
 /**
- * Plays when a man is promoted to a king.
+ * Plays when a man is promoted to a king. Promotions are pooled by the
+ * {@link EffectPool} rather than created for each promotion.
  *
  * @author Carl Linley
  **/
@@ -21,41 +22,59 @@ public class PromotionEffect extends AbstractEffect {
         INITIALISATION, REGENERATION, DESTRUCTION
     };
 
-    private final ColorRGBA coreColour, startColour, endColour;
     private final PointLight effectLight;
-    private final Piece toPromote;
 
+    private Piece toPromote;
     private ParticleEmitter ringEmitter;
     
     private EffectStage currentStage;
     private float lightRadius;
 
-    public PromotionEffect(Client c, Piece toPromote) {
+    /**
+     * Builds the effect's emitter and light. The effect is played with
+     * {@link #prepare}, and may be played again once it is complete - see
+     * {@link EffectPool}.
+     *
+     * @param c - the current instance of {@link Client}.
+     **/
+    PromotionEffect(Client c) {
         setClient(c);
+
+        effectLight = new PointLight();
+        initRingEmitter();
+    }
+
+    /**
+     * Readies the effect to be played, in a new random colour.
+     *
+     * @param toPromote - the piece being promoted.
+     **/
+    void prepare(Piece toPromote) {
+        restart();
+
         this.toPromote = toPromote;
         currentStage = EffectStage.INITIALISATION;
+        lightRadius = 0;
 
-        coreColour = ColorRGBA.randomColor();
-        startColour = coreColour.mult(new ColorRGBA(1f, 1f, 1f, 0.1f));
-        endColour = coreColour.mult(new ColorRGBA(1f, 1f, 1f, 0f));
+        ColorRGBA coreColour = ColorRGBA.randomColor();
 
-        effectLight = new PointLight();
-        effectLight.setColor(coreColour);
-        c.getRootNode().addLight(effectLight);
+        ringEmitter.setStartColor(coreColour.mult(new ColorRGBA(1f, 1f, 1f, 0.1f)));
+        ringEmitter.setEndColor(coreColour.mult(new ColorRGBA(1f, 1f, 1f, 0f)));
+        ringEmitter.setParticlesPerSec(500);
 
-        initRingEmitter();
+        effectLight.setColor(coreColour);
+        effectLight.setRadius(0.1f);
+        getClient().getRootNode().addLight(effectLight);
     }
 
     private void initRingEmitter() {
         ringEmitter = new ParticleEmitter("RING_EMITTER", Type.Triangle, 500);
         ringEmitter.setFaceNormal(Vector3f.UNIT_Y);
-        ringEmitter.setStartColor(startColour);
-        ringEmitter.setEndColor(endColour);
 
         ringEmitter.setStartSize(1.25f);
         ringEmitter.setEndSize(1.25f);
 
-        ringEmitter.setParticlesPerSec(500);
+        ringEmitter.setParticlesPerSec(0);
         ringEmitter.getParticleInfluencer().setVelocityVariation(0.1f);
         ringEmitter.setGravity(0, 0, 0);
 
@@ -113,6 +132,7 @@ public class PromotionEffect extends AbstractEffect {
 
             case DESTRUCTION:
                 if (getTime() > 175f) {
+                    destroy();
                     markComplete();
                 }
             break;
@@ -122,6 +142,7 @@ public class PromotionEffect extends AbstractEffect {
     @Override
     public void destroy() {
         ringEmitter.killAllParticles();
+        getClient().getRootNode().removeLight(effectLight);
     }
 
     /**
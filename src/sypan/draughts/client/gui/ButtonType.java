@@ -37,8 +37,8 @@ public enum ButtonType {
     LOAD_GAME_LOAD, LOAD_GAME_DELETE,
     /* NewGameSubstate */
     NEW_GAME_START,
-    NEW_GAME_HUMAN_1, NEW_GAME_APATHY_1, NEW_GAME_GREEDY_1, NEW_GAME_HUNGRY_1, NEW_GAME_MINMAX_1,
-    NEW_GAME_HUMAN_2, NEW_GAME_APATHY_2, NEW_GAME_GREEDY_2, NEW_GAME_HUNGRY_2, NEW_GAME_MINMAX_2;
+    NEW_GAME_HUMAN_1, NEW_GAME_APATHY_1, NEW_GAME_GREEDY_1, NEW_GAME_HUNGRY_1, NEW_GAME_MINMAX_1, NEW_GAME_MCTS_1,
+    NEW_GAME_HUMAN_2, NEW_GAME_APATHY_2, NEW_GAME_GREEDY_2, NEW_GAME_HUNGRY_2, NEW_GAME_MINMAX_2, NEW_GAME_MCTS_2;
 
     /**
      * @param ordinal - the index to retrieve.
@@ -136,11 +136,13 @@ public class GUIButton extends Button {
             case NEW_GAME_GREEDY_1:
             case NEW_GAME_HUNGRY_1:
             case NEW_GAME_MINMAX_1:
+            case NEW_GAME_MCTS_1:
             case NEW_GAME_HUMAN_2:
             case NEW_GAME_APATHY_2:
             case NEW_GAME_GREEDY_2:
             case NEW_GAME_HUNGRY_2:
             case NEW_GAME_MINMAX_2:
+            case NEW_GAME_MCTS_2:
                 return "NEW_GAME_PLAYER_UNSELECTED";
 
             case SETTINGS_SAVE:
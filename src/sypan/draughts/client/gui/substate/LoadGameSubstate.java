@@ -1,8 +1,6 @@
 package sypan.draughts.client.gui.substate;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -11,6 +9,9 @@ import sypan.draughts.client.gui.*;
 import sypan.draughts.client.gui.element.GUIButton;
 import sypan.draughts.client.gui.element.ShadowLabel;
 import sypan.draughts.game.GameReplay;
+import sypan.draughts.game.archive.ArchiveEntry;
+import sypan.draughts.game.archive.GameArchive;
+import sypan.draughts.game.archive.GameQuery;
 import tonegod.gui.controls.buttons.ButtonAdapter;
 import tonegod.gui.controls.scrolling.ScrollAreaAdapter;
 import tonegod.gui.controls.scrolling.VScrollBar;
@@ -20,7 +21,6 @@ import com.jme3.input.event.MouseMotionEvent;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector2f;
 import com.jme3.math.Vector4f;
-import sypan.utility.Logger;
 
 public class LoadGameSubstate extends AbstractGUIState {
 
@@ -73,6 +73,11 @@ public class LoadGameSubstate extends AbstractGUIState {
         }
         else {
             if (new File(gameSelected).delete()) {
+                GameArchive archive = GameArchive.getActive();
+
+                archive.remove(gameSelected);
+                archive.save();
+
                 gameSelected = null;
                 lockButtons();
 
@@ -104,33 +109,18 @@ public class LoadGameSubstate extends AbstractGUIState {
     }
 
     /**
-     * Based on example code written by 'rich', found at
-     * <a href="http://stackoverflow.com/questions/1844688/read-all-files-in-a-folder">http://stackoverflow.com/questions/1844688/read-all-files-in-a-folder</a>
-     * <p>
-     * First time using a lambda expression, oooh.
-     *
-     * @author Carl Linley
-     * @author rich
-	 *
-     */
+     * Lists every saved game in the {@code GameArchive}, newest first.
+     **/
     private void loadHistory() {
         gameHistory = new ArrayList<ButtonAdapter>();
 
-        if (new File("history").exists()) {
-
-            try {
-                Files.walk(Paths.get("history")).forEach(filePath -> {
-                    if (filePath.toString().endsWith(".csv")) {
-                        createButtonFor(filePath);
-                    }
-                });
-            }
-            catch (IOException e) {
-                Logger.logSevere("Threw exception whilst parsing previous games: " + e + " - " + e.getMessage());
+        if (new File(GameArchive.DIRECTORY).exists()) {
+            for (ArchiveEntry entry : GameArchive.getActive().query(new GameQuery())) {
+                createButtonFor(Paths.get(entry.getFilePath()));
             }
         }
         else {
-            new File("history").mkdir();
+            new File(GameArchive.DIRECTORY).mkdir();
         }
 
         if (gameHistory.isEmpty()) {
@@ -20,7 +20,7 @@ public class NewGameSubstate extends AbstractGUIState {
 
     public NewGameSubstate(GUI gui) {
         super(gui, StateType.SUBSTATE_NEW_GAME, clampCentre(gui, WINDOW_DIMENSIONS), WINDOW_DIMENSIONS, "gui/interface/NEW_GAME_BACKING.png");
-        interfaceButton = new GUIButton[11];
+        interfaceButton = new GUIButton[13];
     }
 
     @Override
@@ -30,9 +30,9 @@ public class NewGameSubstate extends AbstractGUIState {
         createColumn(1);
         createColumn(2);
         setSelected(1);
-        setSelected(6);
+        setSelected(7);
         interfaceButton[1].onLoseFocus(new MouseMotionEvent(0, 0, 1, 1, 0, 0));
-        interfaceButton[6].onLoseFocus(new MouseMotionEvent(0, 0, 1, 1, 0, 0));
+        interfaceButton[7].onLoseFocus(new MouseMotionEvent(0, 0, 1, 1, 0, 0));
 
         for (GUIButton b : interfaceButton) {
             addChild(b);
@@ -40,14 +40,15 @@ public class NewGameSubstate extends AbstractGUIState {
     }
 
     private void createColumn(int playerID) {
-        int arrayIndex = (playerID == 2 ? 6 : 1),
+        int arrayIndex = (playerID == 2 ? 7 : 1),
             positionX = (playerID == 1 ? 30 : 155);
 
         interfaceButton[arrayIndex++] = new GUIButton(getGUI(), ButtonType.valueOf("NEW_GAME_HUMAN_" + playerID), new Vector2f(positionX, 66), "PLAYER_HUMAN");
-        interfaceButton[arrayIndex++] = new GUIButton(getGUI(), ButtonType.valueOf("NEW_GAME_APATHY_" + playerID), new Vector2f(positionX, 101), "PLAYER_APATHY");
-        interfaceButton[arrayIndex++] = new GUIButton(getGUI(), ButtonType.valueOf("NEW_GAME_GREEDY_" + playerID), new Vector2f(positionX, 125), "PLAYER_GREEDY");
-        interfaceButton[arrayIndex++] = new GUIButton(getGUI(), ButtonType.valueOf("NEW_GAME_HUNGRY_" + playerID), new Vector2f(positionX, 149), "PLAYER_HUNGRY");
-        interfaceButton[arrayIndex] = new GUIButton(getGUI(), ButtonType.valueOf("NEW_GAME_MINMAX_" + playerID), new Vector2f(positionX, 173), "PLAYER_MIN_MAX");
+        interfaceButton[arrayIndex++] = new GUIButton(getGUI(), ButtonType.valueOf("NEW_GAME_APATHY_" + playerID), new Vector2f(positionX, 94), "PLAYER_APATHY");
+        interfaceButton[arrayIndex++] = new GUIButton(getGUI(), ButtonType.valueOf("NEW_GAME_GREEDY_" + playerID), new Vector2f(positionX, 117), "PLAYER_GREEDY");
+        interfaceButton[arrayIndex++] = new GUIButton(getGUI(), ButtonType.valueOf("NEW_GAME_HUNGRY_" + playerID), new Vector2f(positionX, 140), "PLAYER_HUNGRY");
+        interfaceButton[arrayIndex++] = new GUIButton(getGUI(), ButtonType.valueOf("NEW_GAME_MINMAX_" + playerID), new Vector2f(positionX, 163), "PLAYER_MIN_MAX");
+        interfaceButton[arrayIndex] = new GUIButton(getGUI(), ButtonType.valueOf("NEW_GAME_MCTS_" + playerID), new Vector2f(positionX, 186), "PLAYER_MCTS");
     }
 
     private void setSelected(int buttonIndex) {
@@ -74,7 +75,7 @@ public class NewGameSubstate extends AbstractGUIState {
             String asString = buttonType.toString();
             int playerID = Integer.parseInt(asString.substring(asString.length() - 1, asString.length()));
 
-            switchButton(playerID == 1 ? playerOne : playerTwo, buttonType, playerID == 1 ? 1 : 6);
+            switchButton(playerID == 1 ? playerOne : playerTwo, buttonType, playerID == 1 ? 1 : 7);
             setSelection(playerID, PlayerType.valueOf(asString.split("_")[2]));
         }
     }
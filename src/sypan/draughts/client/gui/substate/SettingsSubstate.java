@@ -4,11 +4,13 @@ import sypan.draughts.client.config.*;
 import sypan.draughts.client.gui.*;
 import sypan.draughts.client.gui.element.GUIButton;
 import sypan.draughts.client.gui.element.ResolutionList;
+import sypan.draughts.client.gui.element.ShadowLabel;
 import tonegod.gui.controls.buttons.CheckBox;
 import tonegod.gui.controls.lists.Slider;
 import tonegod.gui.effects.Effect.EffectEvent;
 
 import com.jme3.input.event.MouseMotionEvent;
+import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector2f;
 
 /**
@@ -21,7 +23,7 @@ public class SettingsSubstate extends AbstractGUIState {
 
     private final GUIButton[] interfaceButton;
 
-    private CheckBox snapToBoard, overheadCamera, vSync, fullScreen, useEffects, rotateQuickly;
+    private CheckBox snapToBoard, overheadCamera, vSync, fullScreen, useEffects, rotateQuickly, adaptQuality;
     private Slider soundSlider, musicSlider;
     private ResolutionList resolutionList;
 
@@ -48,6 +50,9 @@ public class SettingsSubstate extends AbstractGUIState {
         snapToBoard = createCheckbox(4, new Vector2f(393, 311));
         rotateQuickly = createCheckbox(5, new Vector2f(393, 330));
 
+        addChild(new ShadowLabel(screen, "ADAPT_QUALITY_LABEL", new Vector2f(24, 346), "Lower graphics to hold frame rate", ColorRGBA.White, 14));
+        adaptQuality = createCheckbox(6, new Vector2f(393, 349));
+
         interfaceButton[0] = new GUIButton(getGUI(), ButtonType.SETTINGS_MODEL_HIGH, new Vector2f(160, 62), "SETTING_HIGH");
         interfaceButton[1] = new GUIButton(getGUI(), ButtonType.SETTINGS_MODEL_MED, new Vector2f(220, 62), "SETTING_MED");
         interfaceButton[2] = new GUIButton(getGUI(), ButtonType.SETTINGS_MODEL_LOW, new Vector2f(280, 62), "SETTING_LOW");
@@ -140,6 +145,7 @@ public class SettingsSubstate extends AbstractGUIState {
         useEffects.setIsChecked(config.useEffects());
         snapToBoard.setIsChecked(!config.movesSmoothly());
         rotateQuickly.setIsChecked(config.rotateQuickly());
+        adaptQuality.setIsChecked(config.adaptsQuality());
     }
 
     @Override
@@ -213,6 +219,7 @@ public class SettingsSubstate extends AbstractGUIState {
         getClient().getConfig().setGameplay(snapToBoard.getIsChecked(), overheadCamera.getIsChecked(),
                                             vSync.getIsChecked(), fullScreen.getIsChecked(),
                                             useEffects.getIsChecked(), rotateQuickly.getIsChecked());
+        getClient().getConfig().setQualityGovernor(adaptQuality.getIsChecked(), getClient().getConfig().getTargetFrameRate());
         getClient().getConfig().setResolution(resolutionList.getResolution());
 
         getClient().refreshConfig();
@@ -0,0 +1,170 @@
+package sypan.draughts.client.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sypan.draughts.client.Client;
+import sypan.draughts.client.manager.ModelManager.ModelType;
+import sypan.draughts.client.manager.SoundManager.SoundType;
+import sypan.utility.Logger;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.audio.AudioKey;
+
+/**
+ * {@code AssetPreloader} loads the game's assets when the client starts, on
+ * several worker threads at once, while the splash screen is shown. The
+ * classes that use the assets load them as they always have - by then, the
+ * asset manager has them cached, so nothing is read from disk on the render
+ * thread.<p>
+ *
+ * Assets are loaded in two stages, which load side by side. Once the
+ * {@code SCENE} stage's assets (models and textures) have loaded, its callback
+ * is run on the render thread, so the board can be built while the sounds and
+ * interface images are still loading. Once every asset has loaded, the second
+ * callback is run. An asset that fails to load counts as loaded - whatever
+ * uses it reports the failure when it loads it itself.<p>
+ *
+ * The preloader holds on to everything it loads until it is {@link #release}d,
+ * so nothing is dropped from the asset manager's cache in the meantime.
+ *
+ * @author Carl Linley
+ **/
+public class AssetPreloader {
+
+    private final static int MAX_THREADS = 4;
+
+    /**
+     * Interface images the first screens use - the rest load as they are
+     * needed.
+     **/
+    private final static String[] INTERFACE_IMAGES = {"gui/menu/LOGO.png",
+        "gui/buttons/MENU_OPTION.png", "gui/buttons/MENU_OPTION_HOVER.png", "gui/buttons/MENU_OPTION_PRESSED.png",
+        "gui/buttons/MENU_NEW_GAME.png", "gui/buttons/MENU_LOAD_GAME.png", "gui/buttons/MENU_SETTINGS.png",
+        "gui/buttons/MENU_CREDITS.png", "gui/buttons/MENU_QUIT.png",
+        "gui/buttons/GAME_BUTTON.png", "gui/buttons/GAME_BUTTON_HOVER.png", "gui/buttons/GAME_BUTTON_PRESSED.png",
+        "gui/buttons/GAME_FORFEIT.png", "gui/buttons/GAME_OFFER_DRAW.png", "gui/buttons/GAME_SETTINGS.png"};
+
+    private final static String[] SCENE_TEXTURES = {"textures/BOARD.png", "textures/TABLE.png",
+        "textures/effect/DEBRIS.png", "textures/effect/FLAME.png", "textures/effect/FLASH.png", "textures/effect/ROUND_SPARK.png",
+        "textures/effect/SHOCKWAVE.png", "textures/effect/SMOKE_TRAIL.png", "textures/effect/SPARK.png"};
+
+    private final static String[] FONTS = {"gui/FONT.fnt", "gui/FONT1.fnt"};
+
+    private final Client client;
+    private final AssetManager assetManager;
+    private final ExecutorService loader;
+    private final List<Object> loadedAssets;
+
+    private final AtomicInteger sceneRemaining, totalRemaining;
+    private final int totalAssets;
+
+    private final Runnable onSceneLoaded, onAllLoaded;
+
+    /**
+     * Starts loading every asset.
+     *
+     * @param c - the current instance of {@link Client}.
+     * @param onSceneLoaded - run on the render thread once the models and
+     * textures have loaded.
+     * @param onAllLoaded - run on the render thread once every asset has
+     * loaded, after {@code onSceneLoaded}.
+     **/
+    public AssetPreloader(Client c, Runnable onSceneLoaded, Runnable onAllLoaded) {
+        this.client = c;
+        this.assetManager = c.getAssetManager();
+        this.onSceneLoaded = onSceneLoaded;
+        this.onAllLoaded = onAllLoaded;
+
+        loadedAssets = Collections.synchronizedList(new ArrayList<>());
+
+        int threadCount = Math.max(1, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors() - 1));
+
+        loader = Executors.newFixedThreadPool(threadCount, task -> {
+            Thread thread = new Thread(task, "Asset Preloader");
+
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        String modelQuality = c.getQualityGovernor().getModelQuality().toString();
+        int sceneAssets = ModelType.values().length + SCENE_TEXTURES.length;
+
+        totalAssets = sceneAssets + SoundType.values().length + 2 + INTERFACE_IMAGES.length + FONTS.length;
+        sceneRemaining = new AtomicInteger(sceneAssets);
+        totalRemaining = new AtomicInteger(totalAssets);
+
+        Logger.logInfo("Preloading " + totalAssets + " assets on " + threadCount + " threads.");
+
+        for (ModelType modelType : ModelType.values()) {
+            load(true, () -> assetManager.loadModel("models/" + modelQuality + "/" + modelType + ".j3o"));
+        }
+        for (String texture : SCENE_TEXTURES) {
+            load(true, () -> assetManager.loadTexture(texture));
+        }
+        for (SoundType soundType : SoundType.values()) {
+            load(false, () -> assetManager.loadAudio(new AudioKey("sounds/" + soundType + ".wav", false, true)));
+        }
+        load(false, () -> assetManager.loadAudio(new AudioKey("sounds/gui/HOVER.wav", false, true)));
+        load(false, () -> assetManager.loadAudio(new AudioKey("sounds/gui/PRESS.wav", false, true)));
+
+        for (String image : INTERFACE_IMAGES) {
+            load(false, () -> assetManager.loadTexture(image));
+        }
+        for (String font : FONTS) {
+            load(false, () -> assetManager.loadFont(font));
+        }
+        loader.shutdown();
+    }
+
+    private void load(boolean sceneAsset, Callable<Object> asset) {
+        loader.execute(() -> {
+            try {
+                loadedAssets.add(asset.call());
+            }
+            catch (Exception e) {
+                Logger.logWarning("Failed to preload asset: " + e + " - " + e.getMessage());
+            }
+
+            // The scene callback is always enqueued before the final one
+            if (sceneAsset && sceneRemaining.decrementAndGet() == 0) {
+                enqueue(onSceneLoaded);
+            }
+            if (totalRemaining.decrementAndGet() == 0) {
+                Logger.logInfo("Preloaded " + totalAssets + " assets.");
+                enqueue(onAllLoaded);
+            }
+        });
+    }
+
+    private void enqueue(Runnable callback) {
+        client.enqueue(() -> {
+            callback.run();
+            return null;
+        });
+    }
+
+    /**
+     * Lets the asset manager's cache drop the preloaded assets once nothing
+     * else uses them. Called once the classes using them have been created.
+     **/
+    public void release() {
+        loadedAssets.clear();
+    }
+
+    /**
+     * @return the share of assets loaded so far, from 0 to 1.
+     **/
+    public float getProgress() {
+        return 1f - (float) totalRemaining.get() / totalAssets;
+    }
+
+    public boolean isComplete() {
+        return totalRemaining.get() == 0;
+    }
+}
@@ -5,13 +5,19 @@ import java.util.ConcurrentModificationException;
 
 import sypan.draughts.client.Client;
 import sypan.draughts.client.effect.Effect;
+import sypan.draughts.client.effect.EffectPool;
+import sypan.draughts.game.piece.Piece;
+import sypan.draughts.game.player.Side;
 
 import com.jme3.math.Vector3f;
 
 /**
  * {@code EffectManager} manages all effects in the game. I used to do this in
  * {@link Client}, but once I hit three different effects, I decided a separate
- * class would make for much neater code.
+ * class would make for much neater code.<p>
+ *
+ * Explosions and promotions are taken from an {@link EffectPool} and returned
+ * to it once complete, rather than built for each capture or promotion.
  *
  * @author Carl Linley
  **/
@@ -20,10 +26,49 @@ public class EffectManager {
     private final Client client;
 
     private final ArrayList<Effect> activeEffects;
+    private final EffectPool effectPool;
 
     public EffectManager(Client c) {
         this.client = c;
         activeEffects = new ArrayList<>();
+        effectPool = new EffectPool(c);
+    }
+
+    /**
+     * Plays an explosion from the pool.
+     *
+     * @param largeExplosion - {@code true} for the larger explosion of a king.
+     * @param pieceSide - the side of the piece exploding.
+     * @param effectLocation - the position where the explosion will take place.
+     * @return false if too many explosions are already playing.
+     **/
+    public boolean createExplosion(boolean largeExplosion, Side pieceSide, Vector3f effectLocation) {
+        Effect explosion = effectPool.obtainExplosion(largeExplosion, pieceSide);
+
+        if (explosion == null) {
+            return false;
+        }
+        createEffect(explosion, effectLocation);
+        return true;
+    }
+
+    /**
+     * Plays a promotion effect from the pool. The effect applies the promotion
+     * itself, part-way through.
+     *
+     * @param toPromote - the piece being promoted.
+     * @param effectLocation - the position where the effect will take place.
+     * @return false if too many promotion effects are already playing, in
+     * which case the promotion must be applied by the caller.
+     **/
+    public boolean createPromotion(Piece toPromote, Vector3f effectLocation) {
+        Effect promotion = effectPool.obtainPromotion(toPromote);
+
+        if (promotion == null) {
+            return false;
+        }
+        createEffect(promotion, effectLocation);
+        return true;
     }
 
     /**
@@ -40,6 +85,14 @@ public class EffectManager {
         effect.attachToScene(client.getRootNode());
     }
 
+    /**
+     * @param particleScale - the scale of the number of particles in effects
+     * created from now on, from 0 to 1.
+     **/
+    public void setParticleScale(float particleScale) {
+        effectPool.setParticleScale(particleScale);
+    }
+
     /**
      * Updates every effect currently in the scene - this is done using a
      * conventional
@@ -63,6 +116,7 @@ public class EffectManager {
                 if (e.isComplete()) {
                     e.detachFromScene(client.getRootNode());
                     activeEffects.remove(e);
+                    effectPool.release(e);
                 }
             }
         }
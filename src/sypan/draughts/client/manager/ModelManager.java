@@ -1,6 +1,8 @@
 package sypan.draughts.client.manager;
 
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import sypan.draughts.client.Client;
 import sypan.draughts.client.config.ModelQuality;
@@ -13,9 +15,20 @@ import com.jme3.scene.Spatial;
 /**
  * {@code ModelManager} manages the game's models. It does not just store them -
  * if the player changes the model quality value in Settings, it reloads the
- * models using the new quality and updates every existing model.<p>
+ * models using the new quality and updates every existing model. The quality
+ * used is the one chosen by the {@code QualityGovernor}, which may be lower than
+ * the configured one.<p>
  *
- * Models are stored in a {@code HashMap} for convenient storage and retrieval.
+ * Each quality's models (a <i>tier</i>) are loaded on the client's executor, so
+ * changing the quality never freezes the game - the old models stay in use until
+ * the new tier has loaded, and every piece is then switched over in a single
+ * frame. Up to {@code MAX_RESIDENT_TIERS} tiers are kept loaded - the current
+ * one, the one before it, and the one the {@code QualityGovernor} has asked to
+ * be preloaded - so switching back, or one step further down, is instant. The
+ * current tier is never the one dropped to make room.<p>
+ *
+ * Models are stored in an {@code EnumMap} per tier for convenient storage and
+ * retrieval.
  *
  * @author Carl Linley
  **/
@@ -25,49 +38,162 @@ public class ModelManager {
         BOARD_FRAME, PIECE_MAN, PIECE_KING
     };
 
-    private final HashMap<ModelType, Spatial> modelStore;
-    
-    private ModelQuality currentQuality;
+    public final static int MAX_RESIDENT_TIERS = 3;
+
+    /**
+     * Loaded tiers, least recently used first.
+     **/
+    private final LinkedHashMap<ModelQuality, EnumMap<ModelType, Spatial>> tierStore;
+    private final Client client;
+
+    private volatile EnumMap<ModelType, Spatial> currentTier;
+    private ModelQuality currentQuality, pendingQuality;
 
     public ModelManager(Client c) {
-        modelStore = new HashMap<>();
-        currentQuality = c.getConfig().getModelQuality();
+        client = c;
+        tierStore = new LinkedHashMap<ModelQuality, EnumMap<ModelType, Spatial>>(4, 0.75f, true) {
+            /**
+             * Drops the least recently used tier that is not the current one.
+             **/
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ModelQuality, EnumMap<ModelType, Spatial>> eldest) {
+                if (size() > MAX_RESIDENT_TIERS) {
+                    for (ModelQuality quality : keySet()) {
+                        if (quality != currentQuality) {
+                            remove(quality);
+                            break;
+                        }
+                    }
+                }
+                return false;
+            }
+        };
+        currentQuality = c.getQualityGovernor().getModelQuality();
+        currentTier = loadTier(currentQuality);
 
-        loadModels(c);
+        synchronized (tierStore) {
+            tierStore.put(currentQuality, currentTier);
+        }
     }
 
-    public final void loadModels(Client c) {
-        modelStore.clear();
+    /**
+     * Loads every model of a quality. May be called from any thread.
+     *
+     * @param quality - the quality to load.
+     * @return the models, by type.
+     **/
+    private EnumMap<ModelType, Spatial> loadTier(ModelQuality quality) {
+        EnumMap<ModelType, Spatial> tier = new EnumMap<>(ModelType.class);
 
         try {
             for (ModelType modelType : ModelType.values()) {
-                modelStore.put(modelType, c.getAssetManager().loadModel("models/" + currentQuality + "/" + modelType + ".j3o"));
+                tier.put(modelType, client.getAssetManager().loadModel("models/" + quality + "/" + modelType + ".j3o"));
             }
-            Logger.logInfo("Loaded models (quality: " + currentQuality + ").");
+            Logger.logInfo("Loaded models (quality: " + quality + ").");
         }
         catch (Exception e) {
             Logger.logWarning("Failed to load models: " + e + " - " + e.getMessage());
         }
+        return tier;
+    }
+
+    /**
+     * Loads the models of a quality in the background, without using them, so
+     * that a later switch to that quality is instant.
+     *
+     * @param quality - the quality to load.
+     **/
+    public void preloadTier(ModelQuality quality) {
+        synchronized (tierStore) {
+            if (tierStore.containsKey(quality)) {
+                return;
+            }
+        }
+        client.getExecutor().submit(() -> {
+            storeTier(quality, loadTier(quality));
+        });
     }
 
+    private void storeTier(ModelQuality quality, EnumMap<ModelType, Spatial> tier) {
+        if (tier.size() != ModelType.values().length) {
+            return; // Failed to load - do not keep it
+        }
+        synchronized (tierStore) {
+            tierStore.put(quality, tier);
+        }
+    }
+
+    /**
+     * Switches to the quality chosen by the {@code QualityGovernor}, if it has
+     * changed. If that quality's models are not loaded, they are loaded in the
+     * background and the switch is made once they are. Must be called from the
+     * render thread.
+     *
+     * @param c - the current instance of {@link Client}.
+     **/
     public void reloadModels(Client c) {
-        if (c.getConfig().getModelQuality() != currentQuality) {
-            currentQuality = c.getConfig().getModelQuality();
+        ModelQuality newQuality = c.getQualityGovernor().getModelQuality();
 
-            loadModels(c);
+        if (newQuality == currentQuality) {
+            pendingQuality = null; // Changed back before a load finished
+            return;
+        }
+        if (newQuality == pendingQuality) {
+            return;
+        }
+        EnumMap<ModelType, Spatial> tier;
 
-            //Update existing models.
-            for (Piece p : c.getGraphicalBoard().getRenderedPieces()) {
-                p.setModel(getModel(p.getType()));
-            }
+        synchronized (tierStore) {
+            tier = tierStore.get(newQuality);
         }
+        if (tier != null) {
+            pendingQuality = null;
+            swapTier(newQuality, tier);
+            return;
+        }
+        pendingQuality = newQuality;
+
+        c.getExecutor().submit(() -> {
+            EnumMap<ModelType, Spatial> loadedTier = loadTier(newQuality);
+
+            storeTier(newQuality, loadedTier);
+            c.enqueue(() -> {
+                if (pendingQuality == newQuality) {
+                    pendingQuality = null;
+
+                    if (loadedTier.size() == ModelType.values().length) {
+                        swapTier(newQuality, loadedTier);
+                    }
+                }
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Switches every piece to the models of a loaded tier, all in one frame.
+     **/
+    private void swapTier(ModelQuality newQuality, EnumMap<ModelType, Spatial> tier) {
+        synchronized (tierStore) {
+            currentQuality = newQuality;
+        }
+        currentTier = tier;
+
+        for (Piece p : client.getGraphicalBoard().getRenderedPieces()) {
+            p.setModel(getModel(p.getType()));
+        }
+        Logger.logInfo("Switched to models of quality " + newQuality + ".");
     }
 
     public Spatial getModel(ModelType modelType) {
-        return modelStore.get(modelType).clone();
+        return currentTier.get(modelType).clone();
     }
 
     public Spatial getModel(PieceType pieceType) {
         return getModel(ModelType.valueOf("PIECE_" + pieceType.toString().split("_")[0]));
     }
+
+    public ModelQuality getCurrentQuality() {
+        return currentQuality;
+    }
 }
\ No newline at end of file
@@ -49,7 +49,8 @@ public class SoundManager {
     /**
      * Plays the specified sound at the specified position with a slightly
      * randomised pitch. The sound is enqueued due to strange issues occurring
-     * when the sound is played without being enqueued.
+     * when the sound is played without being enqueued. Nothing is played if
+     * the client has no audio.
      *
      * @param soundType - the sound type to play.
      * @param soundLocation - the world location from which the sound will play (pass <i>null</i> for non-directional).
@@ -58,6 +59,9 @@ public class SoundManager {
 	 *
      */
     public void playSound(SoundType soundType, Vector3f soundLocation, boolean randomisePitch) {
+        if (!client.hasAudio()) {
+            return;
+        }
         client.enqueue(() -> {
             AudioNode sound = getSound(soundType);
             
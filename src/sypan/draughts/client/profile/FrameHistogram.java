@@ -0,0 +1,184 @@
+package sypan.draughts.client.profile;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * {@code FrameHistogram} counts frame times, in microseconds, in the manner of
+ * an HdrHistogram - the buckets double in width with each power of two, and
+ * each is split into {@code SUB_BUCKETS} equal parts, so every recorded value
+ * is kept to within about 1% no matter how large it is, in a fixed, small
+ * array. Recording a value is a few shifts and an increment.<p>
+ *
+ * Values up to {@code MAX_VALUE} (a minute) are counted; larger ones are
+ * counted as {@code MAX_VALUE}.<p>
+ *
+ * The percentile distribution is written in the same text format as
+ * HdrHistogram's, so it can be plotted with the usual HdrHistogram tools.
+ *
+ * @author Carl Linley
+ **/
+public class FrameHistogram {
+
+    public final static long MAX_VALUE = 60_000_000L;
+
+    private final static int SUB_BUCKET_BITS = 7, SUB_BUCKETS = 1 << SUB_BUCKET_BITS, HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+
+    /**
+     * The number of percentile lines written per halving of the distance to
+     * 100%.
+     **/
+    private final static int TICKS_PER_HALF_DISTANCE = 5;
+
+    private final long[] counts;
+    private long totalCount, maxValue;
+
+    public FrameHistogram() {
+        counts = new long[getIndex(MAX_VALUE) + 1];
+    }
+
+    /**
+     * @param value - a value, in microseconds.
+     * @return the index of the bucket counting the specified value.
+     **/
+    private static int getIndex(long value) {
+        int bucket = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1));
+        int subBucket = (int) (value >> bucket);
+
+        return (bucket == 0 ? subBucket : SUB_BUCKETS + (bucket - 1) * HALF_SUB_BUCKETS + (subBucket - HALF_SUB_BUCKETS));
+    }
+
+    /**
+     * @param index - the index of a bucket.
+     * @return the highest value counted by the specified bucket.
+     **/
+    private static long getHighestValue(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int bucket = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+
+        return ((subBucket + 1) << bucket) - 1;
+    }
+
+    /**
+     * Counts a value.
+     *
+     * @param value - the value, in microseconds.
+     **/
+    public void record(long value) {
+        value = Math.max(0, Math.min(value, MAX_VALUE));
+
+        counts[getIndex(value)]++;
+        totalCount++;
+        maxValue = Math.max(maxValue, value);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        maxValue = 0;
+    }
+
+    /**
+     * @return a copy of this histogram.
+     **/
+    public FrameHistogram copy() {
+        FrameHistogram copy = new FrameHistogram();
+
+        System.arraycopy(counts, 0, copy.counts, 0, counts.length);
+        copy.totalCount = totalCount;
+        copy.maxValue = maxValue;
+        return copy;
+    }
+
+    /**
+     * @param percentile - the percentile, from 0 to 100.
+     * @return the value at or below which the specified percentage of values
+     * fall, or 0 if nothing has been recorded.
+     **/
+    public long getValueAtPercentile(double percentile) {
+        long countAtPercentile = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount)), count = 0;
+
+        for (int i = 0; i != counts.length; i++) {
+            count += counts[i];
+
+            if (count >= countAtPercentile) {
+                return Math.min(getHighestValue(i), maxValue);
+            }
+        }
+        return 0;
+    }
+
+    public double getMean() {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double total = 0;
+
+        for (int i = 0; i != counts.length; i++) {
+            total += (double) counts[i] * Math.min(getHighestValue(i), maxValue);
+        }
+        return total / totalCount;
+    }
+
+    public double getStandardDeviation() {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double mean = getMean(), total = 0;
+
+        for (int i = 0; i != counts.length; i++) {
+            double deviation = Math.min(getHighestValue(i), maxValue) - mean;
+            total += counts[i] * deviation * deviation;
+        }
+        return Math.sqrt(total / totalCount);
+    }
+
+    public long getMaxValue() {
+        return maxValue;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Writes the percentile distribution of this histogram, in HdrHistogram's
+     * format.
+     *
+     * @param out - the stream to write to.
+     * @param unitRatio - the number of microseconds per unit written - 1000
+     * for milliseconds.
+     **/
+    public void writePercentileDistribution(PrintStream out, double unitRatio) {
+        out.format("%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+
+        if (totalCount != 0) {
+            long count = 0;
+            double nextPercentile = 0;
+            int tick = 0;
+
+            for (int i = 0; i != counts.length; i++) {
+                if (counts[i] == 0) {
+                    continue;
+                }
+                count += counts[i];
+
+                double reached = (double) count / totalCount;
+
+                while (nextPercentile <= reached && count != totalCount) {
+                    out.format("%12.3f %2.12f %10d %14.2f%n", Math.min(getHighestValue(i), maxValue) / unitRatio, nextPercentile, count, 1 / (1 - nextPercentile));
+
+                    tick++;
+                    nextPercentile = 1 - Math.pow(0.5, (double) tick / TICKS_PER_HALF_DISTANCE);
+                }
+            }
+            out.format("%12.3f %2.12f %10d%n", maxValue / unitRatio, 1.0, totalCount);
+        }
+        out.format("#[Mean    = %12.3f, StdDeviation   = %12.3f]%n", getMean() / unitRatio, getStandardDeviation() / unitRatio);
+        out.format("#[Max     = %12.3f, Total count    = %12d]%n", maxValue / unitRatio, totalCount);
+        out.format("#[Buckets = %12d, SubBuckets     = %12d]%n", (counts.length - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1, SUB_BUCKETS);
+    }
+}
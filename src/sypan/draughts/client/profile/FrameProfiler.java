@@ -0,0 +1,223 @@
+package sypan.draughts.client.profile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import sypan.draughts.client.Client;
+import sypan.utility.Logger;
+
+import com.jme3.font.BitmapText;
+import com.jme3.math.ColorRGBA;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.control.AbstractControl;
+import com.jme3.scene.control.Control;
+
+/**
+ * {@code FrameProfiler} records how long every frame takes, and how much of it
+ * is spent in each {@link Section} of the client, and shows them in an overlay
+ * toggled with F3 - the frame time percentiles and each section's average
+ * time per frame over the last {@code WINDOW_SECONDS}.<p>
+ *
+ * Every frame time of the session is also counted in a {@link FrameHistogram},
+ * which is exported with F4 to {@code PROFILE_DIRECTORY}, in HdrHistogram's
+ * percentile distribution format.<p>
+ *
+ * Sections are timed with {@link #begin} and {@link #end} on the render
+ * thread. Work on other threads (the AI) reports its time with {@link #add}
+ * instead, which may be called from any thread.
+ *
+ * @author Carl Linley
+ **/
+public class FrameProfiler {
+
+    public enum Section {
+        EFFECTS("Effects"),
+        INTERPOLATION("Piece movement"),
+        HOVER("Hover picking"),
+        GUI("GUI"),
+        AI("AI");
+
+        private final String name;
+
+        private Section(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    };
+
+    public final static String PROFILE_DIRECTORY = "profiles";
+
+    /**
+     * The overlay shows the frames of windows of this many seconds.
+     **/
+    private final static float WINDOW_SECONDS = 2f;
+
+    private final Client client;
+    private final BitmapText overlay;
+
+    private final FrameHistogram sessionFrames, windowFrames;
+    private final AtomicLongArray sectionNanos;
+    private final long[] sectionStart;
+
+    private float windowTime;
+    private volatile long lastAINanos;
+
+    public FrameProfiler(Client c) {
+        this.client = c;
+
+        sessionFrames = new FrameHistogram();
+        windowFrames = new FrameHistogram();
+        sectionNanos = new AtomicLongArray(Section.values().length);
+        sectionStart = new long[Section.values().length];
+
+        overlay = new BitmapText(c.getAssetManager().loadFont("Interface/Fonts/Default.fnt"));
+        overlay.setColor(ColorRGBA.White);
+        overlay.setLocalTranslation(4, c.getScreenDimensions().getY() - 4, 0);
+        overlay.setText("Measuring...");
+    }
+
+    /**
+     * Starts timing a section. Render thread only.
+     *
+     * @param section - the section.
+     **/
+    public void begin(Section section) {
+        sectionStart[section.ordinal()] = System.nanoTime();
+    }
+
+    /**
+     * Stops timing a section, adding the time since {@link #begin} to it.
+     * Render thread only.
+     *
+     * @param section - the section.
+     **/
+    public void end(Section section) {
+        add(section, System.nanoTime() - sectionStart[section.ordinal()]);
+    }
+
+    /**
+     * Adds time to a section. May be called from any thread.
+     *
+     * @param section - the section.
+     * @param nanos - the time spent, in nanoseconds.
+     **/
+    public void add(Section section, long nanos) {
+        sectionNanos.addAndGet(section.ordinal(), nanos);
+
+        if (section == Section.AI) {
+            lastAINanos = nanos;
+        }
+    }
+
+    /**
+     * Creates a control that times a section from the point it is updated -
+     * used to time controls added after it to the same spatial, which have no
+     * code of their own to time.
+     *
+     * @param section - the section.
+     * @param start - {@code true} to begin the section, {@code false} to end
+     * it.
+     * @return the control.
+     **/
+    public Control createMarker(Section section, boolean start) {
+        return new AbstractControl() {
+
+            @Override
+            protected void controlUpdate(float timePerFrame) {
+                if (start) {
+                    begin(section);
+                }
+                else {
+                    end(section);
+                }
+            }
+
+            @Override
+            protected void controlRender(RenderManager renderManager, ViewPort viewPort) {
+            }
+        };
+    }
+
+    /**
+     * Records the time the last frame took. Called at the start of every
+     * frame.
+     *
+     * @param timePerFrame - the time the last frame took.
+     **/
+    public void endFrame(float timePerFrame) {
+        long micros = (long) (timePerFrame * 1_000_000);
+
+        sessionFrames.record(micros);
+        windowFrames.record(micros);
+        windowTime += timePerFrame;
+
+        if (windowTime < WINDOW_SECONDS) {
+            return;
+        }
+        if (overlay.getParent() != null) {
+            updateOverlay();
+        }
+        windowFrames.reset();
+        windowTime = 0;
+
+        for (int i = 0; i != sectionNanos.length(); i++) {
+            sectionNanos.set(i, 0);
+        }
+    }
+
+    private void updateOverlay() {
+        long frames = windowFrames.getTotalCount();
+        StringBuilder text = new StringBuilder();
+
+        text.append(String.format("%.0f FPS - frame p50 %.1f  p90 %.1f  p99 %.1f  max %.1f ms%n", frames / windowTime,
+                windowFrames.getValueAtPercentile(50) / 1000f, windowFrames.getValueAtPercentile(90) / 1000f,
+                windowFrames.getValueAtPercentile(99) / 1000f, windowFrames.getMaxValue() / 1000f));
+
+        for (Section section : Section.values()) {
+            text.append(String.format("%s: %.3f ms/frame%n", section, sectionNanos.get(section.ordinal()) / 1_000_000f / frames));
+        }
+        text.append(String.format("Last AI move: %d ms%n", lastAINanos / 1_000_000));
+        text.append(sessionFrames.getTotalCount()).append(" frames recorded - F4 to export");
+
+        overlay.setText(text.toString());
+    }
+
+    public void toggleOverlay() {
+        if (overlay.getParent() == null) {
+            client.getGuiNode().attachChild(overlay);
+        }
+        else {
+            overlay.removeFromParent();
+        }
+    }
+
+    /**
+     * Writes the frame times of the session so far to a new file in
+     * {@code PROFILE_DIRECTORY}, on the client's executor.
+     **/
+    public void export() {
+        FrameHistogram frames = sessionFrames.copy();
+        File file = new File(PROFILE_DIRECTORY, "frames-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".hgrm");
+
+        client.getExecutor().execute(() -> {
+            file.getParentFile().mkdirs();
+
+            try (PrintStream out = new PrintStream(file, "UTF-8")) {
+                frames.writePercentileDistribution(out, 1000);
+                Logger.logInfo("Exported " + frames.getTotalCount() + " frame times to " + file + ".");
+            }
+            catch (IOException e) {
+                Logger.logWarning("Failed to export frame times: " + e.getMessage());
+            }
+        });
+    }
+}
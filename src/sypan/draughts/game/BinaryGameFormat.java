@@ -0,0 +1,159 @@
+package sypan.draughts.game;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import sypan.draughts.game.move.Move;
+import sypan.draughts.game.piece.PieceType;
+import sypan.draughts.game.player.PlayerType;
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.position.Square;
+
+/**
+ * {@code BinaryGameFormat} encodes a {@link GameRecord} to and from the
+ * binary saved game format, about twenty times smaller than the old CSV
+ * format and read without parsing any text.<p>
+ *
+ * A file is a fixed-size header followed by one byte per step:<p>
+ *
+ * {@code magic (4) | version (2) | black player (1) | white player (1) |
+ * end code (1) | victor (1) | start time (8) | end time (8) |
+ * step count (4) | steps...}<p>
+ *
+ * Each step is the square it starts on (bits 0-4), the diagonal it moves
+ * along (bits 5-6, in {@code MoveGenerator}'s order) and whether it is a jump
+ * (bit 7). The starting layout is always the same, so it isn't stored, and the
+ * side of each step is found by replaying the game as it is read.<p>
+ *
+ * This class cannot be instantiated, it must be used statically.
+ *
+ * @author Carl Linley
+ **/
+public final class BinaryGameFormat {
+
+    public final static String EXTENSION = ".dgr";
+
+    public final static int FILE_MAGIC = 0x44475246, // "DGRF"
+                            VERSION = 1, HEADER_SIZE = 30;
+
+    private final static int NO_VICTOR = 2, NO_PLAYER = 0xFF;
+
+    private BinaryGameFormat() {
+    }
+
+    /**
+     * @param record - the record to be encoded.
+     * @return the size of the specified record once encoded, in bytes.
+     **/
+    public static int getEncodedSize(GameRecord record) {
+        return HEADER_SIZE + record.getMoves().size();
+    }
+
+    /**
+     * Writes a record at the buffer's position, advancing it.
+     *
+     * @param record - the record to encode.
+     * @param buffer - the buffer to write to, with at least
+     * {@code getEncodedSize(record)} bytes remaining.
+     **/
+    public static void encode(GameRecord record, ByteBuffer buffer) {
+        buffer.putInt(FILE_MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.put(playerByte(record.getPlayer(Side.BLACK)));
+        buffer.put(playerByte(record.getPlayer(Side.WHITE)));
+        buffer.put((byte) record.getEndCode());
+        buffer.put((byte) (record.getVictor() == null ? NO_VICTOR : record.getVictor().ordinal()));
+        buffer.putLong(record.getStartTime());
+        buffer.putLong(record.getEndTime());
+        buffer.putInt(record.getMoves().size());
+
+        for (Move m : record.getMoves()) {
+            buffer.put(encodeStep(m));
+        }
+    }
+
+    /**
+     * @param step - the step.
+     * @return the step as a single byte.
+     **/
+    static byte encodeStep(Move step) {
+        int origin = Square.index(step.getOrigin()),
+            offsetX = step.getDestination().getX() - step.getOrigin().getX(),
+            offsetY = step.getDestination().getY() - step.getOrigin().getY(),
+            direction = (offsetX > 0 ? 0 : 1) + (offsetY > 0 ? 0 : 2);
+
+        return (byte) (origin | (direction << 5) | (Math.abs(offsetY) == 2 ? 0x80 : 0));
+    }
+
+    /**
+     * Reads a record from the buffer's position, advancing it.
+     *
+     * @param buffer - the buffer to read from.
+     * @param filePath - the path the record was read from.
+     * @return the record, or {@code null} if the buffer does not hold a valid
+     * record of a version this can read.
+     **/
+    public static GameRecord decode(ByteBuffer buffer, String filePath) {
+        try {
+            if (buffer.getInt() != FILE_MAGIC || buffer.getShort() != VERSION) {
+                return null;
+            }
+            PlayerType blackPlayer = toPlayer(buffer.get()), whitePlayer = toPlayer(buffer.get());
+            int endCode = buffer.get(), victorByte = buffer.get();
+            long startTime = buffer.getLong(), endTime = buffer.getLong();
+            int stepCount = buffer.getInt();
+
+            if (stepCount < 0 || stepCount > buffer.remaining()) {
+                return null;
+            }
+            ArrayList<Move> moves = decodeSteps(buffer, stepCount);
+
+            if (moves == null) {
+                return null;
+            }
+            return new GameRecord(filePath, blackPlayer, whitePlayer, startTime, endTime, moves, endCode, victorByte == NO_VICTOR ? null : Side.get(victorByte));
+        }
+        catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads steps from the buffer's position, advancing it. The steps are
+     * replayed from the starting layout to find the side of each.
+     *
+     * @param buffer - the buffer to read from.
+     * @param stepCount - the number of steps to read.
+     * @return the steps, or {@code null} if any is not a legal step.
+     **/
+    static ArrayList<Move> decodeSteps(ByteBuffer buffer, int stepCount) {
+        ArrayList<Move> moves = new ArrayList<>(stepCount);
+        Position position = Position.initial();
+
+        for (int i = 0; i != stepCount; i++) {
+            int step = buffer.get() & 0xFF, origin = step & 0x1F, direction = (step >>> 5) & 3,
+                distance = ((step & 0x80) != 0 ? 2 : 1),
+                destination = Square.offset(origin, (direction % 2 == 0 ? distance : -distance), (direction < 2 ? distance : -distance));
+            PieceType moving = position.get(origin);
+
+            if (moving == null || destination == -1) {
+                return null;
+            }
+            moves.add(new Move(moving.getSide(), Square.toTile(origin), Square.toTile(destination)));
+            position.applyStep(origin, destination);
+        }
+        return moves;
+    }
+
+    static byte playerByte(PlayerType playerType) {
+        return (byte) (playerType == null ? NO_PLAYER : playerType.ordinal());
+    }
+
+    static PlayerType toPlayer(byte playerByte) {
+        int ordinal = playerByte & 0xFF;
+
+        return (ordinal < PlayerType.values().length ? PlayerType.values()[ordinal] : null);
+    }
+}
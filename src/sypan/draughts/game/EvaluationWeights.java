@@ -0,0 +1,166 @@
+package sypan.draughts.game;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import sypan.draughts.game.piece.Tile;
+import sypan.utility.Logger;
+import sypan.utility.Utility;
+
+/**
+ * {@code EvaluationWeights} holds the weights used by
+ * {@link GameSimulation#assess} - the value of a man, the value of a king, and
+ * the score of every tile.<p>
+ *
+ * The defaults are the hand-picked values the AI has always used. If a weight
+ * file produced by the evaluation tuner exists, it is loaded instead the first
+ * time the weights are needed.
+ *
+ * @author Carl Linley
+ **/
+public final class EvaluationWeights {
+
+    public final static String WEIGHT_FILE = "eval.weights";
+
+    private final static EvaluationWeights DEFAULT = new EvaluationWeights(4, 8, LogicalBoard.TILE_SCORES);
+
+    private static volatile EvaluationWeights activeWeights;
+
+    private final int manValue, kingValue;
+    private final int[][] tileScores;
+
+    public EvaluationWeights(int manValue, int kingValue, int[][] tileScores) {
+        this.manValue = manValue;
+        this.kingValue = kingValue;
+        this.tileScores = new int[8][4];
+
+        for (int i = 0; i != 8; i++) {
+            System.arraycopy(tileScores[i], 0, this.tileScores[i], 0, 4);
+        }
+    }
+
+    /**
+     * @return the weights currently in use by the AI. These are loaded from
+     * {@code WEIGHT_FILE} on first use, falling back to the defaults.
+     **/
+    public static EvaluationWeights getActive() {
+        if (activeWeights == null) {
+            synchronized (EvaluationWeights.class) {
+                if (activeWeights == null) {
+                    EvaluationWeights loaded = load(WEIGHT_FILE);
+                    activeWeights = (loaded != null ? loaded : DEFAULT);
+                }
+            }
+        }
+        return activeWeights;
+    }
+
+    public static EvaluationWeights getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Reads a weight file. Each line is a comma-separated key followed by its
+     * values - {@code MAN}, {@code KING}, or {@code TILES} (one line per row).
+     * Lines starting with '#' are ignored.
+     *
+     * @param filePath - the relative path to the weight file.
+     * @return the loaded weights, or {@code null} if the file does not exist or
+     * could not be parsed.
+     **/
+    public static EvaluationWeights load(String filePath) {
+        BufferedReader reader = Utility.getReader(filePath);
+
+        if (reader == null) {
+            return null;
+        }
+
+        int manValue = DEFAULT.manValue, kingValue = DEFAULT.kingValue, tileRow = 0;
+        int[][] tileScores = new int[8][4];
+        String readLine;
+
+        try {
+            while ((readLine = reader.readLine()) != null) {
+                if (readLine.isEmpty() || readLine.startsWith("#")) {
+                    continue;
+                }
+                String[] values = readLine.split(", ");
+
+                switch (values[0]) {
+                    case "MAN":
+                        manValue = Integer.parseInt(values[1]);
+                    break;
+
+                    case "KING":
+                        kingValue = Integer.parseInt(values[1]);
+                    break;
+
+                    case "TILES":
+                        for (int i = 0; i != 4; i++) {
+                            tileScores[tileRow][i] = Integer.parseInt(values[i + 1]);
+                        }
+                        tileRow++;
+                    break;
+                }
+            }
+            reader.close();
+
+            if (tileRow != 8) {
+                Logger.logWarning("Weight file '" + filePath + "' is incomplete - using default weights.");
+                return null;
+            }
+            Logger.logInfo("Loaded evaluation weights. ('" + filePath + "')");
+            return new EvaluationWeights(manValue, kingValue, tileScores);
+        }
+        catch (IOException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            Logger.logWarning("Failed to load evaluation weights: " + e + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes these weights in the format read by {@code load}.
+     *
+     * @param filePath - the path to write to.
+     * @param comment - a comment written at the top of the file.
+     * @throws IOException if the file cannot be written.
+     **/
+    public void save(String filePath, String comment) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(new File(filePath)))) {
+            writer.write("# " + comment);
+            writer.newLine();
+            writer.write("MAN, " + manValue);
+            writer.newLine();
+            writer.write("KING, " + kingValue);
+            writer.newLine();
+
+            for (int[] row : tileScores) {
+                writer.write("TILES, " + row[0] + ", " + row[1] + ", " + row[2] + ", " + row[3]);
+                writer.newLine();
+            }
+        }
+    }
+
+    public int getTileValue(Tile tile) {
+        return tileScores[tile.getY()][(tile.getX() - (tile.getY() % 2 != 0 ? 1 : 0)) / 2];
+    }
+
+    /**
+     * @param cell - the cell index, as returned by {@code Square.scoreCell}.
+     * @return the score of the specified cell.
+     **/
+    public int getCellValue(int cell) {
+        return tileScores[cell / 4][cell % 4];
+    }
+
+    public int getManValue() {
+        return manValue;
+    }
+
+    public int getKingValue() {
+        return kingValue;
+    }
+}
@@ -1,27 +1,30 @@
 package sypan.draughts.game;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import sypan.draughts.client.Client;
-import sypan.draughts.client.effect.PromotionEffect;
 import sypan.draughts.client.gui.StateType;
 import sypan.draughts.client.gui.state.GameState;
 import sypan.draughts.client.manager.ModelManager.ModelType;
 import sypan.draughts.client.manager.SoundManager.SoundType;
 
+import sypan.draughts.game.archive.GameArchive;
 import sypan.draughts.game.move.*;
 import sypan.draughts.game.piece.*;
 import sypan.draughts.game.player.*;
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.position.PositionHistory;
+import sypan.draughts.game.position.Square;
+import sypan.draughts.game.position.Zobrist;
+import sypan.draughts.game.search.AnalysisLine;
+import sypan.draughts.game.search.SearchEngine;
 
 import sypan.utility.Logger;
 import sypan.utility.Utility;
 
 import com.jme3.math.ColorRGBA;
-import com.jme3.math.FastMath;
 import com.jme3.scene.Spatial;
 
 /**
@@ -31,14 +34,23 @@ import com.jme3.scene.Spatial;
  **/
 public class Game {
 
+    private final static int HINT_DEPTH = 12, HINT_TIME_MS = 2000;
+
     private Client client;
 
     private LogicalBoard logicalBoard;
     private Side currentTurn, gameWinner;
     private Player[] gamePlayer;
     private ArrayList<Move> moveHistory;
+    private int journalledSteps;
+    private String filePath;
+
+    private PositionHistory positionHistory;
+    private Position lastPosition;
+    private long startTime;
 
     private boolean changingTurn, drawOffered, gameEnded, jumpedPiece, movePlayed;
+    private final AtomicBoolean thinkingOfHint = new AtomicBoolean();
 
     /**
      * Used by {@link GameSimulation} only.
@@ -55,38 +67,33 @@ public class Game {
 
         gamePlayer = new Player[2];
         moveHistory = new ArrayList<>();
+        startTime = System.currentTimeMillis();
 
         createPlayer(playerBlack);
         createPlayer(playerWhite);
 
+        if (this instanceof GameReplay == false) {
+            filePath = GameArchive.DIRECTORY + "/" + Utility.getDate(true) + " - " + Utility.getTime(true).substring(0, 5) + " - "
+                     + gamePlayer[0].getName() + " v " + gamePlayer[1].getName() + BinaryGameFormat.EXTENSION;
+            GameSaver.startJournal(filePath, playerBlack, playerWhite, startTime);
+        }
+
         initialisePieces();
         currentTurn = Side.BLACK;
 
+        positionHistory = new PositionHistory();
+        lastPosition = Position.of(logicalBoard, currentTurn);
+        positionHistory.push(Zobrist.hash(lastPosition), true);
+
         if (getPlayer(Side.BLACK).isHuman()) {
-            try {
-                moveCameraTo(Side.BLACK);
-                client.setShowHover(true);
-            }
-            catch (InterruptedException e) {
-                client.getDraughtsCamera().setDefaultHorizontalRotation(90 * FastMath.DEG_TO_RAD);
-            }
+            moveCameraTo(Side.BLACK, null);
+            client.setShowHover(true);
         }
         else if (getPlayer(Side.WHITE).isHuman()) {
-            try {
-                moveCameraTo(Side.WHITE);
-            }
-            catch (InterruptedException e) {
-                client.getDraughtsCamera().setDefaultHorizontalRotation(-90 * FastMath.DEG_TO_RAD);
-            }
+            moveCameraTo(Side.WHITE, null);
         }
         else {
-            try {
-                moveCameraTo(Side.SPECTATOR);
-            }
-            catch (InterruptedException e) {
-                client.getDraughtsCamera().setDefaultHorizontalRotation(0);
-            }
-            client.getDraughtsCamera().setDefaultVerticalRotation(50 * FastMath.DEG_TO_RAD);
+            moveCameraTo(Side.SPECTATOR, null);
         }
         Logger.logInfo(gamePlayer[0].getName() + " v.s " + gamePlayer[1].getName());
         start();
@@ -395,45 +402,19 @@ public class Game {
     }
 
     protected void saveGame(int endCode, Side victor) {
-        String fileName = Utility.getDate(true) + " - " + Utility.getTime(true).substring(0, 5) + " - " + gamePlayer[0].getName() + " v " + gamePlayer[1].getName();
-        BufferedWriter writer;
-
-        try {
-            writer = new BufferedWriter(new FileWriter(new File("history/" + fileName + ".csv")));
-
-            /*
-             * Save initial piece set-up - this is constant
-             */
-            for (int i = 7; i != 4; i--) {
-                for (int j = 1; j < 9; j += 2) {
-                    writer.write("1, " + gamePlayer[1].getType().getFlag() + ", " + "B, " + (i == 6 ? j : j - 1) + "," + i);
-                    writer.newLine();
-                }
-            }
-            for (int i = 0; i != 3; i++) {
-                for (int j = 1; j < 9; j += 2) {
-                    writer.write("1, " + gamePlayer[0].getType().getFlag() + ", " + "W, " + (i != 1 ? j : j - 1) + "," + i);
-                    writer.newLine();
-                }
-            }
-
-            /* Save move history */
-            for (Move m : moveHistory) {
-                writer.write("0, " +                                                            // 0, 1 - Move type - 0 for player, 1 for initial
-                             getPlayer(m.getSide()).getType().getFlag() + ", " +                // AI, HU - Player type - 'AI' for AI, 'HU' for human
-                             m.getSide().getID() + ", " +                                       // B, W - Side - 'B' for black, 'W' for white
-                             m.getOrigin().getX() + "," + m.getOrigin().getY() + ", " +         // n, n - Origin tile coordinates
-                             m.getDestination().getX() + "," + m.getDestination().getY() + ""); // n, n - Destination tile coordinates
-                writer.newLine();
-            }
-            writer.write("ENDGAME, " + endCode + ", " + victor.getID());
+        journalTurn();
+        GameSaver.save(new GameRecord(filePath, getPlayer(Side.BLACK).getType(), getPlayer(Side.WHITE).getType(),
+                startTime, System.currentTimeMillis(), moveHistory, endCode, victor));
+    }
 
-            /* Close writer */
-            writer.close();
-            Logger.logInfo("Saved game. ('history/" + fileName + ".csv')");
-        }
-        catch (IOException e) {
-            Logger.logSevere("Failed to save game: " + e + " - " + e.getMessage());
+    /**
+     * Adds the steps played since the last call to the {@code GameSaver}'s
+     * journal.
+     **/
+    private void journalTurn() {
+        if (journalledSteps != moveHistory.size()) {
+            GameSaver.journal(new ArrayList<>(moveHistory.subList(journalledSteps, moveHistory.size())));
+            journalledSteps = moveHistory.size();
         }
     }
 
@@ -462,10 +443,7 @@ public class Game {
             return;
         }
 
-        if (client.getConfig().useEffects()) {
-            client.getEffectManager().createEffect(new PromotionEffect(client, toPromote), toPromote.getTile().getWorldLocation().subtract(0, 1, 0));
-        }
-        else {
+        if (!client.getQualityGovernor().useEffects() || !client.getEffectManager().createPromotion(toPromote, toPromote.getTile().getWorldLocation().subtract(0, 1, 0))) {
             applyPromotion(toPromote);
         }
     }
@@ -541,10 +519,12 @@ public class Game {
     }
 
     protected void endTurn(Piece pieceMoved) {
+        journalTurn();
+
         if (!canMove(currentTurn.oppose())) {
             endGame(countPieces(currentTurn.oppose()) > 0 ? 1 : 2, currentTurn);
         }
-        else {
+        else if (!isDrawnBy(pieceMoved)) {
             if (checkPromotion(pieceMoved)) {
                 client.getExecutor().submit(() -> {
                     Thread.sleep(3000); // Wait for the promotion performance to finish.
@@ -562,6 +542,35 @@ public class Game {
         }
     }
 
+    /**
+     * Adds the position reached this turn to the position history, and ends
+     * the game as a draw if it has been reached too many times, or if too many
+     * turns have passed without a capture or a man moving.
+     *
+     * @param pieceMoved - the piece moved this turn.
+     * @return true if the game was drawn.
+     **/
+    private boolean isDrawnBy(Piece pieceMoved) {
+        Position position = Position.of(logicalBoard, currentTurn.oppose());
+
+        // The piece isn't crowned until the turn ends
+        if (!pieceMoved.isKing() && pieceMoved.getTile().getY() == (pieceMoved.isBlack() ? 0 : 7)) {
+            position.set(Square.index(pieceMoved.getTile()), pieceMoved.isBlack() ? PieceType.KING_BLACK : PieceType.KING_WHITE);
+        }
+        positionHistory.push(lastPosition, position);
+        lastPosition = position;
+
+        if (positionHistory.getRepetitions() >= client.getConfig().getRepetitionLimit()) {
+            endGame(5, currentTurn);
+            return true;
+        }
+        if (positionHistory.getQuietTurns() >= client.getConfig().getQuietTurnLimit()) {
+            endGame(6, currentTurn);
+            return true;
+        }
+        return false;
+    }
+
     protected void changeTurn() {
         changingTurn = true;
 
@@ -574,25 +583,22 @@ public class Game {
             TurnType turnType = getCurrentTurnType();
 
             if (getPlayer(currentTurn).isHuman()) {
-                moveCameraTo(currentTurn);
-                
-                while (client.getDraughtsCamera().isMoving()) {
-                    Thread.sleep(100);
-                }
-                if (turnType != TurnType.RESPOND_DRAW) {
-                    client.setShowHover(true);
-                    
-                    if (turnType == TurnType.TAKE_ENFORCED) {
-                        enforceJump();
+                moveCameraTo(currentTurn, () -> {
+                    if (turnType != TurnType.RESPOND_DRAW) {
+                        client.setShowHover(true);
+
+                        if (turnType == TurnType.TAKE_ENFORCED) {
+                            enforceJump();
+                        }
+                        else if (turnType == TurnType.TAKE_CHOICE) {
+                            lockPieces(currentTurn);
+                        }
                     }
-                    else if (turnType == TurnType.TAKE_CHOICE) {
-                        lockPieces(currentTurn);
+                    else {
+                        client.setShowHover(false);
+                        client.getGUI().setState(StateType.SUBSTATE_RESPOND_DRAW);
                     }
-                }
-                else {
-                    client.setShowHover(false);
-                    client.getGUI().setState(StateType.SUBSTATE_RESPOND_DRAW);
-                }
+                });
             }
             else {
                 changingTurn = movePlayed = false;
@@ -641,8 +647,13 @@ public class Game {
         });
     }
 
-    private void moveCameraTo(Side side) throws InterruptedException {
-        client.getDraughtsCamera().moveToSide(this, side);
+    /**
+     * @param side - the side to turn the camera to.
+     * @param onArrival - run on the render thread once the camera arrives. May
+     * be {@code null}.
+     **/
+    private void moveCameraTo(Side side, Runnable onArrival) {
+        client.getDraughtsCamera().moveToSide(this, side, onArrival);
         changingTurn = movePlayed = false;
     }
 
@@ -733,6 +744,12 @@ public class Game {
     }
 
     private void notifyEndGame(int endCode, Side victor) {
+        if (victor == null) {
+            if (endCode == 0) {// Recovered after the client closed
+                notify("This game was interrupted before it finished.", ColorRGBA.Yellow, 10000);
+            }
+            return;
+        }
         String winner = victor.getName(), loser = victor.oppose().getName();
 
         switch (endCode) {
@@ -751,6 +768,14 @@ public class Game {
             case 4:// Forfeit
                 notify(loser + " forfeited - " + winner + " wins!", ColorRGBA.Yellow, 10000);
             break;
+
+            case 5:// Repetition
+                notify("The same position has been reached " + getClient().getConfig().getRepetitionLimit() + " times - it's a draw!", ColorRGBA.Yellow, 10000);
+            break;
+
+            case 6:// No progress
+                notify("Nothing has been taken and no man has moved for " + getClient().getConfig().getQuietTurnLimit() + " turns - it's a draw!", ColorRGBA.Yellow, 10000);
+            break;
         }
     }
 
@@ -893,6 +918,50 @@ public class Game {
         }
     }
 
+    /**
+     * Analyses the current position in the background, and tells the human
+     * player to move the best move found. Only one hint is worked out at a
+     * time, on a thread of its own so it never holds up the client's executor,
+     * and it is dropped if the position has changed by the time it is found.
+     **/
+    public void showHint() {
+        if (!getPlayer(currentTurn).isHuman() || changingTurn || movePlayed) {
+            notify("You can only ask for a hint on your turn.", ColorRGBA.Red, 1000);
+            return;
+        }
+        if (!thinkingOfHint.compareAndSet(false, true)) {
+            return;
+        }
+        Position position = Position.of(logicalBoard, currentTurn);
+        PositionHistory history = positionHistory.copy();
+
+        notify("Thinking...", ColorRGBA.White, 1000);
+
+        Thread hintThread = new Thread(() -> {
+            try {
+                List<AnalysisLine> lines = new SearchEngine().analyse(position, history, 1, HINT_DEPTH, HINT_TIME_MS, null);
+
+                if (!lines.isEmpty()) {
+                    AnalysisLine best = lines.get(0);
+
+                    client.enqueue(() -> {
+                        if (!gameEnded && !changingTurn && !movePlayed && position.equals(Position.of(logicalBoard, currentTurn))) {
+                            Logger.logInfo("Hint: " + best);
+                            Game.this.notify("Hint: " + AnalysisLine.describe(position, best.getMove()), ColorRGBA.Cyan, 5000);
+                        }
+                        return null;
+                    });
+                }
+            }
+            finally {
+                thinkingOfHint.set(false);
+            }
+        }, "Hint");
+
+        hintThread.setDaemon(true);
+        hintThread.start();
+    }
+
     public void forfeitGame() {
         endGame(4, currentTurn.oppose());
     }
@@ -921,6 +990,14 @@ public class Game {
         return client;
     }
 
+    /**
+     * @return the position reached by every turn of this game, or {@code null}
+     * if this game is a simulation.
+     **/
+    public PositionHistory getPositionHistory() {
+        return positionHistory;
+    }
+
     /**
      * @return the side that won the game, or {@code null} if the game is still
      * going or it was a draw.
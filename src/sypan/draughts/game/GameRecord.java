@@ -0,0 +1,272 @@
+package sypan.draughts.game;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import sypan.draughts.game.move.Move;
+import sypan.draughts.game.piece.Tile;
+import sypan.draughts.game.player.PlayerType;
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.position.Square;
+
+/**
+ * {@code GameRecord} is a headless copy of a saved game - its move history and
+ * how it ended. Unlike {@link GameReplay}, reading a record does not touch the
+ * client, so records can be read by the offline tools in bulk.<p>
+ *
+ * Moves are stored exactly as {@link Game} saves them - one entry per step, so
+ * a multi-jump is stored as several consecutive moves by the same side.<p>
+ *
+ * Games are saved in the {@link BinaryGameFormat}. Games saved as CSV by older
+ * versions can still be read, but don't record who played or when.
+ *
+ * @author Carl Linley
+ **/
+public class GameRecord {
+
+    private final ArrayList<Move> moveList;
+    private final String filePath;
+
+    private PlayerType blackPlayer, whitePlayer;
+    private long startTime, endTime;
+
+    private int endCode;
+    private Side victor;
+
+    private GameRecord(String filePath) {
+        this.filePath = filePath;
+        moveList = new ArrayList<>();
+    }
+
+    /**
+     * @param filePath - the path the game is saved to.
+     * @param blackPlayer - the type of the black player, or {@code null} if
+     * unknown.
+     * @param whitePlayer - the type of the white player, or {@code null} if
+     * unknown.
+     * @param startTime - the time the game started, or 0 if unknown.
+     * @param endTime - the time the game ended, or 0 if unknown.
+     * @param moves - every step played.
+     * @param endCode - how the game ended.
+     * @param victor - the side that won, or {@code null}.
+     **/
+    public GameRecord(String filePath, PlayerType blackPlayer, PlayerType whitePlayer, long startTime, long endTime, List<Move> moves, int endCode, Side victor) {
+        this(filePath);
+
+        this.blackPlayer = blackPlayer;
+        this.whitePlayer = whitePlayer;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.endCode = endCode;
+        this.victor = victor;
+        moveList.addAll(moves);
+    }
+
+    /**
+     * Reads a game saved by {@link Game}, in either format.
+     *
+     * @param filePath - the path of the saved game.
+     * @return the game's record, or {@code null} if the save is missing or
+     * corrupted.
+     **/
+    public static GameRecord read(String filePath) {
+        if (filePath.endsWith(BinaryGameFormat.EXTENSION)) {
+            try {
+                return BinaryGameFormat.decode(ByteBuffer.wrap(Files.readAllBytes(Paths.get(filePath))), filePath);
+            }
+            catch (IOException e) {
+                return null;
+            }
+        }
+        GameRecord record = new GameRecord(filePath);
+        String readLine;
+        String[] move;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(new File(filePath)))) {
+            while (!(readLine = reader.readLine()).startsWith("ENDGAME")) {
+                move = readLine.split(", ");
+
+                if (Integer.parseInt(move[0]) == 0) {
+                    Tile origin = Tile.parseTile(move[3]), destination = Tile.parseTile(move[4]);
+
+                    if (origin == null || destination == null || Square.index(origin) == -1 || Square.index(destination) == -1) {
+                        return null;
+                    }
+                    record.moveList.add(new Move(move[2].equals("B") ? Side.BLACK : Side.WHITE, origin, destination));
+                }
+            }
+            String[] endLine = readLine.split(", ");
+
+            record.endCode = Integer.parseInt(endLine[1]);
+            record.victor = (endLine[2].equals("B") ? Side.BLACK : Side.WHITE);
+            return record;
+        }
+        catch (IOException | NullPointerException | NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Saves this game in the {@link BinaryGameFormat}. The game is written to
+     * a temporary file first and then moved into place, so a crash part way
+     * through never leaves a broken save behind.
+     *
+     * @throws IOException if the file cannot be written.
+     **/
+    public void write() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BinaryGameFormat.getEncodedSize(this));
+        Path path = Paths.get(filePath), tempPath = Paths.get(filePath + ".tmp");
+
+        BinaryGameFormat.encode(this, buffer);
+        Files.write(tempPath, buffer.array());
+
+        try {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param filePath - the path to check.
+     * @return true if the specified file is a saved game, in either format.
+     **/
+    public static boolean isSavedGame(String filePath) {
+        return filePath.endsWith(BinaryGameFormat.EXTENSION) || filePath.endsWith(".csv");
+    }
+
+    /**
+     * @param directory - the directory to search, usually {@code history}.
+     * @return the path of every saved game in the specified directory.
+     * @throws IOException if the directory cannot be read.
+     **/
+    public static ArrayList<String> findSavedGames(String directory) throws IOException {
+        ArrayList<String> savedGames = new ArrayList<>();
+
+        if (new File(directory).exists()) {
+            Files.walk(Paths.get(directory)).forEach(filePath -> {
+                if (isSavedGame(filePath.toString())) {
+                    savedGames.add(filePath.toString());
+                }
+            });
+        }
+        return savedGames;
+    }
+
+    /**
+     * Replays this game headlessly from the initial position. The visitor is
+     * called at the start of every turn with the position as it stands (the
+     * side to move set) and the first step of the move played from it.<p>
+     *
+     * The same instance of {@code Position} is passed every time and is
+     * modified as the game goes on - copy it if it needs keeping.
+     *
+     * @param turnVisitor - called at the start of every turn.
+     **/
+    public void replay(BiConsumer<Position, Move> turnVisitor) {
+        Position position = Position.initial();
+        Side lastSide = null;
+
+        for (Move m : moveList) {
+            if (m.getSide() != lastSide) {
+                position.setSideToMove(m.getSide());
+                turnVisitor.accept(position, m);
+                lastSide = m.getSide();
+            }
+            position.applyStep(Square.index(m.getOrigin()), Square.index(m.getDestination()));
+        }
+    }
+
+    /**
+     * @return the result of the game from black's point of view - 1 for a
+     * black win, 0 for a white win, and 0.5 for a draw.
+     **/
+    public float getResult() {
+        if (isDraw()) {
+            return 0.5f;
+        }
+        return (victor == Side.BLACK ? 1 : 0);
+    }
+
+    public boolean isDraw() {
+        return isDraw(endCode);
+    }
+
+    /**
+     * @param endCode - the end code of a game.
+     * @return true if the specified end code is a draw.
+     **/
+    public static boolean isDraw(int endCode) {
+        return endCode == 3 || endCode == 5 || endCode == 6; // Agreed, repetition, no progress
+    }
+
+    /**
+     * @return true if the game finished normally - erroneous endings are not
+     * worth learning from.
+     **/
+    public boolean isComplete() {
+        return endCode > 0;
+    }
+
+    public ArrayList<Move> getMoves() {
+        return moveList;
+    }
+
+    /**
+     * @return the index in {@link #getMoves} of the first step of every turn.
+     **/
+    public ArrayList<Integer> getTurnStarts() {
+        ArrayList<Integer> turnStarts = new ArrayList<>();
+        Side lastSide = null;
+
+        for (int i = 0; i != moveList.size(); i++) {
+            if (moveList.get(i).getSide() != lastSide) {
+                turnStarts.add(i);
+                lastSide = moveList.get(i).getSide();
+            }
+        }
+        return turnStarts;
+    }
+
+    public int getEndCode() {
+        return endCode;
+    }
+
+    public Side getVictor() {
+        return victor;
+    }
+
+    /**
+     * @param side - the side.
+     * @return the type of player that played the specified side, or
+     * {@code null} if unknown.
+     **/
+    public PlayerType getPlayer(Side side) {
+        return (side == Side.BLACK ? blackPlayer : whitePlayer);
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+}
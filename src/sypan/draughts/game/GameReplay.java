@@ -1,45 +1,66 @@
 package sypan.draughts.game;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.Callable;
 
 import sypan.draughts.client.Client;
 import sypan.draughts.client.gui.state.GameReplayState;
+import sypan.draughts.game.annotation.AnnotationFile;
+import sypan.draughts.game.annotation.Judgement;
+import sypan.draughts.game.annotation.MoveAnnotation;
 import sypan.draughts.game.move.Move;
 import sypan.draughts.game.move.MoveType;
 import sypan.draughts.game.piece.Piece;
-import sypan.draughts.game.piece.PieceType;
 import sypan.draughts.game.piece.Tile;
 import sypan.draughts.game.player.PlayerType;
 import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.position.Square;
 import sypan.utility.Logger;
 
+import com.jme3.math.ColorRGBA;
+
 /**
  * {@code GameReplay} is a subclass of {@code Game} created specifically to
- * support the replaying of past games.
+ * support the replaying of past games.<p>
+ *
+ * If the game has been annotated by the replay annotator, each annotated
+ * move is pointed out as it is replayed.<p>
+ *
+ * The replay can also jump straight to any step. A copy of the position is
+ * kept every {@code KEYFRAME_INTERVAL} steps as the game is loaded, so seeking
+ * restores the nearest keyframe before the step and applies at most a few
+ * steps to it, then sets the board up at once without animating anything -
+ * the cost is the same at any point of any game.
  *
  * @author Carl Linley
  *
  */
 public class GameReplay extends Game {
 
+    private final static int KEYFRAME_INTERVAL = 16;
+
     private final ArrayList<Move> moveList;
+    private final ArrayList<Position> keyframes;
+    private List<Integer> turnStarts;
+    private HashMap<Integer, MoveAnnotation> annotations;
     private GameEnd gameEnd;
 
-    private int currentMoveIndex;
+    private volatile int currentMoveIndex;
     private Move currentMove;
 
-    private boolean autoReplaying;
+    private volatile boolean autoReplaying;
 
     public GameReplay(String filePath, Client client) {
         super(client, PlayerType.SPECTATOR, PlayerType.SPECTATOR);
 
         client.setShowHover(false);
         moveList = new ArrayList<>();
+        keyframes = new ArrayList<>();
+        turnStarts = new ArrayList<>();
+        annotations = new HashMap<>();
 
         if (!loadGame(filePath)) {
             super.endGame(-1, null);
@@ -67,18 +88,22 @@ public class GameReplay extends Game {
     @Override
     protected boolean movePiece(MoveType moveType, Piece p, Tile destinationTile) {
         getClient().enqueue(() -> {
-            if (p.getTile().distance(destinationTile) == 1) {
-                getLogicalBoard().movePiece(p.getTile(), destinationTile);
-            }
-            else {
-                getLogicalBoard().jumpPiece(p.getTile(), destinationTile);
-            }
-            checkPromotion(p);
+            applyStep(p, destinationTile);
             return null;
         });
         return true;
     }
 
+    private void applyStep(Piece p, Tile destinationTile) {
+        if (p.getTile().distance(destinationTile) == 1) {
+            getLogicalBoard().movePiece(p.getTile(), destinationTile);
+        }
+        else {
+            getLogicalBoard().jumpPiece(p.getTile(), destinationTile);
+        }
+        checkPromotion(p);
+    }
+
     private void autoReplay() {
         getGUIState().toggleAutoReplay(true);
 
@@ -103,62 +128,159 @@ public class GameReplay extends Game {
         return moveList.get(currentMoveIndex + 1);
     }
 
+    /**
+     * Loads a saved game in either format. The starting layout is always the
+     * same, so it is set up rather than loaded.
+     *
+     * @param filePath - the path of the saved game.
+     * @return true if the game was loaded.
+     **/
     private boolean loadGame(String filePath) {
-        BufferedReader reader = null;
-        String readLine;
-        String[] move;
+        GameRecord record = GameRecord.read(filePath);
 
-        try {
-            reader = new BufferedReader(new FileReader(new File(filePath)));
-            super.getClient().getGraphicalBoard().clearPieces();
+        if (record == null) {
+            return false;
+        }
+        Position position = Position.initial();
 
-            while (!(readLine = reader.readLine()).startsWith("ENDGAME")) {
-                move = readLine.split(", ");
+        setUpPieces(position);
 
-                if (Integer.parseInt(move[0]) == 1) {
-                    // We're parsing an initial move.
-                    super.createPiece(-1, move[2].equals("W") ? PieceType.MAN_WHITE : PieceType.MAN_BLACK, Tile.parseTile(move[3]));
-                }
-                else {
-                    // We're parsing a player-made move.
-                    moveList.add(new Move(Tile.parseTile(move[3]), Tile.parseTile(move[4])));
-                }
+        for (int i = 0; i <= record.getMoves().size(); i++) {
+            if (i % KEYFRAME_INTERVAL == 0) {
+                keyframes.add(position.copy());
             }
-            /* End of the game */
-            String[] endLine = readLine.split(", ");
-            gameEnd = new GameEnd(Integer.parseInt(endLine[1]), (endLine[2].equals("B") ? Side.BLACK : Side.WHITE));
-
-            /* Close reader */
-            Logger.logInfo("Successfully loaded previous game '" + filePath + "'.");
-            reader.close();
-            return true;
-        }
-        catch (IOException | NullPointerException e) {
-            try {
-                if (reader != null) {
-                    reader.close();
-                }
-            } catch (IOException e1) {
+            if (i != record.getMoves().size()) {
+                Move m = record.getMoves().get(i);
+
+                moveList.add(new Move(m.getOrigin(), m.getDestination()));
+                position.applyStep(Square.index(m.getOrigin()), Square.index(m.getDestination()));
             }
-            return false;
         }
+        turnStarts = record.getTurnStarts();
+        gameEnd = new GameEnd(record.getEndCode(), record.getVictor());
+        annotations = AnnotationFile.read(filePath);
+
+        Logger.logInfo("Successfully loaded previous game '" + filePath + "'" + (annotations.isEmpty() ? "" : " with " + annotations.size() + " annotations") + ".");
+        return true;
     }
 
+    /**
+     * Plays the next step of the game, or ends the replay if there are none
+     * left. The step is looked up and played together on the render thread,
+     * so a {@link #seek} queued before it is always applied first.
+     **/
     public void nextMove() {
         if (getClient().isPieceMoving()) {
             return;
         }
 
-        if (currentMoveIndex < moveList.size()) {
+        getClient().enqueue(() -> {
+            if (gameEnded() || getClient().isPieceMoving()) {
+                return null;
+            }
+            if (currentMoveIndex == moveList.size()) {
+                super.endGame(gameEnd.getCode(), gameEnd.getVictor());
+                return null;
+            }
             currentMove = moveList.get(currentMoveIndex);
-            playMove(getLogicalBoard().getPiece(currentMove.getOrigin()), currentMove.getDestination());
+            Piece p = getLogicalBoard().getPiece(currentMove.getOrigin());
+
+            if (p == null) {
+                Logger.logWarning("No piece to replay step " + currentMoveIndex + " with.");
+                return null;
+            }
+            MoveAnnotation annotation = annotations.get(currentMoveIndex);
+
+            if (annotation != null) {
+                notify(annotation.toString(), annotation.getJudgement() == Judgement.BLUNDER ? ColorRGBA.Red : ColorRGBA.Orange, 3000);
+            }
             currentMoveIndex++;
+            applyStep(p, currentMove.getDestination());
+            return null;
+        });
+    }
+
+    /**
+     * Jumps straight to a step of the game, without animating it. Autoplay is
+     * paused, and the step index and the board are changed together on the
+     * render thread.
+     *
+     * @param stepIndex - the index of the next step to be played, from 0 (the
+     * start of the game) to the number of steps (the end).
+     **/
+    public void seek(int stepIndex) {
+        if (gameEnded() || getClient().isPieceMoving()) {
+            return;
         }
-        else {
-            super.endGame(gameEnd.getCode(), gameEnd.getVictor());
+        autoReplaying = false; // Seeking pauses autoplay
+
+        getClient().enqueue(() -> {
+            if (getClient().isPieceMoving()) {
+                return null;
+            }
+            int target = Math.max(0, Math.min(stepIndex, moveList.size()));
+            Position position = keyframes.get(target / KEYFRAME_INTERVAL).copy();
+
+            for (int i = target - target % KEYFRAME_INTERVAL; i != target; i++) {
+                position.applyStep(Square.index(moveList.get(i).getOrigin()), Square.index(moveList.get(i).getDestination()));
+            }
+            currentMoveIndex = target;
+            setUpPieces(position);
+            return null;
+        });
+    }
+
+    /**
+     * Jumps back to the start of the previous turn.
+     **/
+    public void previousTurn() {
+        int target = 0;
+
+        for (int turnStart : turnStarts) {
+            if (turnStart >= currentMoveIndex) {
+                break;
+            }
+            target = turnStart;
+        }
+        seek(target);
+    }
+
+    /**
+     * Jumps to the start of the next turn, without animating the current one.
+     **/
+    public void skipTurn() {
+        for (int turnStart : turnStarts) {
+            if (turnStart > currentMoveIndex) {
+                seek(turnStart);
+                return;
+            }
+        }
+        seek(moveList.size());
+    }
+
+    /**
+     * Replaces every piece on the board with the pieces of a position.
+     *
+     * @param position - the position to set up.
+     **/
+    private void setUpPieces(Position position) {
+        getLogicalBoard().clear();
+
+        for (int square = 0; square != Square.COUNT; square++) {
+            if (!position.isEmpty(square)) {
+                super.createPiece(-1, position.get(square), Square.toTile(square));
+            }
         }
     }
 
+    public int getStepCount() {
+        return moveList.size();
+    }
+
+    public int getCurrentStep() {
+        return currentMoveIndex;
+    }
+
     public void toggleAutoplay() {
         autoReplaying = !autoReplaying;
 
@@ -0,0 +1,244 @@
+package sypan.draughts.game;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import sypan.draughts.game.archive.GameArchive;
+import sypan.draughts.game.move.Move;
+import sypan.draughts.game.player.PlayerType;
+import sypan.utility.Logger;
+
+/**
+ * {@code GameSaver} saves games on a background thread of its own, so the
+ * game never waits on the disk, and keeps a journal of the game in progress
+ * so a game interrupted by a crash can be recovered.<p>
+ *
+ * The journal, {@code JOURNAL_FILE}, is started with each game and a turn's
+ * steps are appended to it (and forced to disk) as each turn ends. It is
+ * deleted once the finished game has been saved. If the client finds a
+ * journal when it starts, the game it holds is saved as an unfinished game
+ * (end code 0) and can be replayed like any other.<p>
+ *
+ * A journal is a header followed by one byte per step, encoded as in the
+ * {@link BinaryGameFormat}:<p>
+ *
+ * {@code magic (4) | version (2) | black player (1) | white player (1) |
+ * start time (8) | file path (2 + length) | steps...}<p>
+ *
+ * Tasks run one at a time in the order they are given, so the journal and the
+ * save never race each other.<p>
+ *
+ * This class cannot be instantiated, it must be used statically.
+ *
+ * @author Carl Linley
+ **/
+public final class GameSaver {
+
+    public final static String JOURNAL_FILE = GameArchive.DIRECTORY + "/current.journal";
+
+    private final static int JOURNAL_MAGIC = 0x44474A4E, // "DGJN"
+                             JOURNAL_VERSION = 1, SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private final static ExecutorService writer = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "Game Saver");
+
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static FileChannel journal;
+
+    private GameSaver() {
+    }
+
+    /**
+     * Starts the journal of a new game, replacing any old one.
+     *
+     * @param filePath - the path the game will be saved to.
+     * @param blackPlayer - the type of the black player.
+     * @param whitePlayer - the type of the white player.
+     * @param startTime - the time the game started.
+     **/
+    public static void startJournal(String filePath, PlayerType blackPlayer, PlayerType whitePlayer, long startTime) {
+        writer.submit(() -> {
+            try {
+                closeJournal();
+                new File(JOURNAL_FILE).getParentFile().mkdirs();
+
+                byte[] path = filePath.getBytes("UTF-8");
+                ByteBuffer header = ByteBuffer.allocate(18 + path.length);
+
+                header.putInt(JOURNAL_MAGIC);
+                header.putShort((short) JOURNAL_VERSION);
+                header.put(BinaryGameFormat.playerByte(blackPlayer));
+                header.put(BinaryGameFormat.playerByte(whitePlayer));
+                header.putLong(startTime);
+                header.putShort((short) path.length);
+                header.put(path);
+                header.flip();
+
+                journal = FileChannel.open(Paths.get(JOURNAL_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                write(header);
+            }
+            catch (IOException e) {
+                Logger.logWarning("Failed to start game journal - this game cannot be recovered if the client closes: " + e + " - " + e.getMessage());
+                journal = null;
+            }
+        });
+    }
+
+    /**
+     * Appends the steps of a turn to the journal.
+     *
+     * @param steps - the steps played this turn.
+     **/
+    public static void journal(List<Move> steps) {
+        ByteBuffer buffer = ByteBuffer.allocate(steps.size());
+
+        for (Move m : steps) {
+            buffer.put(BinaryGameFormat.encodeStep(m));
+        }
+        buffer.flip();
+
+        writer.submit(() -> {
+            if (journal == null) {
+                return;
+            }
+            try {
+                write(buffer);
+            }
+            catch (IOException e) {
+                Logger.logWarning("Failed to write game journal: " + e + " - " + e.getMessage());
+            }
+        });
+    }
+
+    private static void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        journal.force(false);
+    }
+
+    /**
+     * Saves a finished game, adds it to the {@code GameArchive}, and deletes
+     * the journal.
+     *
+     * @param record - the game to save.
+     **/
+    public static void save(GameRecord record) {
+        writer.submit(() -> {
+            if (write(record)) {
+                closeJournal();
+                Files.deleteIfExists(Paths.get(JOURNAL_FILE));
+            }
+            return null;
+        });
+    }
+
+    private static boolean write(GameRecord record) {
+        try {
+            record.write();
+            Logger.logInfo("Saved game. ('" + record.getFilePath() + "')");
+
+            GameArchive archive = GameArchive.getActive();
+
+            archive.index(record.getFilePath());
+            archive.save();
+            return true;
+        }
+        catch (IOException e) {
+            Logger.logSevere("Failed to save game: " + e + " - " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void closeJournal() throws IOException {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+
+    /**
+     * Saves the game left in the journal by a client that closed before the
+     * game finished, if there is one.
+     **/
+    public static void recover() {
+        writer.submit(() -> {
+            File journalFile = new File(JOURNAL_FILE);
+
+            if (!journalFile.exists() || journal != null) {
+                return null;
+            }
+            GameRecord record = readJournal(journalFile);
+
+            if (record == null) {
+                Logger.logWarning("Discarding unreadable game journal. ('" + JOURNAL_FILE + "')");
+            }
+            else if (record.getMoves().isEmpty()) {
+                Logger.logInfo("Discarding journal of an interrupted game with no moves.");
+            }
+            else if (write(record)) {
+                Logger.logInfo("Recovered interrupted game of " + record.getMoves().size() + " steps.");
+            }
+            else {
+                return null; // Keep the journal to try again next time
+            }
+            Files.deleteIfExists(journalFile.toPath());
+            return null;
+        });
+    }
+
+    private static GameRecord readJournal(File journalFile) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journalFile.toPath()));
+
+        try {
+            if (buffer.getInt() != JOURNAL_MAGIC || buffer.getShort() != JOURNAL_VERSION) {
+                return null;
+            }
+            PlayerType blackPlayer = BinaryGameFormat.toPlayer(buffer.get()), whitePlayer = BinaryGameFormat.toPlayer(buffer.get());
+            long startTime = buffer.getLong();
+            byte[] path = new byte[buffer.getShort()];
+
+            buffer.get(path);
+
+            ArrayList<Move> moves = BinaryGameFormat.decodeSteps(buffer, buffer.remaining());
+
+            if (moves == null) {
+                return null;
+            }
+            return new GameRecord(new String(path, "UTF-8"), blackPlayer, whitePlayer, startTime, journalFile.lastModified(), moves, 0, null);
+        }
+        catch (BufferUnderflowException | NegativeArraySizeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Waits for every save to finish. Called as the client closes.
+     **/
+    public static void shutdown() {
+        writer.shutdown();
+
+        try {
+            if (!writer.awaitTermination(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                Logger.logWarning("Gave up waiting for games to finish saving.");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -198,6 +198,7 @@ public class GameSimulation extends Game {
      * @return a heuristic scoring of the entire board as it currently is in this simulation.
      **/
     public int assess(Side side) {
+        EvaluationWeights weights = EvaluationWeights.getActive();
         Side enemy = side.oppose();
 
         int myMen = countPiecesOfType(side.getMan()),
@@ -208,8 +209,8 @@ public class GameSimulation extends Game {
         int piecePositions = 0;
 
         for (Piece p : getAllPieces(side)) {
-            piecePositions += LogicalBoard.getTileValue(p.getTile());
+            piecePositions += weights.getTileValue(p.getTile());
         }
-        return ((myMen - enemyMen) * 4) + ((myKings - enemyKings) * 8) + piecePositions;
+        return ((myMen - enemyMen) * weights.getManValue()) + ((myKings - enemyKings) * weights.getKingValue()) + piecePositions;
     }
 }
\ No newline at end of file
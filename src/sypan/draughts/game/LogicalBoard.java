@@ -18,9 +18,11 @@ public class LogicalBoard implements Cloneable {
      * This constant array contains a 'score' for the every accessible tile, based on how exposed it is.
      *
      * Based on an image found at
-     * <a href="http://ai-depot.com/articles/minimax-explained/3/">http://ai-depot.com/articles/minimax-explained/3/</a>
+     * <a href="http://ai-depot.com/articles/minimax-explained/3/">http://ai-depot.com/articles/minimax-explained/3/</a><p>
+     *
+     * These are only the defaults - see {@link EvaluationWeights}.
      **/
-    private static final int[][] TILE_SCORES
+    static final int[][] TILE_SCORES
     = {{4, 4, 4, 4},
        {4, 3, 3, 3},
        {3, 2, 2, 4},
@@ -39,7 +41,7 @@ public class LogicalBoard implements Cloneable {
     }
 
     public static int getTileValue(Tile tile) {
-        return TILE_SCORES[tile.getY()][(tile.getX() - (tile.getY() % 2 != 0 ? 1 : 0)) / 2];
+        return EvaluationWeights.getActive().getTileValue(tile);
     }
 
     /**
@@ -91,6 +93,23 @@ public class LogicalBoard implements Cloneable {
         setPiece(null, tile, false);
     }
 
+    /**
+     * Removes every piece from the board at once, without any effects.
+     **/
+    public void clear() {
+        if (!isSimulation()) {
+            graphicalBoard.clearPieces();
+        }
+        for (int x = 0; x != 8; x++) {
+            for (int y = 0; y != 8; y++) {
+                if (gameBoard[x][y] != null) {
+                    gameBoard[x][y].destroy();
+                    gameBoard[x][y] = null;
+                }
+            }
+        }
+    }
+
     private void setPiece(Piece p, Tile tile, boolean moveGeom) {
         gameBoard[tile.getX()][tile.getY()] = p;
 
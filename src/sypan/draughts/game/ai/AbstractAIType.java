@@ -42,6 +42,15 @@ public abstract class AbstractAIType implements DraughtsAI {
         movablePieces = game.getMovablePieces(getSide());
     }
 
+    /**
+     * Types play in their own style by default - only the searching AIs use
+     * the book.
+     **/
+    @Override
+    public boolean usesOpeningBook() {
+        return false;
+    }
+
     protected boolean tryMove(Game game, PieceType pieceType, Tile originTile, int moveType) {
         if (moveType < 4 && game.getCurrentTurnType() != TurnType.FREE) {
             testedTile = null;
@@ -42,4 +42,10 @@ public interface DraughtsAI {
      *
      **/
     boolean onDrawOffer(Game currentGame);
+
+    /**
+     * @return true if this type of AI plays a move from the opening book when
+     * there is a good one, rather than calculating its own.
+     **/
+    boolean usesOpeningBook();
 }
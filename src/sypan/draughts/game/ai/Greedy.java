@@ -2,6 +2,7 @@ package sypan.draughts.game.ai;
 
 import java.util.ArrayList;
 
+import sypan.draughts.game.EvaluationWeights;
 import sypan.draughts.game.Game;
 import sypan.draughts.game.GameSimulation;
 import sypan.draughts.game.LogicalBoard;
@@ -52,7 +53,9 @@ public class Greedy extends AbstractAIType {
         if (p != null) {
             endTileScore = LogicalBoard.getTileValue(p.getTile());
         }
-        return ((menTaken - menLost) * 4) + ((kingsLost < 0 ? -kingsLost : kingsLost) * 8) + (kingsTaken * 8) + endTileScore;
+        EvaluationWeights weights = EvaluationWeights.getActive();
+
+        return ((menTaken - menLost) * weights.getManValue()) + ((kingsLost < 0 ? -kingsLost : kingsLost) * weights.getKingValue()) + (kingsTaken * weights.getKingValue()) + endTileScore;
     }
 
     @Override
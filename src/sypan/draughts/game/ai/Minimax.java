@@ -5,11 +5,26 @@ import java.util.ArrayList;
 import sypan.draughts.game.Game;
 import sypan.draughts.game.GameSimulation;
 import sypan.draughts.game.move.Move;
+import sypan.draughts.game.neural.Accumulator;
+import sypan.draughts.game.neural.NeuralNetwork;
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.tablebase.Tablebase;
 
 /**
  * {@code Minimax} uses the recursive min/max search algorithm to pick its next
  * move. It looks three moves ahead.<p>
  *
+ * If a {@link NeuralNetwork} has been trained, it is used to score the
+ * positions at the bottom of the tree. Each node keeps the network's
+ * accumulator, updated from its parent's, so only the changed pieces are
+ * re-accumulated.<p>
+ *
+ * Once few enough pieces are left, the endgame {@link Tablebase} is probed -
+ * at the root, the move with the best perfect result is played without
+ * searching at all, and within the tree, positions found in the tablebase are
+ * scored exactly rather than searched any further.<p>
+ *
  * I don't believe this works as intended, but it works well enough. To be
  * improved if time allows.
  *
@@ -20,15 +35,74 @@ public class Minimax extends AbstractAIType {
     public final static int SEARCH_DEPTH = 3;
 
     private MinimaxTree minimaxTree;
+    private Tablebase tablebase;
 
     @Override
     public Move calculateMove(Game game) {
+        tablebase = Tablebase.getActive();
+
+        Move tablebaseMove = probeTablebase(game);
+
+        if (tablebaseMove != null) {
+            return tablebaseMove;
+        }
         minimaxTree = new MinimaxTree(getPossibleMoves(getSide(), game));
         minimaxTree.sprout(this, game);
 
         return minimaxTree.getBestMove(this);
     }
 
+    /**
+     * @param game - the current game.
+     * @return the move with the best tablebase result, or {@code null} if the
+     * result of any move is not in the tablebase.
+     **/
+    private Move probeTablebase(Game game) {
+        if (tablebase == null || game.countPieces(Side.BLACK) + game.countPieces(Side.WHITE) > tablebase.getMaxPieces()) {
+            return null;
+        }
+        Move bestMove = null;
+        int bestScore = 0;
+
+        for (Move m : getPossibleMoves(getSide(), game)) {
+            int score = scoreFromTablebase(game.simulateMove(m, true));
+
+            if (score == Tablebase.NOT_FOUND) {
+                return null;
+            }
+            if (bestMove == null || score > bestScore) {
+                bestMove = m;
+                bestScore = score;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * @param state - the state to score.
+     * @return the tablebase score of the specified state relative to this AI's
+     * side, or {@code Tablebase.NOT_FOUND}.
+     **/
+    int scoreFromTablebase(GameSimulation state) {
+        if (tablebase == null || state.countPieces(Side.BLACK) + state.countPieces(Side.WHITE) > tablebase.getMaxPieces()) {
+            return Tablebase.NOT_FOUND;
+        }
+        if (state.gameEnded()) {
+            return (state.getWinner() == getSide() ? Tablebase.WIN_SCORE : -Tablebase.WIN_SCORE);
+        }
+        int score = tablebase.probe(Position.of(state.getLogicalBoard(), state.getCurrentTurn()));
+
+        if (score == Tablebase.NOT_FOUND) {
+            return score;
+        }
+        return (state.getCurrentTurn() == getSide() ? score : -score);
+    }
+
+    @Override
+    public boolean usesOpeningBook() {
+        return true;
+    }
+
     @Override
     public boolean onDrawOffer(Game currentGame) {
         // If the AI is losing badly, accept the draw.
@@ -49,8 +123,17 @@ class MinimaxTree {
     }
 
     public void sprout(Minimax m, Game g) {
+        NeuralNetwork network = NeuralNetwork.getActive();
+        Position rootPosition = null;
+        Accumulator rootAccumulator = null;
+
+        if (network != null) {
+            rootPosition = Position.of(g.getLogicalBoard(), g.getCurrentTurn());
+            rootAccumulator = new Accumulator(network);
+            rootAccumulator.refresh(rootPosition);
+        }
         for (MinimaxNode rootNode : rootNodes) {
-            rootNode.search(m, g.simulateMove(rootNode.getMove(), true));
+            rootNode.search(m, g.simulateMove(rootNode.getMove(), true), rootPosition, rootAccumulator);
         }
     }
 
@@ -80,18 +163,37 @@ final class MinimaxNode {
 
     private GameSimulation gameState;
 
+    private Position position;
+    private Accumulator accumulator;
+    private int tablebaseScore = Tablebase.NOT_FOUND;
+
     protected MinimaxNode(MinimaxNode parentNode, Move thisMove, Minimax ai, GameSimulation currentState, SearchType searchType) {
         this.thisMove = thisMove;
         this.nodeDepth = parentNode.getDepth() + 1;
         this.searchType = searchType;
 
-        search(ai, currentState);
+        search(ai, currentState, parentNode.position, parentNode.accumulator);
     }
 
-    protected void search(Minimax ai, GameSimulation currentState) {
+    /**
+     * @param ai - the AI searching.
+     * @param currentState - the state of the game after this node's move.
+     * @param parentPosition - the parent's position, or {@code null} if no
+     * neural network is in use.
+     * @param parentAccumulator - the parent's accumulator, or {@code null} if
+     * no neural network is in use.
+     **/
+    protected void search(Minimax ai, GameSimulation currentState, Position parentPosition, Accumulator parentAccumulator) {
         gameState = currentState;
 
-        if (nodeDepth == Minimax.SEARCH_DEPTH) {
+        if (parentAccumulator != null) {
+            position = Position.of(currentState.getLogicalBoard(), currentState.getCurrentTurn());
+            accumulator = parentAccumulator.copy();
+            accumulator.update(parentPosition, position);
+        }
+        tablebaseScore = ai.scoreFromTablebase(currentState);
+
+        if (nodeDepth == Minimax.SEARCH_DEPTH || tablebaseScore != Tablebase.NOT_FOUND) {
             return;
         }
         childNodes = new ArrayList<>();
@@ -113,7 +215,13 @@ final class MinimaxNode {
     }
 
     protected int minMax(Minimax ai) {
+        if (tablebaseScore != Tablebase.NOT_FOUND) {
+            return tablebaseScore;
+        }
         if (childNodes == null) {
+            if (accumulator != null) {
+                return NeuralNetwork.getActive().evaluate(accumulator, ai.getSide());
+            }
             return gameState.assess(ai.getSide());
         }
 
@@ -0,0 +1,417 @@
+package sypan.draughts.game.ai;
+
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import sypan.draughts.game.Game;
+import sypan.draughts.game.GameSimulation;
+import sypan.draughts.game.move.Move;
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.MoveGenerator;
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.position.PositionHistory;
+import sypan.utility.Logger;
+
+/**
+ * {@code MonteCarlo} picks its next move with Monte Carlo tree search. Rather
+ * than scoring positions, it plays thousands of quick games from them and
+ * keeps the moves that win most often:<p>
+ *
+ * - <b>Selection</b> - from the root, the child with the best UCT value (its
+ * win rate plus a bonus for being rarely tried) is followed down to a leaf.
+ * <br>
+ * - <b>Expansion</b> - a leaf that has already been played out once is given
+ * a child for every turn that can be played from it.<br>
+ * - <b>Playout</b> - a game is played out from the leaf, each side picking a
+ * random turn (but always crowning a man when it can).<br>
+ * - <b>Backpropagation</b> - the result is added to every node on the path.
+ * <p>
+ *
+ * The search runs on every available core at once, all sharing one tree. A
+ * thread counts its visit to a node on the way down, before it knows the
+ * result - a "virtual loss" - so the other threads are steered elsewhere
+ * until the result is in.<p>
+ *
+ * Every line searched is added to a copy of the game's
+ * {@link PositionHistory}, so lines that would be drawn by repetition or by
+ * making no progress are scored as draws.<p>
+ *
+ * Playouts use the {@link MoveGenerator} rather than {@code Game}, and nodes
+ * are kept in flat arrays allocated once per move rather than as objects, so
+ * the tree itself creates no garbage as it grows. The playouts still do - the
+ * generator returns a new list of new positions for every turn played.
+ *
+ * @author Carl Linley
+ **/
+public class MonteCarlo extends AbstractAIType {
+
+    public final static int TIME_BUDGET_MS = 2000;
+
+    private final static int NODE_CAPACITY = 1 << 18;
+
+    private float lastWinRate = 0.5f;
+
+    @Override
+    public Move calculateMove(Game game) {
+        ArrayList<Move> possibleMoves = getPossibleMoves(getSide(), game);
+
+        if (possibleMoves.size() < 2) {
+            return (possibleMoves.isEmpty() ? null : possibleMoves.get(0));
+        }
+        MonteCarloTree tree = new MonteCarloTree(NODE_CAPACITY);
+        ArrayList<Position> rootPositions = new ArrayList<>();
+
+        for (Move m : possibleMoves) {
+            GameSimulation state = game.simulateMove(m, true);
+            rootPositions.add(Position.of(state.getLogicalBoard(), state.getCurrentTurn()));
+        }
+        tree.setRoot(Position.of(game.getLogicalBoard(), getSide()), rootPositions);
+        tree.setDrawRules(game.getPositionHistory(), game.getClient().getConfig().getRepetitionLimit(), game.getClient().getConfig().getQuietTurnLimit());
+
+        long start = System.currentTimeMillis();
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        Thread[] searchThreads = new Thread[threadCount];
+
+        for (int i = 0; i != threadCount; i++) {
+            searchThreads[i] = new Thread(() -> tree.search(start + TIME_BUDGET_MS), "MCTS-" + i);
+            searchThreads[i].setDaemon(true);
+            searchThreads[i].start();
+        }
+        for (Thread t : searchThreads) {
+            try {
+                t.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        long searchTime = Math.max(System.currentTimeMillis() - start, 1);
+        int bestChild = tree.getMostVisitedRootChild();
+
+        lastWinRate = tree.getWinRate(bestChild);
+
+        Logger.logInfo("MCTS: " + tree.getPlayoutCount() + " playouts in " + searchTime + "ms ("
+                + (tree.getPlayoutCount() * 1000L / searchTime) + "/s) on " + threadCount + " thread(s), "
+                + tree.getNodeCount() + " nodes, win rate " + Math.round(lastWinRate * 100) + "%.");
+        return possibleMoves.get(bestChild);
+    }
+
+    @Override
+    public boolean usesOpeningBook() {
+        return true;
+    }
+
+    @Override
+    public boolean onDrawOffer(Game currentGame) {
+        // If the AI expected to lose its last move, accept the draw.
+        return lastWinRate < 0.2f;
+    }
+}
+
+/**
+ * The search tree, held in parallel arrays indexed by node. Node 0 is the
+ * root; the children of a node are allocated together, so a node only needs
+ * to know where its first child is and how many it has.<p>
+ *
+ * Wins are counted in half-points (two for a win, one for a draw) for the side
+ * that moved into the node, so every node is scored from the viewpoint of the
+ * parent choosing between it and its siblings. That side is stored with the
+ * node rather than taken from the side to move - a root child made with
+ * {@code Game} also includes any capture the opponent was forced into, so the
+ * same side is to move again.
+ *
+ * @author Carl Linley
+ **/
+final class MonteCarloTree {
+
+    private final static float EXPLORATION = 1.41f;
+
+    private final static int UNEXPANDED = -1, EXPANDING = -2,
+                             PLAYOUT_PLY_LIMIT = 160;
+
+    private final int[] black, white, kings;
+    private final boolean[] whiteToMove, whiteMovedInto;
+    private final int[] childCount;
+
+    private final AtomicIntegerArray firstChild, visits, wins;
+    private final AtomicInteger nodeCount = new AtomicInteger(), playoutCount = new AtomicInteger();
+
+    private PositionHistory gameHistory;
+    private int repetitionLimit = Integer.MAX_VALUE, quietTurnLimit = Integer.MAX_VALUE;
+
+    MonteCarloTree(int capacity) {
+        black = new int[capacity];
+        white = new int[capacity];
+        kings = new int[capacity];
+        whiteToMove = new boolean[capacity];
+        whiteMovedInto = new boolean[capacity];
+        childCount = new int[capacity];
+
+        firstChild = new AtomicIntegerArray(capacity);
+        visits = new AtomicIntegerArray(capacity);
+        wins = new AtomicIntegerArray(capacity);
+    }
+
+    /**
+     * Creates the root and its children, one per legal move. The children
+     * must be in the same order as the moves they were made by.
+     *
+     * @param rootPosition - the position searched from.
+     * @param children - the position after each legal move.
+     **/
+    void setRoot(Position rootPosition, ArrayList<Position> children) {
+        int root = allocate(1 + children.size());
+
+        Side rootSide = rootPosition.getSideToMove();
+
+        store(root, rootPosition, rootSide.oppose());
+        childCount[root] = children.size();
+
+        for (int i = 0; i != children.size(); i++) {
+            store(root + 1 + i, children.get(i), rootSide);
+        }
+        firstChild.set(root, root + 1);
+    }
+
+    /**
+     * @param history - the positions reached so far in the game, ending with
+     * the root position. May be {@code null}.
+     * @param repetitionLimit - the repetitions that draw a game.
+     * @param quietTurnLimit - the turns without progress that draw a game.
+     **/
+    void setDrawRules(PositionHistory history, int repetitionLimit, int quietTurnLimit) {
+        this.gameHistory = history;
+        this.repetitionLimit = repetitionLimit;
+        this.quietTurnLimit = quietTurnLimit;
+    }
+
+    /**
+     * Runs playouts until the deadline. Called by every searching thread at
+     * once.
+     *
+     * @param deadline - the time to stop searching, in milliseconds.
+     **/
+    void search(long deadline) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int[] path = new int[256];
+        PositionHistory line = (gameHistory != null ? gameHistory.copy() : new PositionHistory());
+        int gameLength = line.size();
+
+        do {
+            int depth = 0, node = 0;
+
+            visits.incrementAndGet(node);
+            path[depth++] = node;
+
+            // Selection
+            while (firstChild.get(node) >= 0 && depth != path.length) {
+                node = selectChild(node);
+                visits.incrementAndGet(node); // Virtual loss until the result is in
+                path[depth++] = node;
+            }
+
+            // Expansion
+            if (visits.get(node) > 1 && depth != path.length && expand(node)) {
+                node = selectChild(node);
+                visits.incrementAndGet(node);
+                path[depth++] = node;
+            }
+
+            // Follow the path in the history, then play out unless it's drawn
+            Position position = load(0);
+            boolean drawn = false;
+
+            for (int i = 1; i != depth && !drawn; i++) {
+                Position next = load(path[i]);
+
+                line.push(position, next);
+                drawn = isDrawn(line);
+                position = next;
+            }
+            Side winner = (drawn ? null : playout(position, line, random));
+
+            while (line.size() > gameLength) {
+                line.pop();
+            }
+
+            // Backpropagation
+            for (int i = 0; i != depth; i++) {
+                Side movedInto = (whiteMovedInto[path[i]] ? Side.WHITE : Side.BLACK);
+
+                if (winner == null) {
+                    wins.addAndGet(path[i], 1);
+                }
+                else if (winner == movedInto) {
+                    wins.addAndGet(path[i], 2);
+                }
+            }
+            playoutCount.incrementAndGet();
+        }
+        while (System.currentTimeMillis() < deadline);
+    }
+
+    private int selectChild(int node) {
+        int first = firstChild.get(node), bestChild = first;
+        double logVisits = Math.log(Math.max(visits.get(node), 1)), bestValue = Double.NEGATIVE_INFINITY;
+
+        for (int child = first; child != first + childCount[node]; child++) {
+            int childVisits = visits.get(child);
+
+            if (childVisits == 0) {
+                return child;
+            }
+            double value = wins.get(child) / (2.0 * childVisits) + EXPLORATION * Math.sqrt(logVisits / childVisits);
+
+            if (value > bestValue) {
+                bestValue = value;
+                bestChild = child;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * Gives the specified leaf a child for every turn that can be played from
+     * it. Only one thread expands a node - any other arriving meanwhile plays
+     * out from the leaf instead.
+     *
+     * @return true if the node was expanded by this call.
+     **/
+    private boolean expand(int node) {
+        if (!firstChild.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+            return false;
+        }
+        Position position = load(node);
+        ArrayList<Position> successors = MoveGenerator.generate(position);
+        int first = (successors.isEmpty() ? -1 : allocate(successors.size()));
+
+        if (first == -1) {
+            // Either the game is over here, or the tree is full
+            firstChild.set(node, UNEXPANDED);
+            return false;
+        }
+        for (int i = 0; i != successors.size(); i++) {
+            store(first + i, successors.get(i), position.getSideToMove());
+        }
+        childCount[node] = successors.size();
+        firstChild.set(node, first); // Publishes the children to the other threads
+        return true;
+    }
+
+    /**
+     * Plays a game out from the specified node. A man that can be crowned
+     * always is - otherwise turns are picked at random. Games still going at
+     * the ply limit are given to the side with more material.
+     *
+     * @param position - the position to play out from.
+     * @param line - the history of the line so far, which is added to.
+     * @param random - the searching thread's random number generator.
+     * @return the winner, or {@code null} for a draw.
+     **/
+    private Side playout(Position position, PositionHistory line, ThreadLocalRandom random) {
+        for (int ply = 0; ply != PLAYOUT_PLY_LIMIT; ply++) {
+            ArrayList<Position> successors = MoveGenerator.generate(position);
+
+            if (successors.isEmpty()) {
+                return position.getSideToMove().oppose();
+            }
+            Side side = position.getSideToMove();
+            int kingCount = position.countKings(side);
+            Position next = null;
+
+            for (Position p : successors) {
+                if (p.countKings(side) > kingCount) {
+                    next = p;
+                    break;
+                }
+            }
+            next = (next != null ? next : successors.get(random.nextInt(successors.size())));
+            line.push(position, next);
+            position = next;
+
+            if (isDrawn(line)) {
+                return null;
+            }
+        }
+        int material = materialOf(position, Side.BLACK) - materialOf(position, Side.WHITE);
+
+        return (material > 0 ? Side.BLACK : material < 0 ? Side.WHITE : null);
+    }
+
+    private boolean isDrawn(PositionHistory line) {
+        return line.getRepetitions() >= repetitionLimit || line.getQuietTurns() >= quietTurnLimit;
+    }
+
+    private static int materialOf(Position position, Side side) {
+        return position.countMen(side) + position.countKings(side) * 2;
+    }
+
+    /**
+     * @return the index of the first of the specified number of new nodes, or
+     * -1 if the tree is full.
+     **/
+    private int allocate(int count) {
+        int first = nodeCount.getAndAdd(count);
+
+        if (first + count > black.length) {
+            return -1;
+        }
+        for (int i = first; i != first + count; i++) {
+            firstChild.set(i, UNEXPANDED);
+        }
+        return first;
+    }
+
+    /**
+     * @param node - the node to store the position in.
+     * @param position - the position.
+     * @param movedInto - the side whose turn led to the position.
+     **/
+    private void store(int node, Position position, Side movedInto) {
+        black[node] = position.getBlack();
+        white[node] = position.getWhite();
+        kings[node] = position.getKings();
+        whiteToMove[node] = (position.getSideToMove() == Side.WHITE);
+        whiteMovedInto[node] = (movedInto == Side.WHITE);
+    }
+
+    private Position load(int node) {
+        return new Position(black[node], white[node], kings[node], whiteToMove[node] ? Side.WHITE : Side.BLACK);
+    }
+
+    /**
+     * @return the move index (the root child index) visited the most.
+     **/
+    int getMostVisitedRootChild() {
+        int bestChild = 0;
+
+        for (int i = 1; i != childCount[0]; i++) {
+            if (visits.get(1 + i) > visits.get(1 + bestChild)) {
+                bestChild = i;
+            }
+        }
+        return bestChild;
+    }
+
+    /**
+     * @param rootChild - the move index.
+     * @return how often the specified move won, from 0 to 1.
+     **/
+    float getWinRate(int rootChild) {
+        int childVisits = visits.get(1 + rootChild);
+
+        return (childVisits == 0 ? 0.5f : wins.get(1 + rootChild) / (2f * childVisits));
+    }
+
+    int getPlayoutCount() {
+        return playoutCount.get();
+    }
+
+    int getNodeCount() {
+        return Math.min(nodeCount.get(), black.length);
+    }
+}
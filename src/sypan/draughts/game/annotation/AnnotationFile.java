@@ -0,0 +1,107 @@
+package sypan.draughts.game.annotation;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+
+import sypan.draughts.game.player.Side;
+import sypan.utility.Logger;
+
+/**
+ * {@code AnnotationFile} reads and writes the annotations of a saved game,
+ * kept beside it with the extension {@code .ann}. Each line is one
+ * {@link MoveAnnotation}, written in the same style as the saved game:<p>
+ *
+ * {@code step index, B|W, judgement, score lost, played, best}<p>
+ *
+ * Lines starting with '#' are ignored.
+ *
+ * This class cannot be instantiated, it must be used statically.
+ *
+ * @author Carl Linley
+ **/
+public final class AnnotationFile {
+
+    public final static String EXTENSION = ".ann";
+
+    private AnnotationFile() {
+    }
+
+    /**
+     * @param gamePath - the path of the saved game.
+     * @return the path of the saved game's annotations.
+     **/
+    public static String getPath(String gamePath) {
+        int extension = gamePath.lastIndexOf('.');
+
+        return (extension > gamePath.lastIndexOf(File.separatorChar) ? gamePath.substring(0, extension) : gamePath) + EXTENSION;
+    }
+
+    /**
+     * @param gamePath - the path of the saved game.
+     * @return true if the saved game has been annotated since it was last
+     * changed.
+     **/
+    public static boolean isUpToDate(String gamePath) {
+        File annotations = new File(getPath(gamePath));
+
+        return annotations.exists() && annotations.lastModified() >= new File(gamePath).lastModified();
+    }
+
+    /**
+     * @param gamePath - the path of the saved game.
+     * @param header - a comment to write at the top of the file.
+     * @param annotations - every annotation of the game.
+     * @throws IOException if the file cannot be written.
+     **/
+    public static void write(String gamePath, String header, List<MoveAnnotation> annotations) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(getPath(gamePath)))) {
+            writer.write("# " + header);
+            writer.newLine();
+
+            for (MoveAnnotation a : annotations) {
+                writer.write(a.getStepIndex() + ", " + a.getSide().getID() + ", " + a.getJudgement() + ", "
+                           + a.getScoreLost() + ", " + a.getPlayed() + ", " + a.getBest());
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * @param gamePath - the path of the saved game.
+     * @return the game's annotations by step index - empty if it hasn't been
+     * annotated, or the annotations can't be read.
+     **/
+    public static HashMap<Integer, MoveAnnotation> read(String gamePath) {
+        HashMap<Integer, MoveAnnotation> annotations = new HashMap<>();
+        File file = new File(getPath(gamePath));
+
+        if (!file.exists()) {
+            return annotations;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String readLine;
+
+            while ((readLine = reader.readLine()) != null) {
+                if (readLine.startsWith("#") || readLine.trim().isEmpty()) {
+                    continue;
+                }
+                String[] value = readLine.split(", ");
+                int stepIndex = Integer.parseInt(value[0]);
+
+                annotations.put(stepIndex, new MoveAnnotation(stepIndex, value[1].equals("B") ? Side.BLACK : Side.WHITE,
+                        Judgement.valueOf(value[2]), Integer.parseInt(value[3]), value[4], value[5]));
+            }
+        }
+        catch (IOException | IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            Logger.logWarning("Failed to read annotations of '" + gamePath + "': " + e);
+            annotations.clear();
+        }
+        return annotations;
+    }
+}
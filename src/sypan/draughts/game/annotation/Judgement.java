@@ -0,0 +1,42 @@
+package sypan.draughts.game.annotation;
+
+/**
+ * {@code Judgement} is an enumerated type containing how bad an annotated move
+ * was, by how much it threw away compared to the best move.
+ *
+ * @author Carl Linley
+ **/
+public enum Judgement {
+
+    INACCURACY("?!", 0.5f),  // Lost half a man's worth.
+    MISTAKE("?", 1),         // Lost a man's worth.
+    BLUNDER("??", 2);        // Lost two men's worth - or a won game.
+
+    private final String symbol;
+    private final float menLost;
+
+    Judgement(String symbol, float menLost) {
+        this.symbol = symbol;
+        this.menLost = menLost;
+    }
+
+    /**
+     * @param scoreLost - how much worse the move was than the best move.
+     * @param manScore - the score of a man.
+     * @return the judgement of the move, or {@code null} if it was fine.
+     **/
+    public static Judgement of(int scoreLost, int manScore) {
+        Judgement judgement = null;
+
+        for (Judgement j : values()) {
+            if (scoreLost >= j.menLost * manScore) {
+                judgement = j;
+            }
+        }
+        return judgement;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+}
@@ -0,0 +1,63 @@
+package sypan.draughts.game.annotation;
+
+import sypan.draughts.game.player.Side;
+
+/**
+ * {@code MoveAnnotation} marks a poor turn of a saved game - how poor, how
+ * much the evaluation swung, and what should have been played instead.
+ *
+ * @author Carl Linley
+ **/
+public class MoveAnnotation {
+
+    private final int stepIndex, scoreLost;
+    private final Side side;
+    private final Judgement judgement;
+    private final String played, best;
+
+    /**
+     * @param stepIndex - the index of the turn's first step in the saved game.
+     * @param side - the side that played the turn.
+     * @param judgement - how poor the turn was.
+     * @param scoreLost - the score lost compared to the best move.
+     * @param played - the turn played, such as {@code c3-d4}.
+     * @param best - the best turn found.
+     **/
+    public MoveAnnotation(int stepIndex, Side side, Judgement judgement, int scoreLost, String played, String best) {
+        this.stepIndex = stepIndex;
+        this.side = side;
+        this.judgement = judgement;
+        this.scoreLost = scoreLost;
+        this.played = played;
+        this.best = best;
+    }
+
+    public int getStepIndex() {
+        return stepIndex;
+    }
+
+    public Side getSide() {
+        return side;
+    }
+
+    public Judgement getJudgement() {
+        return judgement;
+    }
+
+    public int getScoreLost() {
+        return scoreLost;
+    }
+
+    public String getPlayed() {
+        return played;
+    }
+
+    public String getBest() {
+        return best;
+    }
+
+    @Override
+    public String toString() {
+        return side.getName() + " played " + played + judgement.getSymbol() + " (-" + scoreLost + ") - " + best + " was best.";
+    }
+}
@@ -0,0 +1,164 @@
+package sypan.draughts.game.archive;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import sypan.draughts.game.GameRecord;
+import sypan.draughts.game.player.PlayerType;
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.Zobrist;
+
+/**
+ * {@code ArchiveEntry} is the summary of a saved game kept in the
+ * {@link GameArchive}'s index - everything a query can ask about, without
+ * opening the game itself.
+ *
+ * @author Carl Linley
+ **/
+public class ArchiveEntry {
+
+    private final String filePath;
+    private final PlayerType blackPlayer, whitePlayer;
+    private final Side victor;
+    private final int endCode, turnCount;
+    private final long date, lastModified;
+
+    /**
+     * The hash of the position at the start of every turn, sorted and without
+     * duplicates.
+     **/
+    private final long[] positionHashes;
+
+    private ArchiveEntry(String filePath, PlayerType blackPlayer, PlayerType whitePlayer, Side victor, int endCode, int turnCount, long date, long lastModified, long[] positionHashes) {
+        this.filePath = filePath;
+        this.blackPlayer = blackPlayer;
+        this.whitePlayer = whitePlayer;
+        this.victor = victor;
+        this.endCode = endCode;
+        this.turnCount = turnCount;
+        this.date = date;
+        this.lastModified = lastModified;
+        this.positionHashes = positionHashes;
+    }
+
+    /**
+     * @param record - the saved game.
+     * @param lastModified - the time the saved game's file was last modified.
+     * @return the summary of the specified game.
+     **/
+    public static ArchiveEntry of(GameRecord record, long lastModified) {
+        long[] hashes = new long[record.getTurnStarts().size()];
+        int[] turn = {0};
+
+        record.replay((position, move) -> hashes[turn[0]++] = Zobrist.hash(position));
+        Arrays.sort(hashes);
+
+        int unique = 0;
+
+        for (int i = 0; i != hashes.length; i++) {
+            if (i == 0 || hashes[i] != hashes[i - 1]) {
+                hashes[unique++] = hashes[i];
+            }
+        }
+        return new ArchiveEntry(record.getFilePath(), record.getPlayer(Side.BLACK), record.getPlayer(Side.WHITE), record.getVictor(),
+                record.getEndCode(), turn[0], record.getStartTime() != 0 ? record.getStartTime() : lastModified,
+                lastModified, Arrays.copyOf(hashes, unique));
+    }
+
+    static ArchiveEntry read(DataInputStream in) throws IOException {
+        String filePath = in.readUTF();
+        PlayerType blackPlayer = toPlayer(in.readByte()), whitePlayer = toPlayer(in.readByte());
+        int victorByte = in.readByte(), endCode = in.readByte(), turnCount = in.readUnsignedShort();
+        long date = in.readLong(), lastModified = in.readLong();
+        long[] positionHashes = new long[in.readUnsignedShort()];
+
+        for (int i = 0; i != positionHashes.length; i++) {
+            positionHashes[i] = in.readLong();
+        }
+        return new ArchiveEntry(filePath, blackPlayer, whitePlayer, victorByte < 0 ? null : Side.get(victorByte), endCode, turnCount, date, lastModified, positionHashes);
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeUTF(filePath);
+        out.writeByte(blackPlayer == null ? -1 : blackPlayer.ordinal());
+        out.writeByte(whitePlayer == null ? -1 : whitePlayer.ordinal());
+        out.writeByte(victor == null ? -1 : victor.ordinal());
+        out.writeByte(endCode);
+        out.writeShort(turnCount);
+        out.writeLong(date);
+        out.writeLong(lastModified);
+        out.writeShort(positionHashes.length);
+
+        for (long hash : positionHashes) {
+            out.writeLong(hash);
+        }
+    }
+
+    private static PlayerType toPlayer(byte playerByte) {
+        return (playerByte < 0 || playerByte >= PlayerType.values().length ? null : PlayerType.values()[playerByte]);
+    }
+
+    /**
+     * @param hash - the hash of a position.
+     * @return true if the position was reached at the start of any turn.
+     **/
+    public boolean reached(long hash) {
+        return Arrays.binarySearch(positionHashes, hash) >= 0;
+    }
+
+    /**
+     * @param playerType - the type of player.
+     * @return the side the specified type of player played, or {@code null}
+     * if it didn't play (black if it played both sides).
+     **/
+    public Side getSideOf(PlayerType playerType) {
+        return (blackPlayer == playerType ? Side.BLACK : whitePlayer == playerType ? Side.WHITE : null);
+    }
+
+    public boolean isDraw() {
+        return GameRecord.isDraw(endCode);
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * @param side - the side.
+     * @return the type of player that played the specified side, or
+     * {@code null} if unknown.
+     **/
+    public PlayerType getPlayer(Side side) {
+        return (side == Side.BLACK ? blackPlayer : whitePlayer);
+    }
+
+    public Side getVictor() {
+        return victor;
+    }
+
+    public int getEndCode() {
+        return endCode;
+    }
+
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * @return the time the game started, or if unknown, the time it was
+     * saved.
+     **/
+    public long getDate() {
+        return date;
+    }
+
+    long getLastModified() {
+        return lastModified;
+    }
+
+    long[] getPositionHashes() {
+        return positionHashes;
+    }
+}
@@ -0,0 +1,250 @@
+package sypan.draughts.game.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import sypan.draughts.game.GameRecord;
+import sypan.utility.Logger;
+
+/**
+ * {@code GameArchive} is an index of every saved game in a directory, so games
+ * can be found by who played them, how they ended, how long they lasted, when
+ * they were played and the positions they reached - see {@link GameQuery} -
+ * without opening any of them.<p>
+ *
+ * The index is kept in memory and saved beside the games in a small binary
+ * file, {@code INDEX_FILE_NAME}. When an archive is opened, only games saved
+ * or changed since the index was last saved are read; games no longer on disk
+ * are dropped.<p>
+ *
+ * A query is a scan of the summaries in memory, which takes a few milliseconds
+ * even over hundreds of thousands of games.
+ *
+ * @author Carl Linley
+ **/
+public class GameArchive {
+
+    public final static String DIRECTORY = "history", INDEX_FILE_NAME = "archive.idx";
+
+    private final static int FILE_MAGIC = 0x44474149, // "DGAI"
+                             VERSION = 1;
+
+    private static GameArchive activeArchive;
+
+    private final String directory;
+    private final ArrayList<ArchiveEntry> entries = new ArrayList<>();
+    private final HashMap<String, ArchiveEntry> entryByPath = new HashMap<>();
+
+    private boolean changed;
+
+    private GameArchive(String directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the archive of the games saved by {@code Game}, opened the first
+     * time it is needed.
+     **/
+    public static synchronized GameArchive getActive() {
+        if (activeArchive == null) {
+            activeArchive = open(DIRECTORY);
+        }
+        return activeArchive;
+    }
+
+    /**
+     * Opens the archive of a directory, bringing its index up to date with the
+     * games in it and saving the index if it changed.
+     *
+     * @param directory - the directory of saved games.
+     * @return the archive.
+     **/
+    public static GameArchive open(String directory) {
+        GameArchive archive = new GameArchive(directory);
+        long startTime = System.currentTimeMillis();
+
+        archive.load();
+        archive.synchronise();
+        archive.save();
+
+        Logger.logInfo("Opened archive of " + archive.size() + " games in " + (System.currentTimeMillis() - startTime) + "ms. ('" + directory + "')");
+        return archive;
+    }
+
+    private File getIndexFile() {
+        return new File(directory, INDEX_FILE_NAME);
+    }
+
+    private void load() {
+        File indexFile = getIndexFile();
+
+        if (!indexFile.exists()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != FILE_MAGIC || in.readShort() != VERSION) {
+                Logger.logWarning("Ignoring archive index of an unknown version. ('" + indexFile + "')");
+                return;
+            }
+            int entryCount = in.readInt();
+
+            entries.ensureCapacity(entryCount);
+
+            for (int i = 0; i != entryCount; i++) {
+                put(ArchiveEntry.read(in));
+            }
+            changed = false;
+        }
+        catch (IOException e) {
+            Logger.logWarning("Failed to read archive index, rebuilding it: " + e + " - " + e.getMessage());
+
+            entries.clear();
+            entryByPath.clear();
+        }
+    }
+
+    /**
+     * Indexes any game saved or changed since the index was saved, and drops
+     * any game no longer on disk.
+     **/
+    private void synchronise() {
+        ArrayList<String> savedGames;
+
+        try {
+            savedGames = GameRecord.findSavedGames(directory);
+        }
+        catch (IOException e) {
+            Logger.logSevere("Failed to search for saved games: " + e + " - " + e.getMessage());
+            return;
+        }
+        HashSet<String> found = new HashSet<>(savedGames);
+
+        if (entries.removeIf(entry -> !found.contains(entry.getFilePath()))) {
+            entryByPath.keySet().retainAll(found);
+            changed = true;
+        }
+
+        for (String filePath : savedGames) {
+            ArchiveEntry entry = entryByPath.get(filePath);
+
+            if (entry == null || entry.getLastModified() != new File(filePath).lastModified()) {
+                index(filePath);
+            }
+        }
+    }
+
+    /**
+     * Adds a game to the index, or updates it if it is already indexed. The
+     * index is not saved until {@link #save} is called.
+     *
+     * @param filePath - the path of the saved game.
+     * @return true if the game could be read.
+     **/
+    public synchronized boolean index(String filePath) {
+        GameRecord record = GameRecord.read(filePath);
+
+        if (record == null) {
+            return false;
+        }
+        remove(filePath);
+        put(ArchiveEntry.of(record, new File(filePath).lastModified()));
+        return true;
+    }
+
+    /**
+     * Removes a game from the index. The index is not saved until
+     * {@link #save} is called.
+     *
+     * @param filePath - the path of the saved game.
+     **/
+    public synchronized void remove(String filePath) {
+        ArchiveEntry entry = entryByPath.remove(filePath);
+
+        if (entry != null) {
+            entries.remove(entry);
+            changed = true;
+        }
+    }
+
+    private void put(ArchiveEntry entry) {
+        entries.add(entry);
+        entryByPath.put(entry.getFilePath(), entry);
+        changed = true;
+    }
+
+    /**
+     * Saves the index if it has changed since it was loaded or last saved. It
+     * is written to a temporary file first and then moved over the old index,
+     * so a crash part way through never leaves a broken index behind.
+     **/
+    public synchronized void save() {
+        if (!changed || !new File(directory).exists()) {
+            return;
+        }
+        File indexFile = getIndexFile(), tempFile = new File(directory, INDEX_FILE_NAME + ".tmp");
+
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(FILE_MAGIC);
+                out.writeShort(VERSION);
+                out.writeInt(entries.size());
+
+                for (ArchiveEntry entry : entries) {
+                    entry.write(out);
+                }
+            }
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            changed = false;
+        }
+        catch (IOException e) {
+            Logger.logSevere("Failed to save archive index: " + e + " - " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param query - the query.
+     * @return every game matching the specified query, newest first.
+     **/
+    public synchronized List<ArchiveEntry> query(GameQuery query) {
+        ArrayList<ArchiveEntry> matches = new ArrayList<>();
+
+        for (ArchiveEntry entry : entries) {
+            if (query.test(entry)) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(Comparator.comparingLong(ArchiveEntry::getDate).reversed());
+        return matches;
+    }
+
+    /**
+     * @param filePath - the path of the saved game.
+     * @return the summary of the specified game, or {@code null} if it isn't
+     * indexed.
+     **/
+    public synchronized ArchiveEntry get(String filePath) {
+        return entryByPath.get(filePath);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+}
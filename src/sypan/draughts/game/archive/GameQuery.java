@@ -0,0 +1,125 @@
+package sypan.draughts.game.archive;
+
+import java.util.function.Predicate;
+
+import sypan.draughts.game.player.PlayerType;
+import sypan.draughts.game.player.Side;
+
+/**
+ * {@code GameQuery} selects games from the {@link GameArchive}. A new query
+ * matches every game, and each condition added narrows it further - for
+ * example, every game Minimax lost in more than 60 turns:<p>
+ *
+ * {@code new GameQuery().lostBy(PlayerType.MINMAX).withMinimumTurns(61)}
+ *
+ * @author Carl Linley
+ **/
+public class GameQuery implements Predicate<ArchiveEntry> {
+
+    private Predicate<ArchiveEntry> conditions = entry -> true;
+
+    private GameQuery require(Predicate<ArchiveEntry> condition) {
+        conditions = conditions.and(condition);
+        return this;
+    }
+
+    /**
+     * @param playerType - the type of player.
+     * @return this query, limited to games the specified type of player
+     * played.
+     **/
+    public GameQuery playedBy(PlayerType playerType) {
+        return require(entry -> entry.getSideOf(playerType) != null);
+    }
+
+    /**
+     * @param playerType - the type of player.
+     * @param side - the side.
+     * @return this query, limited to games the specified type of player played
+     * as the specified side.
+     **/
+    public GameQuery playedBy(PlayerType playerType, Side side) {
+        return require(entry -> entry.getPlayer(side) == playerType);
+    }
+
+    /**
+     * @param playerType - the type of player.
+     * @return this query, limited to games the specified type of player won.
+     **/
+    public GameQuery wonBy(PlayerType playerType) {
+        return require(entry -> entry.getVictor() != null && !entry.isDraw() && entry.getPlayer(entry.getVictor()) == playerType);
+    }
+
+    /**
+     * @param playerType - the type of player.
+     * @return this query, limited to games the specified type of player lost.
+     **/
+    public GameQuery lostBy(PlayerType playerType) {
+        return require(entry -> entry.getVictor() != null && !entry.isDraw() && entry.getPlayer(entry.getVictor().oppose()) == playerType);
+    }
+
+    /**
+     * @param victor - the side.
+     * @return this query, limited to games the specified side won.
+     **/
+    public GameQuery wonBy(Side victor) {
+        return require(entry -> entry.getVictor() == victor && !entry.isDraw());
+    }
+
+    /**
+     * @return this query, limited to drawn games.
+     **/
+    public GameQuery drawn() {
+        return require(ArchiveEntry::isDraw);
+    }
+
+    /**
+     * @param endCode - the way the game ended - see {@code Game.endGame}.
+     * @return this query, limited to games that ended the specified way.
+     **/
+    public GameQuery endedBy(int endCode) {
+        return require(entry -> entry.getEndCode() == endCode);
+    }
+
+    /**
+     * @param turnCount - the fewest turns.
+     * @return this query, limited to games lasting at least the specified
+     * number of turns.
+     **/
+    public GameQuery withMinimumTurns(int turnCount) {
+        return require(entry -> entry.getTurnCount() >= turnCount);
+    }
+
+    /**
+     * @param turnCount - the most turns.
+     * @return this query, limited to games lasting at most the specified
+     * number of turns.
+     **/
+    public GameQuery withMaximumTurns(int turnCount) {
+        return require(entry -> entry.getTurnCount() <= turnCount);
+    }
+
+    /**
+     * @param from - the earliest time, in milliseconds since the epoch.
+     * @param to - the latest time, in milliseconds since the epoch.
+     * @return this query, limited to games started between the specified
+     * times, inclusive.
+     **/
+    public GameQuery between(long from, long to) {
+        return require(entry -> entry.getDate() >= from && entry.getDate() <= to);
+    }
+
+    /**
+     * @param hash - the {@code Zobrist} hash of a position.
+     * @return this query, limited to games that reached the specified
+     * position at the start of a turn.
+     **/
+    public GameQuery reached(long hash) {
+        return require(entry -> entry.reached(hash));
+    }
+
+    @Override
+    public boolean test(ArchiveEntry entry) {
+        return conditions.test(entry);
+    }
+}
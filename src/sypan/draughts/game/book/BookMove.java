@@ -0,0 +1,101 @@
+package sypan.draughts.game.book;
+
+/**
+ * {@code BookMove} is a single entry of the {@link OpeningBook} - a move played
+ * from a position, and how the games it was played in turned out for the side
+ * that played it.<p>
+ *
+ * Moves are stored as the squares of the first step only, as that is all the
+ * AI needs to play - any further jumps are played by the game itself.
+ *
+ * @author Carl Linley
+ **/
+public class BookMove implements Comparable<BookMove> {
+
+    private final long positionHash;
+    private final int origin, destination;
+
+    private int wins, draws, losses;
+
+    public BookMove(long positionHash, int origin, int destination, int wins, int draws, int losses) {
+        this.positionHash = positionHash;
+        this.origin = origin;
+        this.destination = destination;
+        this.wins = wins;
+        this.draws = draws;
+        this.losses = losses;
+    }
+
+    /**
+     * Records the result of another game this move was played in.
+     *
+     * @param result - the result for the side that played the move - 1 for a
+     * win, 0.5 for a draw, 0 for a loss.
+     **/
+    public void addResult(float result) {
+        if (result == 1) {
+            wins++;
+        }
+        else if (result == 0) {
+            losses++;
+        }
+        else {
+            draws++;
+        }
+    }
+
+    /**
+     * @return the average result of this move for the side that played it.
+     **/
+    public float getScore() {
+        return (wins + draws * 0.5f) / getGames();
+    }
+
+    /**
+     * Orders moves as they are stored in the book - by position hash, then by
+     * move.
+     **/
+    @Override
+    public int compareTo(BookMove other) {
+        if (positionHash != other.positionHash) {
+            return Long.compare(positionHash, other.positionHash);
+        }
+        if (origin != other.origin) {
+            return Integer.compare(origin, other.origin);
+        }
+        return Integer.compare(destination, other.destination);
+    }
+
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    public int getOrigin() {
+        return origin;
+    }
+
+    public int getDestination() {
+        return destination;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getLosses() {
+        return losses;
+    }
+
+    public int getGames() {
+        return wins + draws + losses;
+    }
+
+    @Override
+    public String toString() {
+        return origin + "-" + destination + " (+" + wins + " =" + draws + " -" + losses + ")";
+    }
+}
@@ -0,0 +1,153 @@
+package sypan.draughts.game.book;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.position.Zobrist;
+import sypan.utility.Logger;
+
+/**
+ * {@code OpeningBook} holds the moves played from common positions in past
+ * games, and how well they went.<p>
+ *
+ * The book is a single file of fixed-size entries sorted by {@link Zobrist}
+ * hash, built by the opening book builder tool. It is memory-mapped rather
+ * than read, and probed with a binary search, so opening it is instant and
+ * probing it costs a few dozen reads.
+ *
+ * @author Carl Linley
+ **/
+public class OpeningBook {
+
+    public final static String BOOK_FILE = "opening.book";
+
+    private final static int FILE_MAGIC = 0x44424B31, // "DBK1"
+                             HEADER_SIZE = 8, ENTRY_SIZE = 22;
+
+    private static volatile OpeningBook activeBook;
+    private static volatile boolean loaded;
+
+    private final MappedByteBuffer buffer;
+    private final int entryCount;
+
+    private OpeningBook(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+        entryCount = buffer.getInt(4);
+    }
+
+    /**
+     * @return the book used by the AI, or {@code null} if none has been built.
+     **/
+    public static OpeningBook getActive() {
+        if (!loaded) {
+            synchronized (OpeningBook.class) {
+                if (!loaded) {
+                    activeBook = open(BOOK_FILE);
+                    loaded = true;
+                }
+            }
+        }
+        return activeBook;
+    }
+
+    /**
+     * @param filePath - the book file.
+     * @return the book, or {@code null} if the file does not exist or is not a
+     * book.
+     **/
+    public static OpeningBook open(String filePath) {
+        if (!new File(filePath).exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != FILE_MAGIC
+             || buffer.capacity() != HEADER_SIZE + (long) buffer.getInt(4) * ENTRY_SIZE) {
+                Logger.logWarning("'" + filePath + "' is not a valid opening book - ignoring it.");
+                return null;
+            }
+            OpeningBook book = new OpeningBook(buffer);
+
+            Logger.logInfo("Opened opening book of " + book.size() + " moves. ('" + filePath + "')");
+            return book;
+        }
+        catch (IOException e) {
+            Logger.logWarning("Failed to open opening book: " + e + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a book.
+     *
+     * @param filePath - the path to write to.
+     * @param moves - every move in the book, sorted.
+     * @throws IOException if the book cannot be written.
+     **/
+    public static void save(String filePath, List<BookMove> moves) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(moves.size());
+
+            for (BookMove m : moves) {
+                out.writeLong(m.getPositionHash());
+                out.writeByte(m.getOrigin());
+                out.writeByte(m.getDestination());
+                out.writeInt(m.getWins());
+                out.writeInt(m.getDraws());
+                out.writeInt(m.getLosses());
+            }
+        }
+    }
+
+    /**
+     * @param position - the position to look up.
+     * @return every move played from the specified position, best first - an
+     * empty list if the position is not in the book.
+     **/
+    public ArrayList<BookMove> probe(Position position) {
+        ArrayList<BookMove> moves = new ArrayList<>();
+        long hash = Zobrist.hash(position);
+        int low = 0, high = entryCount;
+
+        // Find the first entry for this position
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (Long.compare(getHash(middle), hash) < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+
+        for (int i = low; i < entryCount && getHash(i) == hash; i++) {
+            int offset = HEADER_SIZE + i * ENTRY_SIZE;
+
+            moves.add(new BookMove(hash, buffer.get(offset + 8), buffer.get(offset + 9),
+                    buffer.getInt(offset + 10), buffer.getInt(offset + 14), buffer.getInt(offset + 18)));
+        }
+        moves.sort((a, b) -> (a.getScore() != b.getScore() ? Float.compare(b.getScore(), a.getScore()) : Integer.compare(b.getGames(), a.getGames())));
+        return moves;
+    }
+
+    private long getHash(int entry) {
+        return buffer.getLong(HEADER_SIZE + entry * ENTRY_SIZE);
+    }
+
+    public int size() {
+        return entryCount;
+    }
+}
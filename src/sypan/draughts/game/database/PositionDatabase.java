@@ -0,0 +1,337 @@
+package sypan.draughts.game.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.position.Zobrist;
+import sypan.utility.Logger;
+
+/**
+ * {@code PositionDatabase} counts every position reached in past games - how
+ * often it was reached, how those games ended, and the moves played from it -
+ * deduplicated by {@link Zobrist} hash. It is built by the position database
+ * builder tool, and can be {@link #open}ed to look up how often a position
+ * was reached and how those games ended.<p>
+ *
+ * The positions are held in an open-addressing hash table (linear probing) of
+ * fixed-size slots, stored off the heap in direct buffers of at most
+ * {@code CHUNK_SLOTS} slots each - tens of millions of positions cost the heap
+ * nothing, and the garbage collector never has to look at them. A slot is:<p>
+ *
+ * {@code hash (8) | occurrences (4) | black wins (4) | draws (4) |
+ * white wins (4) | MOVE_SLOTS * (move (4) | times played (4))}<p>
+ *
+ * Only the first {@code MOVE_SLOTS} different moves played from a position are
+ * counted, which covers all but the most open positions.<p>
+ *
+ * A snapshot on disk is the header followed by the slots exactly as they are
+ * in memory, so saving is a straight copy, and {@link #open} memory-maps it -
+ * opening even a large database is instant. An opened database is read-only.
+ * <p>
+ *
+ * Positions are added by one thread at a time.
+ *
+ * @author Carl Linley
+ **/
+public class PositionDatabase {
+
+    public final static String DATABASE_FILE = "positions.db";
+
+    public final static int MOVE_SLOTS = 5, SLOT_SIZE = 24 + MOVE_SLOTS * 8, CHUNK_SLOTS = 1 << 22;
+
+    private final static int FILE_MAGIC = 0x44504442, // "DPDB"
+                             VERSION = 1, HEADER_SIZE = 24;
+
+    private final static float MAX_LOAD = 0.75f;
+
+    private final boolean readOnly;
+
+    private ByteBuffer[] chunks;
+    private long capacity, size;
+
+    private PositionDatabase(ByteBuffer[] chunks, long capacity, long size, boolean readOnly) {
+        this.chunks = chunks;
+        this.capacity = capacity;
+        this.size = size;
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * @param expectedPositions - roughly how many positions will be added. The
+     * table grows as needed, but growing needs the old and new tables in
+     * memory at once.
+     * @return an empty database.
+     **/
+    public static PositionDatabase create(long expectedPositions) {
+        long capacity = 1024;
+
+        while (capacity * MAX_LOAD < expectedPositions) {
+            capacity <<= 1;
+        }
+        return new PositionDatabase(allocate(capacity), capacity, 0, false);
+    }
+
+    private static ByteBuffer[] allocate(long capacity) {
+        int chunkSlots = (int) Math.min(capacity, CHUNK_SLOTS);
+        ByteBuffer[] chunks = new ByteBuffer[(int) (capacity / chunkSlots)];
+
+        for (int i = 0; i != chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(chunkSlots * SLOT_SIZE);
+        }
+        return chunks;
+    }
+
+    /**
+     * Memory-maps a snapshot, read-only.
+     *
+     * @param filePath - the snapshot file.
+     * @return the database, or {@code null} if the file does not exist or is
+     * not a position database.
+     **/
+    public static PositionDatabase open(String filePath) {
+        if (!new File(filePath).exists()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+            channel.read(header, 0);
+
+            long capacity = header.getLong(8), size = header.getLong(16);
+
+            if (header.getInt(0) != FILE_MAGIC || header.getInt(4) != VERSION || Long.bitCount(capacity) != 1
+             || channel.size() != HEADER_SIZE + capacity * SLOT_SIZE) {
+                Logger.logWarning("'" + filePath + "' is not a valid position database - ignoring it.");
+                return null;
+            }
+            int chunkSlots = (int) Math.min(capacity, CHUNK_SLOTS);
+            ByteBuffer[] chunks = new ByteBuffer[(int) (capacity / chunkSlots)];
+
+            for (int i = 0; i != chunks.length; i++) {
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + (long) i * chunkSlots * SLOT_SIZE, (long) chunkSlots * SLOT_SIZE);
+            }
+            PositionDatabase database = new PositionDatabase(chunks, capacity, size, true);
+
+            Logger.logInfo("Opened position database of " + size + " positions. ('" + filePath + "')");
+            return database;
+        }
+        catch (IOException e) {
+            Logger.logWarning("Failed to open position database: " + e + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the database.
+     *
+     * @param filePath - the path to write to.
+     * @throws IOException if the snapshot cannot be written.
+     **/
+    public void save(String filePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+            header.putInt(FILE_MAGIC).putInt(VERSION).putLong(capacity).putLong(size);
+            writeFully(channel, header);
+
+            for (ByteBuffer chunk : chunks) {
+                writeFully(channel, chunk.duplicate());
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Counts one occurrence of a position.
+     *
+     * @param positionHash - the {@code Zobrist} hash of the position.
+     * @param blackResult - the result of the game from black's point of view,
+     * in half-points (0 for a loss, 1 for a draw, 2 for a win).
+     * @param origin - the square the first step of the move played from the
+     * position starts on, or -1 if none was.
+     * @param destination - the square the first step finishes on.
+     **/
+    public void add(long positionHash, int blackResult, int origin, int destination) {
+        if (readOnly) {
+            throw new IllegalStateException("Cannot add to a position database opened from a snapshot.");
+        }
+        if (size + 1 > capacity * MAX_LOAD) {
+            grow();
+        }
+        long key = toKey(positionHash), slot = findSlot(key);
+        ByteBuffer chunk = getChunk(slot);
+        int offset = getOffset(slot);
+
+        if (chunk.getLong(offset) == 0) {
+            chunk.putLong(offset, key);
+            size++;
+        }
+        increment(chunk, offset + 8);
+        increment(chunk, offset + (blackResult == 2 ? 12 : blackResult == 1 ? 16 : 20));
+
+        if (origin == -1) {
+            return;
+        }
+        int move = toMove(origin, destination);
+
+        for (int i = 0; i != MOVE_SLOTS; i++) {
+            int moveOffset = offset + 24 + i * 8, found = chunk.getInt(moveOffset);
+
+            if (found == move || found == 0) {
+                chunk.putInt(moveOffset, move);
+                increment(chunk, moveOffset + 4);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param position - the position.
+     * @return what is known of the specified position, or {@code null} if it
+     * has never been reached.
+     **/
+    public PositionStats get(Position position) {
+        return get(Zobrist.hash(position));
+    }
+
+    /**
+     * @param positionHash - the {@code Zobrist} hash of the position.
+     * @return what is known of the specified position, or {@code null} if it
+     * has never been reached.
+     **/
+    public PositionStats get(long positionHash) {
+        long slot = findSlot(toKey(positionHash));
+        ByteBuffer chunk = getChunk(slot);
+        int offset = getOffset(slot);
+
+        if (chunk.getLong(offset) == 0) {
+            return null;
+        }
+        int moveCount = 0;
+
+        while (moveCount != MOVE_SLOTS && chunk.getInt(offset + 24 + moveCount * 8) != 0) {
+            moveCount++;
+        }
+        Integer[] order = new Integer[moveCount];
+
+        for (int i = 0; i != moveCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(chunk.getInt(offset + 28 + b * 8), chunk.getInt(offset + 28 + a * 8)));
+
+        int[] origins = new int[moveCount], destinations = new int[moveCount], moveCounts = new int[moveCount];
+
+        for (int i = 0; i != moveCount; i++) {
+            int move = chunk.getInt(offset + 24 + order[i] * 8) - 1;
+
+            origins[i] = move >>> 5;
+            destinations[i] = move & 31;
+            moveCounts[i] = chunk.getInt(offset + 28 + order[i] * 8);
+        }
+        return new PositionStats(positionHash, chunk.getInt(offset + 8), chunk.getInt(offset + 12), chunk.getInt(offset + 16), chunk.getInt(offset + 20),
+                origins, destinations, moveCounts);
+    }
+
+    /**
+     * @return the slot holding the specified key, or the empty slot it would
+     * go in.
+     **/
+    private long findSlot(long key) {
+        long mask = capacity - 1, slot = (key ^ (key >>> 32)) & mask;
+
+        while (true) {
+            long found = getChunk(slot).getLong(getOffset(slot));
+
+            if (found == key || found == 0) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Doubles the capacity of the table, moving every slot into the new one.
+     **/
+    private void grow() {
+        ByteBuffer[] oldChunks = chunks;
+        long oldCapacity = capacity;
+
+        chunks = allocate(capacity << 1);
+        capacity <<= 1;
+
+        int oldChunkSlots = (int) Math.min(oldCapacity, CHUNK_SLOTS);
+
+        for (long oldSlot = 0; oldSlot != oldCapacity; oldSlot++) {
+            ByteBuffer oldChunk = oldChunks[(int) (oldSlot / oldChunkSlots)];
+            int oldOffset = (int) (oldSlot % oldChunkSlots) * SLOT_SIZE;
+            long key = oldChunk.getLong(oldOffset);
+
+            if (key == 0) {
+                continue;
+            }
+            long slot = findSlot(key);
+            ByteBuffer from = oldChunk.duplicate(), to = getChunk(slot).duplicate();
+
+            from.limit(oldOffset + SLOT_SIZE).position(oldOffset);
+            to.position(getOffset(slot));
+            to.put(from);
+        }
+    }
+
+    private ByteBuffer getChunk(long slot) {
+        return chunks[(int) (slot / Math.min(capacity, CHUNK_SLOTS))];
+    }
+
+    private int getOffset(long slot) {
+        return (int) (slot % Math.min(capacity, CHUNK_SLOTS)) * SLOT_SIZE;
+    }
+
+    private static void increment(ByteBuffer chunk, int offset) {
+        chunk.putInt(offset, chunk.getInt(offset) + 1);
+    }
+
+    /**
+     * An empty slot holds 0, so a position hashing to 0 is stored as 1.
+     **/
+    private static long toKey(long positionHash) {
+        return (positionHash == 0 ? 1 : positionHash);
+    }
+
+    /**
+     * A move is stored plus one, so 0 means no move.
+     **/
+    private static int toMove(int origin, int destination) {
+        return ((origin << 5) | destination) + 1;
+    }
+
+    /**
+     * @return the number of different positions.
+     **/
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the number of slots in the table.
+     **/
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+}
@@ -0,0 +1,94 @@
+package sypan.draughts.game.database;
+
+import sypan.draughts.game.player.Side;
+
+/**
+ * {@code PositionStats} is what the {@link PositionDatabase} knows of one
+ * position - how often it was reached, how those games ended, and the moves
+ * most often played from it.
+ *
+ * @author Carl Linley
+ **/
+public class PositionStats {
+
+    private final long positionHash;
+    private final int occurrences, blackWins, draws, whiteWins;
+    private final int[] origins, destinations, moveCounts;
+
+    PositionStats(long positionHash, int occurrences, int blackWins, int draws, int whiteWins, int[] origins, int[] destinations, int[] moveCounts) {
+        this.positionHash = positionHash;
+        this.occurrences = occurrences;
+        this.blackWins = blackWins;
+        this.draws = draws;
+        this.whiteWins = whiteWins;
+        this.origins = origins;
+        this.destinations = destinations;
+        this.moveCounts = moveCounts;
+    }
+
+    /**
+     * @param side - the side.
+     * @return the share of games won by the specified side from this
+     * position, counting draws as half - from 0 to 1.
+     **/
+    public float getScore(Side side) {
+        float wins = (side == Side.BLACK ? blackWins : whiteWins);
+        return (occurrences == 0 ? 0.5f : (wins + draws / 2f) / occurrences);
+    }
+
+    public long getPositionHash() {
+        return positionHash;
+    }
+
+    /**
+     * @return the number of times this position was reached at the start of a
+     * turn.
+     **/
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public int getWins(Side side) {
+        return (side == Side.BLACK ? blackWins : whiteWins);
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    /**
+     * @return the number of moves recorded, most played first.
+     **/
+    public int getMoveCount() {
+        return moveCounts.length;
+    }
+
+    /**
+     * @param index - the index of the move, from 0 (the most played).
+     * @return the square the move's first step starts on.
+     **/
+    public int getMoveOrigin(int index) {
+        return origins[index];
+    }
+
+    /**
+     * @param index - the index of the move, from 0 (the most played).
+     * @return the square the move's first step finishes on.
+     **/
+    public int getMoveDestination(int index) {
+        return destinations[index];
+    }
+
+    /**
+     * @param index - the index of the move, from 0 (the most played).
+     * @return the number of times the move was played from this position.
+     **/
+    public int getMoveFrequency(int index) {
+        return moveCounts[index];
+    }
+
+    @Override
+    public String toString() {
+        return "[" + occurrences + " games: " + blackWins + " black, " + draws + " drawn, " + whiteWins + " white]";
+    }
+}
@@ -0,0 +1,270 @@
+package sypan.draughts.game.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import sypan.draughts.game.BinaryGameFormat;
+import sypan.draughts.game.GameRecord;
+import sypan.utility.Logger;
+
+/**
+ * {@code GameLog} stores games in bulk - far more games than are worth a file
+ * each, for tools which generate or gather games in large numbers. The offline
+ * tools that learn from saved games ({@code PositionCorpus} and
+ * {@code PositionDatabaseBuilder}) read a log alongside the saved games in a
+ * directory. Games are appended to a series of segment files in one
+ * directory, a new segment being started once the current one reaches
+ * {@code SEGMENT_SIZE}.<p>
+ *
+ * Each record is a game in the {@link BinaryGameFormat} preceded by its length
+ * and a CRC-32 of it:<p>
+ *
+ * {@code length (4) | crc (4) | game (length)}<p>
+ *
+ * Records are gathered in a buffer and written in large blocks, and the
+ * segment is forced to disk every {@code SYNC_INTERVAL_MS} while there is
+ * anything new - by {@code append}, or by a background thread once appends
+ * stop - so a crash loses at most the last second or so of games. A record
+ * cut short by a crash fails its CRC; the reader stops there, and the log is
+ * truncated back to the last whole record when it is next opened for
+ * writing.<p>
+ *
+ * A game's place in the log is a single {@code long} - the segment number in
+ * the high 32 bits, and the offset into the segment in the low 32 - which can
+ * be handed to {@link GameLogReader#seek}.<p>
+ *
+ * A log may be written by one thread at a time, and by one process at a time.
+ *
+ * @author Carl Linley
+ **/
+public class GameLog implements AutoCloseable {
+
+    public final static String SEGMENT_PREFIX = "segment-", SEGMENT_EXTENSION = ".log";
+
+    public final static int SEGMENT_SIZE = 64 << 20, RECORD_HEADER_SIZE = 8, SYNC_INTERVAL_MS = 1000;
+
+    private final static int BUFFER_SIZE = 1 << 20;
+
+    private final File directory;
+    private final ByteBuffer buffer;
+    private final CRC32 crc;
+
+    private final ScheduledExecutorService syncer;
+
+    private FileChannel segment;
+    private int segmentNumber;
+    private long segmentSize, lastSyncTime;
+    private boolean unsynced;
+
+    /**
+     * Opens a log for appending, creating the directory if needed.
+     *
+     * @param directory - the directory of the log's segments.
+     * @throws IOException if the log cannot be opened.
+     **/
+    public GameLog(String directory) throws IOException {
+        this.directory = new File(directory);
+
+        if (!this.directory.exists() && !this.directory.mkdirs()) {
+            throw new IOException("Cannot create log directory '" + directory + "'.");
+        }
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        crc = new CRC32();
+
+        int[] segments = findSegments(this.directory);
+
+        openSegment(segments.length == 0 ? 0 : segments[segments.length - 1]);
+        recover();
+        lastSyncTime = System.currentTimeMillis();
+
+        syncer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "Game Log Sync");
+
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncer.scheduleWithFixedDelay(this::syncIfIdle, SYNC_INTERVAL_MS, SYNC_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param directory - the directory to check.
+     * @return true if the specified directory holds a log.
+     **/
+    public static boolean hasSegments(String directory) {
+        return findSegments(new File(directory)).length != 0;
+    }
+
+    /**
+     * @param directory - the directory of a log.
+     * @return the number of every segment in the log, in order.
+     **/
+    static int[] findSegments(File directory) {
+        String[] names = directory.list((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXTENSION));
+
+        if (names == null) {
+            return new int[0];
+        }
+        int[] segments = new int[names.length];
+        int count = 0;
+
+        for (String name : names) {
+            try {
+                segments[count] = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_EXTENSION.length()));
+                count++;
+            }
+            catch (NumberFormatException e) {
+                Logger.logWarning("Ignoring unexpected file in game log. ('" + name + "')");
+            }
+        }
+        segments = Arrays.copyOf(segments, count);
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    /**
+     * @param directory - the directory of a log.
+     * @param segmentNumber - the number of the segment.
+     * @return the file of the specified segment.
+     **/
+    static File getSegmentFile(File directory, int segmentNumber) {
+        return new File(directory, String.format("%s%08d%s", SEGMENT_PREFIX, segmentNumber, SEGMENT_EXTENSION));
+    }
+
+    private void openSegment(int number) throws IOException {
+        segmentNumber = number;
+        segment = FileChannel.open(getSegmentFile(directory, number).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+        segmentSize = segment.size();
+        segment.position(segmentSize);
+    }
+
+    /**
+     * Truncates the last segment back to its last whole record, in case the
+     * log was not closed properly.
+     **/
+    private void recover() throws IOException {
+        long validSize = GameLogReader.scanSegment(segment);
+
+        if (validSize != segmentSize) {
+            Logger.logWarning("Discarding " + (segmentSize - validSize) + " bytes of incomplete records from game log. ('"
+                    + getSegmentFile(directory, segmentNumber) + "')");
+
+            segment.truncate(validSize);
+            segment.force(true);
+            segmentSize = validSize;
+            segment.position(segmentSize);
+        }
+    }
+
+    /**
+     * Appends a game to the log.
+     *
+     * @param record - the game to append.
+     * @return the place of the game in the log.
+     * @throws IOException if the log cannot be written.
+     **/
+    public synchronized long append(GameRecord record) throws IOException {
+        int length = BinaryGameFormat.getEncodedSize(record), recordSize = RECORD_HEADER_SIZE + length;
+
+        if (recordSize > BUFFER_SIZE) {
+            throw new IOException("Game of " + record.getMoves().size() + " steps is too long for the game log.");
+        }
+        if (segmentSize + buffer.position() + recordSize > SEGMENT_SIZE && segmentSize + buffer.position() > 0) {
+            rollSegment();
+        }
+        else if (buffer.remaining() < recordSize) {
+            writeBuffer();
+        }
+        long place = ((long) segmentNumber << 32) | (segmentSize + buffer.position());
+        int start = buffer.position();
+
+        buffer.position(start + RECORD_HEADER_SIZE);
+        BinaryGameFormat.encode(record, buffer);
+
+        ByteBuffer game = buffer.duplicate();
+
+        game.position(start + RECORD_HEADER_SIZE).limit(start + recordSize);
+        crc.reset();
+        crc.update(game);
+
+        buffer.putInt(start, length);
+        buffer.putInt(start + 4, (int) crc.getValue());
+        unsynced = true;
+
+        if (System.currentTimeMillis() - lastSyncTime >= SYNC_INTERVAL_MS) {
+            sync();
+        }
+        return place;
+    }
+
+    private void rollSegment() throws IOException {
+        writeBuffer();
+        segment.force(true);
+        segment.close();
+
+        openSegment(segmentNumber + 1);
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+
+        while (buffer.hasRemaining()) {
+            segmentSize += segment.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Writes every game appended so far and forces them to disk.
+     *
+     * @throws IOException if the log cannot be written.
+     **/
+    public synchronized void sync() throws IOException {
+        writeBuffer();
+        segment.force(false);
+        lastSyncTime = System.currentTimeMillis();
+        unsynced = false;
+    }
+
+    /**
+     * Syncs the log if games have been appended since the last sync, and none
+     * for {@code SYNC_INTERVAL_MS}. Run on the sync thread.
+     **/
+    private synchronized void syncIfIdle() {
+        if (!unsynced || !segment.isOpen() || System.currentTimeMillis() - lastSyncTime < SYNC_INTERVAL_MS) {
+            return;
+        }
+        try {
+            sync();
+        }
+        catch (IOException e) {
+            Logger.logWarning("Failed to sync game log: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Syncs and closes the log.
+     *
+     * @throws IOException if the log cannot be written.
+     **/
+    @Override
+    public synchronized void close() throws IOException {
+        syncer.shutdown();
+
+        if (segment.isOpen()) {
+            sync();
+            segment.close();
+        }
+    }
+
+    public String getDirectory() {
+        return directory.getPath();
+    }
+}
@@ -0,0 +1,204 @@
+package sypan.draughts.game.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+import sypan.draughts.game.BinaryGameFormat;
+import sypan.draughts.game.GameRecord;
+import sypan.utility.Logger;
+
+/**
+ * {@code GameLogReader} streams the games of a {@link GameLog} in the order
+ * they were appended, from the start or from any place returned by
+ * {@link GameLog#append}. Segments are read in large blocks, so a log reads at
+ * about the speed of the disk.<p>
+ *
+ * A log may be read while it is being written - the reader stops at the last
+ * whole record written so far.
+ *
+ * @author Carl Linley
+ **/
+public class GameLogReader implements AutoCloseable {
+
+    private final static int BUFFER_SIZE = 1 << 20;
+
+    private final File directory;
+    private final ByteBuffer buffer;
+    private final CRC32 crc;
+
+    private FileChannel segment;
+    private int segmentNumber;
+
+    /**
+     * The offset into the segment of the start of the buffer.
+     **/
+    private long bufferOffset;
+
+    /**
+     * Opens a log at its first game.
+     *
+     * @param directory - the directory of the log's segments.
+     * @throws IOException if the log cannot be read.
+     **/
+    public GameLogReader(String directory) throws IOException {
+        this.directory = new File(directory);
+
+        buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        crc = new CRC32();
+
+        int[] segments = GameLog.findSegments(this.directory);
+
+        seek((long) (segments.length == 0 ? 0 : segments[0]) << 32);
+    }
+
+    /**
+     * Moves the reader to a place in the log.
+     *
+     * @param place - a place returned by {@link GameLog#append}, or
+     * {@link #getPlace}.
+     * @throws IOException if the log cannot be read.
+     **/
+    public void seek(long place) throws IOException {
+        closeSegment();
+
+        segmentNumber = (int) (place >>> 32);
+        bufferOffset = place & 0xFFFFFFFFL;
+
+        File segmentFile = GameLog.getSegmentFile(directory, segmentNumber);
+
+        if (segmentFile.exists()) {
+            segment = FileChannel.open(segmentFile.toPath(), StandardOpenOption.READ);
+            segment.position(bufferOffset);
+        }
+        buffer.clear().limit(0);
+    }
+
+    /**
+     * @return the next game in the log, or {@code null} if there are no more.
+     * @throws IOException if the log cannot be read.
+     **/
+    public GameRecord next() throws IOException {
+        while (segment != null) {
+            long offset = bufferOffset + buffer.position();
+            int length = (fill(GameLog.RECORD_HEADER_SIZE) ? buffer.getInt(buffer.position()) : -1);
+
+            if (length > 0 && length <= BUFFER_SIZE - GameLog.RECORD_HEADER_SIZE && fill(GameLog.RECORD_HEADER_SIZE + length)) {
+                int start = buffer.position(), checksum = buffer.getInt(start + 4);
+                ByteBuffer game = buffer.duplicate();
+
+                game.position(start + GameLog.RECORD_HEADER_SIZE).limit(start + GameLog.RECORD_HEADER_SIZE + length);
+                crc.reset();
+                crc.update(game.duplicate());
+
+                if ((int) crc.getValue() == checksum) {
+                    GameRecord record = BinaryGameFormat.decode(game, GameLog.getSegmentFile(directory, segmentNumber) + "#" + offset);
+
+                    buffer.position(start + GameLog.RECORD_HEADER_SIZE + length);
+
+                    if (record != null) {
+                        return record;
+                    }
+                    Logger.logWarning("Skipping unreadable game in game log. ('" + GameLog.getSegmentFile(directory, segmentNumber) + "' at " + offset + ")");
+                    continue;
+                }
+            }
+
+            // The end of the segment, or the last record was cut short
+            if (!GameLog.getSegmentFile(directory, segmentNumber + 1).exists()) {
+                return null; // Stay here - the writer may not have finished the record
+            }
+            if (length != -1) {
+                Logger.logWarning("Skipping incomplete record at end of game log segment. ('" + GameLog.getSegmentFile(directory, segmentNumber) + "' at " + offset + ")");
+            }
+            seek((long) (segmentNumber + 1) << 32);
+        }
+        return null;
+    }
+
+    /**
+     * Makes sure the buffer holds at least the specified number of bytes past
+     * its position, reading more of the segment if needed.
+     *
+     * @return false if the segment ends first.
+     **/
+    private boolean fill(int byteCount) throws IOException {
+        if (buffer.remaining() >= byteCount) {
+            return true;
+        }
+        bufferOffset += buffer.position();
+        buffer.compact();
+
+        while (buffer.position() < byteCount) {
+            if (segment.read(buffer) <= 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer.remaining() >= byteCount;
+    }
+
+    /**
+     * @return the place of the next game to be read.
+     **/
+    public long getPlace() {
+        return ((long) segmentNumber << 32) | (bufferOffset + buffer.position());
+    }
+
+    /**
+     * Reads a segment from the start to find where its whole records end.
+     *
+     * @param segment - the segment, which is left positioned where it was.
+     * @return the length of the segment up to the end of its last whole
+     * record.
+     * @throws IOException if the segment cannot be read.
+     **/
+    static long scanSegment(FileChannel segment) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(GameLog.RECORD_HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        long position = segment.position(), offset = 0, size = segment.size();
+
+        try {
+            while (offset + GameLog.RECORD_HEADER_SIZE <= size) {
+                header.clear();
+                segment.read(header, offset);
+
+                int length = header.getInt(0);
+
+                if (length <= 0 || offset + GameLog.RECORD_HEADER_SIZE + length > size) {
+                    break;
+                }
+                ByteBuffer game = ByteBuffer.allocate(length);
+
+                segment.read(game, offset + GameLog.RECORD_HEADER_SIZE);
+                game.flip();
+                crc.reset();
+                crc.update(game);
+
+                if ((int) crc.getValue() != header.getInt(4)) {
+                    break;
+                }
+                offset += GameLog.RECORD_HEADER_SIZE + length;
+            }
+            return offset;
+        }
+        finally {
+            segment.position(position);
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (segment != null) {
+            segment.close();
+            segment = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeSegment();
+    }
+}
@@ -0,0 +1,106 @@
+package sypan.draughts.game.neural;
+
+import sypan.draughts.game.piece.PieceType;
+import sypan.draughts.game.position.Position;
+
+/**
+ * {@code Accumulator} holds the output of a {@link NeuralNetwork}'s first
+ * layer for a single position, before activation.<p>
+ *
+ * As every input is either on or off, the first layer is simply the sum of the
+ * weights of every piece on the board. When a move is made, only the weights
+ * of the pieces that moved, were taken or were crowned need adding or
+ * subtracting - a few dozen additions rather than thousands of
+ * multiplications.
+ *
+ * @author Carl Linley
+ **/
+public class Accumulator {
+
+    private final static PieceType[] PIECE_TYPES = PieceType.values();
+
+    private final NeuralNetwork network;
+    private final float[] values;
+
+    public Accumulator(NeuralNetwork network) {
+        this.network = network;
+        values = new float[NeuralNetwork.HIDDEN_COUNT];
+    }
+
+    private Accumulator(Accumulator toCopy) {
+        network = toCopy.network;
+        values = toCopy.values.clone();
+    }
+
+    public Accumulator copy() {
+        return new Accumulator(this);
+    }
+
+    /**
+     * Recalculates the accumulator from scratch.
+     *
+     * @param position - the position to accumulate.
+     **/
+    public void refresh(Position position) {
+        System.arraycopy(network.getHiddenBias(), 0, values, 0, values.length);
+
+        for (PieceType type : PIECE_TYPES) {
+            addAll(pieceMask(position, type), type, 1);
+        }
+    }
+
+    /**
+     * Updates the accumulator from one position to another by only adding and
+     * removing the pieces that differ.
+     *
+     * @param from - the position this accumulator currently holds.
+     * @param to - the position to update to.
+     **/
+    public void update(Position from, Position to) {
+        for (PieceType type : PIECE_TYPES) {
+            int before = pieceMask(from, type), after = pieceMask(to, type);
+
+            addAll(before & ~after, type, -1);
+            addAll(after & ~before, type, 1);
+        }
+    }
+
+    private void addAll(int squares, PieceType type, float sign) {
+        float[] weights = network.getInputWeights();
+
+        while (squares != 0) {
+            int square = Integer.numberOfTrailingZeros(squares),
+                row = NeuralNetwork.inputIndex(square, type) * NeuralNetwork.HIDDEN_COUNT;
+
+            for (int h = 0; h != NeuralNetwork.HIDDEN_COUNT; h++) {
+                values[h] += sign * weights[row + h];
+            }
+            squares &= squares - 1;
+        }
+    }
+
+    /**
+     * @param position - the position.
+     * @param type - the piece type.
+     * @return a mask of every square holding a piece of the specified type.
+     **/
+    public static int pieceMask(Position position, PieceType type) {
+        switch (type) {
+            case MAN_WHITE:
+                return position.getWhite() & ~position.getKings();
+
+            case KING_WHITE:
+                return position.getWhite() & position.getKings();
+
+            case MAN_BLACK:
+                return position.getBlack() & ~position.getKings();
+
+            default:
+                return position.getBlack() & position.getKings();
+        }
+    }
+
+    public float[] getValues() {
+        return values;
+    }
+}
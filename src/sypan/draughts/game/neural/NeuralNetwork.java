@@ -0,0 +1,268 @@
+package sypan.draughts.game.neural;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import sypan.draughts.game.piece.PieceType;
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.Square;
+import sypan.utility.Logger;
+
+/**
+ * {@code NeuralNetwork} is a small, efficiently updatable neural network used
+ * to evaluate positions in place of {@code GameSimulation.assess}.<p>
+ *
+ * There is one input for every piece type on every square (128 in all). The
+ * first layer is by far the largest, but as a move changes only a handful of
+ * inputs, its output is kept in an {@link Accumulator} and updated rather than
+ * recalculated - evaluating a position only costs the two small layers above
+ * it.<p>
+ *
+ * The network scores positions from black's point of view. Its output is the
+ * logit of black's expected result, so {@code sigmoid(output)} is the
+ * predicted result of the game.
+ *
+ * @author Carl Linley
+ **/
+public final class NeuralNetwork {
+
+    public final static String NETWORK_FILE = "eval.nnue";
+
+    public final static int INPUT_COUNT = Square.COUNT * 4, HIDDEN_COUNT = 64, SECOND_COUNT = 16;
+
+    /**
+     * The output is multiplied by this to give an integer score.
+     **/
+    public final static int SCORE_SCALE = 100;
+
+    private final static int FILE_MAGIC = 0x4E4E5545, FILE_VERSION = 1;
+
+    private static volatile NeuralNetwork activeNetwork;
+    private static volatile boolean loaded;
+
+    private final float[] inputWeights, hiddenBias, secondWeights, secondBias, outputWeights;
+    private float outputBias;
+
+    public NeuralNetwork() {
+        inputWeights = new float[INPUT_COUNT * HIDDEN_COUNT];
+        hiddenBias = new float[HIDDEN_COUNT];
+        secondWeights = new float[SECOND_COUNT * HIDDEN_COUNT];
+        secondBias = new float[SECOND_COUNT];
+        outputWeights = new float[SECOND_COUNT];
+    }
+
+    /**
+     * @param random - the source of the starting weights.
+     * @return a network with small random weights, ready to be trained.
+     **/
+    public static NeuralNetwork randomise(Random random) {
+        NeuralNetwork network = new NeuralNetwork();
+
+        fillRandom(random, network.inputWeights, 0.1f);
+        fillRandom(random, network.secondWeights, (float) Math.sqrt(1.0 / HIDDEN_COUNT));
+        fillRandom(random, network.outputWeights, (float) Math.sqrt(1.0 / SECOND_COUNT));
+        return network;
+    }
+
+    private static void fillRandom(Random random, float[] weights, float range) {
+        for (int i = 0; i != weights.length; i++) {
+            weights[i] = (random.nextFloat() * 2 - 1) * range;
+        }
+    }
+
+    /**
+     * @return the network used by the AI, or {@code null} if no network has
+     * been trained. The network is loaded from {@code NETWORK_FILE} on first
+     * use.
+     **/
+    public static NeuralNetwork getActive() {
+        if (!loaded) {
+            synchronized (NeuralNetwork.class) {
+                if (!loaded) {
+                    activeNetwork = load(NETWORK_FILE);
+                    loaded = true;
+                }
+            }
+        }
+        return activeNetwork;
+    }
+
+    /**
+     * @param filePath - the relative path to the network file.
+     * @return the loaded network, or {@code null} if the file does not exist
+     * or is not a valid network.
+     **/
+    public static NeuralNetwork load(String filePath) {
+        InputStream inputStream = ClassLoader.getSystemClassLoader().getResourceAsStream(filePath);
+
+        try {
+            if (inputStream == null) {
+                File file = new File(filePath);
+
+                if (!file.exists()) {
+                    return null;
+                }
+                inputStream = new FileInputStream(file);
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream))) {
+                if (in.readInt() != FILE_MAGIC || in.readInt() != FILE_VERSION
+                 || in.readInt() != HIDDEN_COUNT || in.readInt() != SECOND_COUNT) {
+                    Logger.logWarning("Network file '" + filePath + "' does not match this version - ignoring it.");
+                    return null;
+                }
+                NeuralNetwork network = new NeuralNetwork();
+
+                readFloats(in, network.inputWeights);
+                readFloats(in, network.hiddenBias);
+                readFloats(in, network.secondWeights);
+                readFloats(in, network.secondBias);
+                readFloats(in, network.outputWeights);
+                network.outputBias = in.readFloat();
+
+                Logger.logInfo("Loaded neural network. ('" + filePath + "')");
+                return network;
+            }
+        }
+        catch (IOException e) {
+            Logger.logWarning("Failed to load neural network: " + e + " - " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void readFloats(DataInputStream in, float[] values) throws IOException {
+        for (int i = 0; i != values.length; i++) {
+            values[i] = in.readFloat();
+        }
+    }
+
+    /**
+     * Writes this network in the format read by {@code load}.
+     *
+     * @param filePath - the path to write to.
+     * @throws IOException if the file cannot be written.
+     **/
+    public void save(String filePath) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeInt(HIDDEN_COUNT);
+            out.writeInt(SECOND_COUNT);
+
+            writeFloats(out, inputWeights);
+            writeFloats(out, hiddenBias);
+            writeFloats(out, secondWeights);
+            writeFloats(out, secondBias);
+            writeFloats(out, outputWeights);
+            out.writeFloat(outputBias);
+        }
+    }
+
+    private static void writeFloats(DataOutputStream out, float[] values) throws IOException {
+        for (float f : values) {
+            out.writeFloat(f);
+        }
+    }
+
+    /**
+     * @param square - the square the piece is on.
+     * @param pieceType - the type of the piece.
+     * @return the index of the input representing the specified piece.
+     **/
+    public static int inputIndex(int square, PieceType pieceType) {
+        return pieceType.ordinal() * Square.COUNT + square;
+    }
+
+    /**
+     * Runs the layers above the accumulator.
+     *
+     * @param accumulator - the accumulator of the position to evaluate.
+     * @return the raw output of the network, from black's point of view.
+     **/
+    public float forward(Accumulator accumulator) {
+        return forward(accumulator.getValues(), new float[HIDDEN_COUNT], new float[SECOND_COUNT]);
+    }
+
+    /**
+     * Runs the layers above the accumulator, keeping the activations of each
+     * layer for training.
+     *
+     * @param accumulated - the accumulated first layer.
+     * @param hidden - filled with the activations of the first layer.
+     * @param second - filled with the activations of the second layer.
+     * @return the raw output of the network, from black's point of view.
+     **/
+    public float forward(float[] accumulated, float[] hidden, float[] second) {
+        for (int h = 0; h != HIDDEN_COUNT; h++) {
+            hidden[h] = clamp(accumulated[h]);
+        }
+
+        float output = outputBias;
+
+        for (int j = 0; j != SECOND_COUNT; j++) {
+            int row = j * HIDDEN_COUNT;
+            float sum = secondBias[j];
+
+            for (int h = 0; h != HIDDEN_COUNT; h++) {
+                sum += secondWeights[row + h] * hidden[h];
+            }
+            second[j] = clamp(sum);
+            output += outputWeights[j] * second[j];
+        }
+        return output;
+    }
+
+    /**
+     * @param accumulator - the accumulator of the position to evaluate.
+     * @param side - the side we're assessing.
+     * @return a heuristic scoring of the position relative to the specified
+     * side.
+     **/
+    public int evaluate(Accumulator accumulator, Side side) {
+        int score = Math.round(forward(accumulator) * SCORE_SCALE);
+
+        return (side == Side.BLACK ? score : -score);
+    }
+
+    /**
+     * Clipped ReLU - keeps activations between 0 and 1.
+     **/
+    static float clamp(float value) {
+        return (value < 0 ? 0 : (value > 1 ? 1 : value));
+    }
+
+    public float[] getInputWeights() {
+        return inputWeights;
+    }
+
+    public float[] getHiddenBias() {
+        return hiddenBias;
+    }
+
+    public float[] getSecondWeights() {
+        return secondWeights;
+    }
+
+    public float[] getSecondBias() {
+        return secondBias;
+    }
+
+    public float[] getOutputWeights() {
+        return outputWeights;
+    }
+
+    public float getOutputBias() {
+        return outputBias;
+    }
+
+    public void setOutputBias(float outputBias) {
+        this.outputBias = outputBias;
+    }
+}
@@ -1,15 +1,15 @@
 package sypan.draughts.game.piece;
 
-import sypan.draughts.client.Client;
+import sypan.draughts.client.PieceMaterials;
 import sypan.draughts.game.player.Side;
 
-import com.jme3.material.Material;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.FastMath;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.queue.RenderQueue.ShadowMode;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
+import com.jme3.scene.instancing.InstancedNode;
 import sypan.utility.Logger;
 
 /**
@@ -25,7 +25,8 @@ public final class Piece {
     private PieceType type;
 
     private Spatial model;
-    private Material pieceMaterial;
+    private PieceMaterials materials;
+    private ColorRGBA colour;
     private Vector3f targetPosition;
 
     private boolean isJumping, isFalling, isClone, isLocked;
@@ -48,7 +49,11 @@ public final class Piece {
     }
 
     public void setColour(ColorRGBA newColour) {
-        pieceMaterial.setColor("Diffuse", newColour);
+        colour = newColour;
+
+        if (model != null) {
+            model.setMaterial(materials.get(newColour));
+        }
     }
 
     public void moveTo(Tile destinationTile) {
@@ -59,7 +64,7 @@ public final class Piece {
     public void setModel(Spatial model) {
         if (this.model != null) {
             model.setLocalTranslation(this.model.getLocalTranslation());
-            model.setMaterial(pieceMaterial);
+            model.setMaterial(materials.get(colour));
 
             if (isBlack()) {
                 model.rotate(0, 180 * FastMath.DEG_TO_RAD, 0);
@@ -68,6 +73,10 @@ public final class Piece {
             Node n = this.model.getParent();
             this.model.removeFromParent();
             n.attachChild(model);
+
+            if (n instanceof InstancedNode) {
+                ((InstancedNode) n).instance();
+            }
         }
         this.model = model;
         model.setShadowMode(ShadowMode.CastAndReceive);
@@ -136,14 +145,14 @@ public final class Piece {
         return !isBlack();
     }
 
-    public Material createMaterial(Client c) {
-        pieceMaterial = new Material(c.getAssetManager(), "Common/MatDefs/Light/Lighting.j3md");
-        pieceMaterial.setColor("Specular", ColorRGBA.White);
-        pieceMaterial.setFloat("Shininess", 128.0f);
-        pieceMaterial.setBoolean("UseMaterialColors", true);
+    /**
+     * Sets the materials this piece is drawn with, and resets its colour.
+     *
+     * @param materials - the shared piece materials.
+     **/
+    public void setMaterials(PieceMaterials materials) {
+        this.materials = materials;
         resetColour();
-
-        return pieceMaterial;
     }
 
     public boolean belongsTo(Side checkSide) {
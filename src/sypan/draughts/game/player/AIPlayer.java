@@ -3,13 +3,22 @@ package sypan.draughts.game.player;
 import java.util.concurrent.Callable;
 
 import sypan.draughts.client.Client;
+import sypan.draughts.client.profile.FrameProfiler.Section;
 import sypan.draughts.game.Game;
 import sypan.draughts.game.ai.Apathy;
 import sypan.draughts.game.ai.DraughtsAI;
 import sypan.draughts.game.ai.Greedy;
 import sypan.draughts.game.ai.Hungry;
 import sypan.draughts.game.ai.Minimax;
+import sypan.draughts.game.ai.MonteCarlo;
+import sypan.draughts.game.book.BookMove;
+import sypan.draughts.game.book.OpeningBook;
 import sypan.draughts.game.move.Move;
+import sypan.draughts.game.move.TurnType;
+import sypan.draughts.game.piece.Piece;
+import sypan.draughts.game.piece.Tile;
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.position.Square;
 import sypan.utility.Logger;
 
 /**
@@ -21,12 +30,20 @@ import sypan.utility.Logger;
  * @see Apathy
  * @see Greedy
  * @see Hungry
+ * @see MonteCarlo
  * @author Carl Linley
  **/
 public class AIPlayer extends Player {
 
     private final static int TURN_WAIT_TIME_MS = 1000;
 
+    /**
+     * A book move is only played if it has been played in at least this many
+     * games, and scored at least this well in them.
+     **/
+    private final static int MIN_BOOK_GAMES = 4;
+    private final static float MIN_BOOK_SCORE = 0.45f;
+
     private final DraughtsAI currentAI;
     private Move nextMove;
 
@@ -63,22 +80,33 @@ public class AIPlayer extends Player {
         if (currentAI instanceof Minimax) {
             return "Minimax";
         }
+        if (currentAI instanceof MonteCarlo) {
+            return "MCTS";
+        }
         return null;
     }
 
     /**
      * Calculates a move for the AI to play and sends said move to <i>game</i>.
+     * If the AI uses the {@link OpeningBook} and the position is in it, the
+     * best legal book move is played without calculating anything.
      *
      * @param currentGame - the current game.
      * @param client - the client.
      **/
     public void playMove(Game currentGame, Client client) {
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
 
         currentAI.updateMovablePieces(currentGame);
 
-        nextMove = currentAI.calculateMove(currentGame);
-        long calculationTime = (System.currentTimeMillis() - start);
+        nextMove = probeOpeningBook(currentGame);
+
+        if (nextMove == null) {
+            nextMove = currentAI.calculateMove(currentGame);
+        }
+        long calculationNanos = System.nanoTime() - start, calculationTime = calculationNanos / 1_000_000;
+
+        client.getFrameProfiler().add(Section.AI, calculationNanos);
 
         Logger.logInfo("AI move: " + nextMove);
 
@@ -91,6 +119,42 @@ public class AIPlayer extends Player {
         });
     }
 
+    /**
+     * @param currentGame - the current game.
+     * @return the best legal move from the opening book that has been played
+     * in at least {@code MIN_BOOK_GAMES} and scored at least
+     * {@code MIN_BOOK_SCORE}, or {@code null} if this AI doesn't use the book,
+     * there is no book, or there is no such move.
+     **/
+    private Move probeOpeningBook(Game currentGame) {
+        OpeningBook book = (currentAI.usesOpeningBook() ? OpeningBook.getActive() : null);
+
+        if (book == null) {
+            return null;
+        }
+
+        for (BookMove bookMove : book.probe(Position.of(currentGame.getLogicalBoard(), getSide()))) {
+            if (bookMove.getGames() < MIN_BOOK_GAMES || bookMove.getScore() < MIN_BOOK_SCORE) {
+                continue;
+            }
+            Tile origin = Square.toTile(bookMove.getOrigin()), destination = Square.toTile(bookMove.getDestination());
+            Piece p = currentGame.getLogicalBoard().getPiece(origin);
+
+            if (p == null || !p.belongsTo(getSide()) || p.isLocked()) {
+                continue;
+            }
+            boolean legal = (Math.abs(destination.getY() - origin.getY()) == 2
+                    ? currentGame.canJump(p.getType(), origin, destination)
+                    : currentGame.getCurrentTurnType() == TurnType.FREE && currentGame.canShift(p.getType(), origin, destination));
+
+            if (legal) {
+                Logger.logInfo("Book move: " + bookMove);
+                return new Move(p, destination);
+            }
+        }
+        return null;
+    }
+
     public boolean onDrawOffer(Game currentGame) {
         currentAI.updateMovablePieces(currentGame);
 
@@ -110,6 +174,8 @@ public class AIPlayer extends Player {
                 return new Hungry();
             case MINMAX:
                 return new Minimax();
+            case MCTS:
+                return new MonteCarlo();
 
             default:
                 return null;
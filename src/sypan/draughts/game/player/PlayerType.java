@@ -14,6 +14,7 @@ public enum PlayerType {
     GREEDY,     // Picks the optimal move it can find at present.
     HUNGRY,     // Sketchy version of GREEDY - picks an adequate move most of the time.
     MINMAX,     // An AI player that uses the min/max algorithm.
+    MCTS,       // Plays out thousands of random games and picks the move that wins most.
 
     SPECTATOR;	//Nobody is playing - each 'player' follows a set script.
 
@@ -0,0 +1,134 @@
+package sypan.draughts.game.position;
+
+import java.util.ArrayList;
+
+import sypan.draughts.game.player.Side;
+
+/**
+ * {@code MoveGenerator} generates every position reachable in a single turn,
+ * following the same rules as {@code Game}:<p>
+ *
+ * - Men move diagonally forward one tile, kings in any diagonal direction.<br>
+ * - If any piece can jump an enemy piece, the side must jump.<br>
+ * - A jump continues for as long as the jumping piece can jump again. Where
+ * there is a choice of jump, every choice is generated.<br>
+ * - A man reaching the far row is crowned at the end of the turn.<p>
+ *
+ * Unlike {@code Game}, no {@code Piece} or {@code Tile} instances are
+ * involved, so the offline tools can use it to search millions of positions.
+ * <p>
+ *
+ * This class cannot be instantiated, it must be used statically.
+ *
+ * @author Carl Linley
+ **/
+public final class MoveGenerator {
+
+    /**
+     * NEIGHBOUR[square][direction] and LANDING[square][direction] hold the
+     * square one and two tiles away in each direction (or -1). Directions 0
+     * and 1 are towards row 7, 2 and 3 towards row 0.
+     **/
+    private final static int[][] NEIGHBOUR = new int[Square.COUNT][4], LANDING = new int[Square.COUNT][4];
+
+    static {
+        for (int square = 0; square != Square.COUNT; square++) {
+            for (int direction = 0; direction != 4; direction++) {
+                int offsetX = (direction % 2 == 0 ? 1 : -1), offsetY = (direction < 2 ? 1 : -1);
+
+                NEIGHBOUR[square][direction] = Square.offset(square, offsetX, offsetY);
+                LANDING[square][direction] = Square.offset(square, offsetX * 2, offsetY * 2);
+            }
+        }
+    }
+
+    private MoveGenerator() {
+    }
+
+    /**
+     * @param position - the position to move from.
+     * @return every position the side to move can reach this turn, with the
+     * other side to move. If the list is empty, the side to move has lost.
+     **/
+    public static ArrayList<Position> generate(Position position) {
+        ArrayList<Position> successors = new ArrayList<>();
+        Side side = position.getSideToMove();
+        int own = position.getPieces(side), enemy = position.getPieces(side.oppose()), kings = position.getKings();
+
+        for (int squares = own; squares != 0; squares &= squares - 1) {
+            int square = Integer.numberOfTrailingZeros(squares);
+
+            addJumps(successors, side, own, enemy, kings, square, (kings & (1 << square)) != 0, false);
+        }
+        if (!successors.isEmpty()) {
+            return successors;
+        }
+
+        int occupied = own | enemy;
+
+        for (int squares = own; squares != 0; squares &= squares - 1) {
+            int square = Integer.numberOfTrailingZeros(squares);
+            boolean isKing = (kings & (1 << square)) != 0;
+
+            for (int direction = 0; direction != 4; direction++) {
+                int destination = NEIGHBOUR[square][direction];
+
+                if (destination == -1 || (occupied & (1 << destination)) != 0 || !canMoveIn(side, isKing, direction)) {
+                    continue;
+                }
+                int newOwn = (own & ~(1 << square)) | (1 << destination),
+                    newKings = (isKing ? (kings & ~(1 << square)) | (1 << destination) : kings);
+
+                successors.add(finish(side, newOwn, enemy, newKings, destination, isKing));
+            }
+        }
+        return successors;
+    }
+
+    /**
+     * @param position - the position to check.
+     * @return true if the side to move has no legal move, and so has lost.
+     **/
+    public static boolean isLost(Position position) {
+        return generate(position).isEmpty();
+    }
+
+    private static void addJumps(ArrayList<Position> successors, Side side, int own, int enemy, int kings, int square, boolean isKing, boolean hasJumped) {
+        boolean jumpedAgain = false;
+
+        for (int direction = 0; direction != 4; direction++) {
+            int jumped = NEIGHBOUR[square][direction], landing = LANDING[square][direction];
+
+            if (landing == -1 || (enemy & (1 << jumped)) == 0 || ((own | enemy) & (1 << landing)) != 0 || !canMoveIn(side, isKing, direction)) {
+                continue;
+            }
+            int newOwn = (own & ~(1 << square)) | (1 << landing),
+                newKings = kings & ~(1 << jumped);
+
+            if (isKing) {
+                newKings = (newKings & ~(1 << square)) | (1 << landing);
+            }
+            jumpedAgain = true;
+            addJumps(successors, side, newOwn, enemy & ~(1 << jumped), newKings, landing, isKing, true);
+        }
+
+        if (hasJumped && !jumpedAgain) {
+            successors.add(finish(side, own, enemy, kings, square, isKing));
+        }
+    }
+
+    private static boolean canMoveIn(Side side, boolean isKing, int direction) {
+        return isKing || (side == Side.BLACK ? direction >= 2 : direction < 2);
+    }
+
+    /**
+     * Ends the turn - crowns the moved piece if it reached the far row, and
+     * passes the move to the other side.
+     **/
+    private static Position finish(Side side, int own, int enemy, int kings, int square, boolean isKing) {
+        if (!isKing && Square.getY(square) == (side == Side.BLACK ? 0 : 7)) {
+            kings |= (1 << square);
+        }
+        return (side == Side.BLACK ? new Position(own, enemy, kings, Side.WHITE) : new Position(enemy, own, kings, Side.BLACK));
+    }
+}
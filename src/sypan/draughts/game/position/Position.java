@@ -0,0 +1,244 @@
+package sypan.draughts.game.position;
+
+import sypan.draughts.game.LogicalBoard;
+import sypan.draughts.game.piece.Piece;
+import sypan.draughts.game.piece.PieceType;
+import sypan.draughts.game.player.Side;
+
+/**
+ * {@code Position} is a compact, headless representation of the board. Each
+ * side's pieces are stored as a 32-bit mask of {@link Square}s, with a third
+ * mask marking which of those pieces are kings.<p>
+ *
+ * Unlike {@link LogicalBoard}, a {@code Position} holds no {@link Piece}
+ * instances or models, so it is cheap enough to store by the million - this is
+ * what the offline tools work with.
+ *
+ * @author Carl Linley
+ **/
+public class Position {
+
+    private int black, white, kings;
+    private Side sideToMove;
+
+    public Position(int black, int white, int kings, Side sideToMove) {
+        this.black = black;
+        this.white = white;
+        this.kings = kings;
+        this.sideToMove = sideToMove;
+    }
+
+    /**
+     * @return the position every game starts from - twelve men each, black to
+     * move.
+     **/
+    public static Position initial() {
+        return new Position(0xFFF00000, 0x00000FFF, 0, Side.BLACK);
+    }
+
+    /**
+     * @param board - the board to convert.
+     * @param sideToMove - the side whose turn it is.
+     * @return a {@code Position} matching the specified board.
+     **/
+    public static Position of(LogicalBoard board, Side sideToMove) {
+        Position position = new Position(0, 0, 0, sideToMove);
+
+        for (Piece[] o : board.getPieces()) {
+            for (Piece p : o) {
+                if (p != null) {
+                    position.set(Square.index(p.getTile()), p.getType());
+                }
+            }
+        }
+        return position;
+    }
+
+    public Position copy() {
+        return new Position(black, white, kings, sideToMove);
+    }
+
+    /**
+     * Places a piece of the specified type on the specified square.
+     *
+     * @param square - the square to place the piece on.
+     * @param pieceType - the type of piece to place.
+     **/
+    public void set(int square, PieceType pieceType) {
+        int bit = 1 << square;
+
+        clear(square);
+
+        if (pieceType.getSide() == Side.BLACK) {
+            black |= bit;
+        }
+        else {
+            white |= bit;
+        }
+        if (pieceType == PieceType.KING_BLACK || pieceType == PieceType.KING_WHITE) {
+            kings |= bit;
+        }
+    }
+
+    public void clear(int square) {
+        int mask = ~(1 << square);
+
+        black &= mask;
+        white &= mask;
+        kings &= mask;
+    }
+
+    /**
+     * @param square - the square to check.
+     * @return the type of the piece on the specified square, or {@code null}
+     * if it is empty.
+     **/
+    public PieceType get(int square) {
+        int bit = 1 << square;
+
+        if ((black & bit) != 0) {
+            return ((kings & bit) != 0 ? PieceType.KING_BLACK : PieceType.MAN_BLACK);
+        }
+        if ((white & bit) != 0) {
+            return ((kings & bit) != 0 ? PieceType.KING_WHITE : PieceType.MAN_WHITE);
+        }
+        return null;
+    }
+
+    public boolean isEmpty(int square) {
+        return square != -1 && ((black | white) & (1 << square)) == 0;
+    }
+
+    /**
+     * Applies a single step of a move - either a shift or one hop of a jump.
+     * Jumped pieces are removed and men reaching the far row are crowned. The
+     * side to move is <b>not</b> changed, as a jump may continue.
+     *
+     * @param origin - the square the piece is moving from.
+     * @param destination - the square the piece is moving to.
+     * @return true if the step was a jump.
+     **/
+    public boolean applyStep(int origin, int destination) {
+        PieceType moving = get(origin);
+        boolean jump = Math.abs(Square.getY(destination) - Square.getY(origin)) == 2;
+
+        if (jump) {
+            clear(Square.index((Square.getX(origin) + Square.getX(destination)) / 2, (Square.getY(origin) + Square.getY(destination)) / 2));
+        }
+        clear(origin);
+
+        if (moving == PieceType.MAN_BLACK && Square.getY(destination) == 0) {
+            moving = PieceType.KING_BLACK;
+        }
+        else if (moving == PieceType.MAN_WHITE && Square.getY(destination) == 7) {
+            moving = PieceType.KING_WHITE;
+        }
+        set(destination, moving);
+        return jump;
+    }
+
+    /**
+     * @param side - the side to check.
+     * @return true if any piece belonging to the specified side can jump an
+     * enemy piece.
+     **/
+    public boolean canCapture(Side side) {
+        int pieces = getPieces(side), enemy = getPieces(side.oppose());
+
+        for (int square = 0; square != Square.COUNT; square++) {
+            if ((pieces & (1 << square)) == 0) {
+                continue;
+            }
+            boolean isKing = (kings & (1 << square)) != 0;
+
+            for (int direction = 0; direction != 4; direction++) {
+                int offsetX = (direction % 2 == 0 ? 1 : -1), offsetY = (direction < 2 ? 1 : -1);
+
+                if (!isKing && offsetY != (side == Side.BLACK ? -1 : 1)) {
+                    continue;
+                }
+
+                int jumped = Square.offset(square, offsetX, offsetY),
+                    landing = Square.offset(square, offsetX * 2, offsetY * 2);
+
+                if (jumped != -1 && landing != -1 && (enemy & (1 << jumped)) != 0 && isEmpty(landing)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public void setSideToMove(Side sideToMove) {
+        this.sideToMove = sideToMove;
+    }
+
+    public Side getSideToMove() {
+        return sideToMove;
+    }
+
+    public int getPieces(Side side) {
+        return (side == Side.BLACK ? black : white);
+    }
+
+    public int getBlack() {
+        return black;
+    }
+
+    public int getWhite() {
+        return white;
+    }
+
+    public int getKings() {
+        return kings;
+    }
+
+    public int countMen(Side side) {
+        return Integer.bitCount(getPieces(side) & ~kings);
+    }
+
+    public int countKings(Side side) {
+        return Integer.bitCount(getPieces(side) & kings);
+    }
+
+    public int countPieces() {
+        return Integer.bitCount(black | white);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Position)) {
+            return false;
+        }
+        Position p = (Position) other;
+
+        return p.black == black && p.white == white && p.kings == kings && p.sideToMove == sideToMove;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((black * 31 + white) * 31 + kings) * 31 + sideToMove.ordinal();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+
+        for (int y = 7; y != -1; y--) {
+            for (int x = 0; x != 8; x++) {
+                int square = Square.index(x, y);
+                PieceType type = (square == -1 ? null : get(square));
+
+                if (type == null) {
+                    builder.append(square == -1 ? ' ' : '.');
+                }
+                else {
+                    char c = (type.getSide() == Side.BLACK ? 'b' : 'w');
+                    builder.append(type == PieceType.KING_BLACK || type == PieceType.KING_WHITE ? Character.toUpperCase(c) : c);
+                }
+            }
+            builder.append('\n');
+        }
+        return builder.append(sideToMove.getName()).append(" to move").toString();
+    }
+}
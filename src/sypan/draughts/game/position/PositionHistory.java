@@ -0,0 +1,120 @@
+package sypan.draughts.game.position;
+
+import java.util.Arrays;
+
+/**
+ * {@code PositionHistory} is a stack of the {@link Zobrist} hashes of every
+ * position reached in a game, used to end games that are going nowhere:<p>
+ *
+ * - <b>Repetition</b> - the same position (with the same side to move) has
+ * been reached a set number of times.<br>
+ * - <b>No progress</b> - a set number of turns have passed without a capture
+ * or a man moving. Only kings shuffling about can't lead anywhere.<p>
+ *
+ * A capture or a man moving can never be undone, so no position before one
+ * can ever be repeated - only the positions since the last such turn are
+ * searched for repetitions.<p>
+ *
+ * Turns can be taken back as well as played, so a search can push the turns
+ * it tries and pop them again on the way back up, and spot repetitions along
+ * the line it is searching.
+ *
+ * @author Carl Linley
+ **/
+public class PositionHistory {
+
+    private long[] hashes;
+
+    /**
+     * quietTurns[n] is the number of turns played before position n since
+     * the last capture or man move.
+     **/
+    private int[] quietTurns;
+    private int size;
+
+    public PositionHistory() {
+        hashes = new long[128];
+        quietTurns = new int[128];
+    }
+
+    /**
+     * @return a copy of this history, so a search can push and pop without
+     * affecting the game's.
+     **/
+    public PositionHistory copy() {
+        PositionHistory copy = new PositionHistory();
+
+        copy.hashes = Arrays.copyOf(hashes, hashes.length);
+        copy.quietTurns = Arrays.copyOf(quietTurns, quietTurns.length);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Adds the position reached by a turn.
+     *
+     * @param hash - the hash of the position.
+     * @param irreversible - true if the turn captured a piece or moved a man.
+     **/
+    public void push(long hash, boolean irreversible) {
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            quietTurns = Arrays.copyOf(quietTurns, size * 2);
+        }
+        hashes[size] = hash;
+        quietTurns[size] = (irreversible || size == 0 ? 0 : quietTurns[size - 1] + 1);
+        size++;
+    }
+
+    /**
+     * Takes back the last position pushed.
+     **/
+    public void pop() {
+        size--;
+    }
+
+    /**
+     * Adds a turn played from one position to another,
+     * working out whether it was irreversible by comparing the two.
+     *
+     * @param previous - the position the turn was played from.
+     * @param position - the position reached.
+     **/
+    public void push(Position previous, Position position) {
+        int men = ~position.getKings() & (position.getBlack() | position.getWhite()),
+            previousMen = ~previous.getKings() & (previous.getBlack() | previous.getWhite());
+
+        push(Zobrist.hash(position), men != previousMen || position.countPieces() != previous.countPieces());
+    }
+
+    /**
+     * @return the number of times the current position has been reached,
+     * including this time - 0 if the history is empty.
+     **/
+    public int getRepetitions() {
+        if (size == 0) {
+            return 0;
+        }
+        long hash = hashes[size - 1];
+        int repetitions = 1, earliest = size - 1 - quietTurns[size - 1];
+
+        // The same side is to move every second turn
+        for (int i = size - 3; i >= earliest; i -= 2) {
+            if (hashes[i] == hash) {
+                repetitions++;
+            }
+        }
+        return repetitions;
+    }
+
+    /**
+     * @return the number of turns played since the last capture or man move.
+     **/
+    public int getQuietTurns() {
+        return (size == 0 ? 0 : quietTurns[size - 1]);
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,76 @@
+package sypan.draughts.game.position;
+
+import sypan.draughts.game.piece.Tile;
+
+/**
+ * {@code Square} converts between board tiles and the 32 playable squares of
+ * the board. Squares are numbered from 0 to 31, four to a row, starting at
+ * row 0 (white's back row).<p>
+ *
+ * Only the dark tiles are ever used in Draughts, so numbering them this way
+ * lets a whole side's pieces fit into a single {@code int}.<p>
+ *
+ * This class cannot be instantiated, it must be used statically.
+ *
+ * @see Position
+ * @author Carl Linley
+ **/
+public final class Square {
+
+    public final static int COUNT = 32;
+
+    private Square() {
+    }
+
+    /**
+     * @param x - the tile's x coordinate.
+     * @param y - the tile's y coordinate.
+     * @return the square index of the specified tile, or -1 if the tile is
+     * off the board or not playable.
+     **/
+    public static int index(int x, int y) {
+        if (x < 0 || y < 0 || x > 7 || y > 7 || (x + y) % 2 == 0) {
+            return -1;
+        }
+        return (y * 4) + (x / 2);
+    }
+
+    public static int index(Tile tile) {
+        return index(tile.getX(), tile.getY());
+    }
+
+    public static int getX(int square) {
+        int y = square / 4;
+
+        return ((square % 4) * 2) + (y % 2 == 0 ? 1 : 0);
+    }
+
+    public static int getY(int square) {
+        return square / 4;
+    }
+
+    public static Tile toTile(int square) {
+        return new Tile(getX(square), getY(square));
+    }
+
+    /**
+     * @param square - the square to offset from.
+     * @param offsetX - the x offset, in tiles.
+     * @param offsetY - the y offset, in tiles.
+     * @return the square at the specified offset, or -1 if it is off the board.
+     **/
+    public static int offset(int square, int offsetX, int offsetY) {
+        return index(getX(square) + offsetX, getY(square) + offsetY);
+    }
+
+    /**
+     * @param square - the square to check.
+     * @return the index of the cell in {@code LogicalBoard}'s tile score table
+     * that the specified square is scored by (row * 4 + column).
+     **/
+    public static int scoreCell(int square) {
+        int x = getX(square), y = getY(square);
+
+        return (y * 4) + ((x - (y % 2 != 0 ? 1 : 0)) / 2);
+    }
+}
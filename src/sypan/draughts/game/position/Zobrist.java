@@ -0,0 +1,71 @@
+package sypan.draughts.game.position;
+
+import java.util.Random;
+
+import sypan.draughts.game.piece.PieceType;
+import sypan.draughts.game.player.Side;
+
+/**
+ * {@code Zobrist} hashes positions to 64-bit keys. Every piece type on every
+ * square is given a random key, and a position's hash is every key of its
+ * pieces XORed together (plus a key if white is to move).<p>
+ *
+ * The keys are generated from a fixed seed, so hashes stay the same between
+ * runs - anything saved by hash (such as the opening book) stays valid.<p>
+ *
+ * This class cannot be instantiated, it must be used statically.
+ *
+ * @author Carl Linley
+ **/
+public final class Zobrist {
+
+    private final static long SEED = 0x5EEDD8A1L;
+
+    private final static long[][] PIECE_KEYS = new long[PieceType.values().length][Square.COUNT];
+    private final static long WHITE_TO_MOVE;
+
+    static {
+        Random random = new Random(SEED);
+
+        for (long[] keys : PIECE_KEYS) {
+            for (int square = 0; square != Square.COUNT; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        WHITE_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param position - the position to hash.
+     * @return the hash of the specified position.
+     **/
+    public static long hash(Position position) {
+        long hash = (position.getSideToMove() == Side.WHITE ? WHITE_TO_MOVE : 0);
+
+        for (int square = 0; square != Square.COUNT; square++) {
+            PieceType type = position.get(square);
+
+            if (type != null) {
+                hash ^= PIECE_KEYS[type.ordinal()][square];
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @param square - the square.
+     * @param pieceType - the piece type.
+     * @return the key of the specified piece on the specified square, for
+     * updating a hash incrementally.
+     **/
+    public static long getPieceKey(int square, PieceType pieceType) {
+        return PIECE_KEYS[pieceType.ordinal()][square];
+    }
+
+    public static long getSideKey() {
+        return WHITE_TO_MOVE;
+    }
+}
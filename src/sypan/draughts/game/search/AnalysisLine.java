@@ -0,0 +1,116 @@
+package sypan.draughts.game.search;
+
+import java.util.List;
+
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.position.Square;
+
+/**
+ * {@code AnalysisLine} is one line found by an analysis - a move, its score,
+ * and the principal variation (the turns the search expects both sides to play
+ * after it).
+ *
+ * @author Carl Linley
+ **/
+public class AnalysisLine {
+
+    private final Position root;
+    private final List<Position> variation;
+    private final int score, depth;
+
+    /**
+     * @param root - the position analysed.
+     * @param variation - the position after each turn of the line, starting
+     * with the move itself.
+     * @param score - the score of the line for the side to move at the root.
+     * @param depth - the depth searched.
+     **/
+    public AnalysisLine(Position root, List<Position> variation, int score, int depth) {
+        this.root = root;
+        this.variation = variation;
+        this.score = score;
+        this.depth = depth;
+    }
+
+    /**
+     * @param from - the position before the turn.
+     * @param to - the position after the turn.
+     * @return the turn in board coordinates, such as {@code c3-d4}, or
+     * {@code c3xe5} for a capture.
+     **/
+    public static String describe(Position from, Position to) {
+        Side side = from.getSideToMove();
+        int before = from.getPieces(side), after = to.getPieces(side),
+            origin = Integer.numberOfTrailingZeros(before & ~after),
+            destination = Integer.numberOfTrailingZeros(after & ~before);
+
+        if (origin == 32) { // A king captured its way back to where it started
+            return "?";
+        }
+        return toName(origin) + (to.countPieces() < from.countPieces() ? "x" : "-") + toName(destination);
+    }
+
+    private static String toName(int square) {
+        return "" + (char) ('a' + Square.getX(square)) + (Square.getY(square) + 1);
+    }
+
+    /**
+     * @return the square the move's piece starts on.
+     **/
+    public int getOrigin() {
+        Side side = root.getSideToMove();
+        return Integer.numberOfTrailingZeros(root.getPieces(side) & ~variation.get(0).getPieces(side));
+    }
+
+    /**
+     * @return the square the move's piece finishes its turn on.
+     **/
+    public int getDestination() {
+        Side side = root.getSideToMove();
+        return Integer.numberOfTrailingZeros(variation.get(0).getPieces(side) & ~root.getPieces(side));
+    }
+
+    /**
+     * @return the position after the move.
+     **/
+    public Position getMove() {
+        return variation.get(0);
+    }
+
+    public List<Position> getVariation() {
+        return variation;
+    }
+
+    /**
+     * @return the score for the side to move, where a man is worth
+     * {@code EvaluationWeights.getManValue()}, or a win is worth
+     * {@code SearchEngine.WIN_SCORE} less the plies to it.
+     **/
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * @return true if the line ends in a win for either side.
+     **/
+    public boolean isDecisive() {
+        return SearchEngine.isDecisive(score);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder line = new StringBuilder();
+        Position from = root;
+
+        for (Position to : variation) {
+            line.append(line.length() == 0 ? "" : " ").append(describe(from, to));
+            from = to;
+        }
+        return "[" + depth + "] " + (score > 0 ? "+" : "") + score + " " + line;
+    }
+}
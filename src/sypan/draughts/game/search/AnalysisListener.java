@@ -0,0 +1,21 @@
+package sypan.draughts.game.search;
+
+import java.util.List;
+
+/**
+ * Receives the results of an analysis as it improves.
+ *
+ * @see SearchEngine#analyse
+ * @author Carl Linley
+ **/
+public interface AnalysisListener {
+
+    /**
+     * Called each time the search completes a depth. Called on the searching
+     * thread.
+     *
+     * @param depth - the depth completed.
+     * @param lines - the best lines found at this depth, best first.
+     **/
+    void onDepthCompleted(int depth, List<AnalysisLine> lines);
+}
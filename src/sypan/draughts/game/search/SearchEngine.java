@@ -0,0 +1,377 @@
+package sypan.draughts.game.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import sypan.draughts.game.EvaluationWeights;
+import sypan.draughts.game.neural.Accumulator;
+import sypan.draughts.game.neural.NeuralNetwork;
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.MoveGenerator;
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.position.PositionHistory;
+import sypan.draughts.game.position.Square;
+import sypan.draughts.game.position.Zobrist;
+import sypan.draughts.game.tablebase.Tablebase;
+
+/**
+ * {@code SearchEngine} searches positions with iterative deepening alpha-beta
+ * (negamax), backed by a {@link TranspositionTable}. Positions are scored
+ * with the {@link NeuralNetwork} if one has been trained, otherwise with the
+ * {@link EvaluationWeights}, and the endgame {@link Tablebase} is probed once
+ * few enough pieces are left.<p>
+ *
+ * Its main use is {@link #analyse} - finding the best few moves from a
+ * position rather than just the best one (multi-PV), reported after every
+ * completed depth so a caller can show the analysis as it improves.<p>
+ *
+ * An engine searches one position at a time, but any number of engines may
+ * share a transposition table. By default they all share one.
+ *
+ * @author Carl Linley
+ **/
+public class SearchEngine {
+
+    /**
+     * The score of a won position. Wins are scored {@code WIN_SCORE} less the
+     * number of plies to the win (from the root of the search), and losses the
+     * reverse, so quicker wins and slower losses score higher. Any score within
+     * {@code MAX_WIN_PLIES} of {@code WIN_SCORE} is a win - tablebase wins can
+     * be further away than the search ever looks.
+     **/
+    public final static int WIN_SCORE = 30000, MAX_DEPTH = 64, MAX_WIN_PLIES = 1000;
+
+    private final static int INFINITY = 32000, TABLE_SIZE_MB = 16;
+
+    private static TranspositionTable sharedTable;
+
+    private final TranspositionTable table;
+    private final EvaluationWeights weights;
+    private final NeuralNetwork network;
+    private final Tablebase tablebase;
+
+    private PositionHistory history;
+    private volatile boolean stopped;
+    private long deadline, nodeCount;
+
+    public SearchEngine() {
+        this(getSharedTable());
+    }
+
+    public SearchEngine(TranspositionTable table) {
+        this.table = table;
+
+        weights = EvaluationWeights.getActive();
+        network = NeuralNetwork.getActive();
+        tablebase = Tablebase.getActive();
+    }
+
+    /**
+     * @return the transposition table shared by every engine created without
+     * one.
+     **/
+    public static synchronized TranspositionTable getSharedTable() {
+        if (sharedTable == null) {
+            sharedTable = new TranspositionTable(TABLE_SIZE_MB);
+        }
+        return sharedTable;
+    }
+
+    /**
+     * Finds the best moves from a position, searching one depth deeper at a
+     * time until the depth or time limit is reached, or {@link #stop} is
+     * called.<p>
+     *
+     * Every move is searched at each depth, but only with a window wide enough
+     * to tell whether it belongs among the best {@code lineCount} - any other
+     * move is cut off as soon as it is shown to be worse.
+     *
+     * @param root - the position to analyse.
+     * @param gameHistory - the positions reached so far, ending with the root,
+     * so lines repeating them are scored as draws. May be {@code null}.
+     * @param lineCount - the number of moves to find.
+     * @param maxDepth - the deepest depth to search, in turns.
+     * @param timeLimitMS - the time to stop searching after.
+     * @param listener - told of every completed depth. May be {@code null}.
+     * @return the lines of the deepest completed depth, best first - empty if
+     * there are no moves.
+     **/
+    public List<AnalysisLine> analyse(Position root, PositionHistory gameHistory, int lineCount, int maxDepth, long timeLimitMS, AnalysisListener listener) {
+        ArrayList<Position> moves = MoveGenerator.generate(root);
+        List<AnalysisLine> lines = new ArrayList<>();
+
+        if (moves.isEmpty()) {
+            return lines;
+        }
+        history = (gameHistory != null ? gameHistory.copy() : new PositionHistory());
+        deadline = System.currentTimeMillis() + timeLimitMS;
+        stopped = false;
+        nodeCount = 0;
+
+        int[] scores = new int[moves.size()];
+        Integer[] order = new Integer[moves.size()];
+
+        for (int i = 0; i != order.length; i++) {
+            order[i] = i;
+        }
+        lineCount = Math.min(lineCount, moves.size());
+
+        for (int depth = 1; depth <= Math.min(maxDepth, MAX_DEPTH) && !stopped; depth++) {
+            int[] depthScores = new int[moves.size()];
+            int searched = 0;
+
+            for (int i : order) {
+                // The score to beat is the worst of the best lines so far
+                int alpha = (searched < lineCount ? -INFINITY : kthBest(depthScores, order, searched, lineCount));
+
+                history.push(root, moves.get(i));
+                depthScores[i] = -search(moves.get(i), depth - 1, -INFINITY, -alpha, 1);
+                history.pop();
+
+                if (stopped) {
+                    break;
+                }
+                searched++;
+            }
+            if (stopped) {
+                break;
+            }
+            scores = depthScores;
+            sortByScore(order, scores);
+
+            lines = new ArrayList<>(lineCount);
+
+            for (int i = 0; i != lineCount; i++) {
+                Position move = moves.get(order[i]);
+                List<Position> variation = getPrincipalVariation(move, depth - 1);
+
+                variation.add(0, move);
+                lines.add(new AnalysisLine(root, variation, scores[order[i]], depth));
+            }
+            if (listener != null) {
+                listener.onDepthCompleted(depth, lines);
+            }
+            if (lines.get(0).isDecisive()) {
+                break;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Stops the current analysis as soon as possible. The lines of the last
+     * completed depth are still returned.
+     **/
+    public void stop() {
+        stopped = true;
+    }
+
+    private int search(Position position, int depth, int alpha, int beta, int ply) {
+        if ((++nodeCount & 1023) == 0 && System.currentTimeMillis() > deadline) {
+            stopped = true;
+        }
+        if (stopped) {
+            return 0;
+        }
+        if (history.getRepetitions() > 1) {
+            return 0; // Going round in circles - no better than a draw
+        }
+        int tablebaseScore = probeTablebase(position);
+
+        if (tablebaseScore != Tablebase.NOT_FOUND) {
+            return fromTablebase(tablebaseScore, ply);
+        }
+        long hash = Zobrist.hash(position), entry = table.probe(hash);
+        int bestMove = TranspositionTable.NO_MOVE;
+
+        if (entry != 0) {
+            int entryScore = fromTable(TranspositionTable.getScore(entry), ply), bound = TranspositionTable.getBound(entry);
+
+            if (TranspositionTable.getDepth(entry) >= depth && (bound == TranspositionTable.EXACT
+             || (bound == TranspositionTable.LOWER_BOUND && entryScore >= beta)
+             || (bound == TranspositionTable.UPPER_BOUND && entryScore <= alpha))) {
+                return entryScore;
+            }
+            bestMove = TranspositionTable.getBestMove(entry);
+        }
+        ArrayList<Position> successors = MoveGenerator.generate(position);
+
+        if (successors.isEmpty()) {
+            return -WIN_SCORE + ply; // Lost - the later the better
+        }
+        if (depth <= 0 && !isForcing(position, successors)) {
+            return evaluate(position);
+        }
+        int originalAlpha = alpha, bestScore = -INFINITY, bestIndex = TranspositionTable.NO_MOVE;
+
+        for (int n = -1; n != successors.size(); n++) {
+            // The best move from the table is tried first
+            int i = (n == -1 ? bestMove : n);
+
+            if ((n == -1 && bestMove >= successors.size()) || (n != -1 && n == bestMove)) {
+                continue;
+            }
+            history.push(position, successors.get(i));
+            int score = -search(successors.get(i), depth - 1, -beta, -alpha, ply + 1);
+            history.pop();
+
+            if (stopped) {
+                return 0;
+            }
+            if (score > bestScore) {
+                bestScore = score;
+                bestIndex = i;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+            if (alpha >= beta) {
+                break;
+            }
+        }
+        int bound = (bestScore <= originalAlpha ? TranspositionTable.UPPER_BOUND : bestScore >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT);
+
+        table.store(hash, Math.max(depth, 0), toTable(bestScore, ply), bound, bestIndex);
+        return bestScore;
+    }
+
+    /**
+     * Captures are searched past the depth limit until the position is quiet,
+     * so a search never stops halfway through an exchange of pieces.
+     **/
+    private boolean isForcing(Position position, ArrayList<Position> successors) {
+        return successors.get(0).countPieces() < position.countPieces();
+    }
+
+    /**
+     * @param score - a score.
+     * @return {@code true} if the specified score is a win or a loss.
+     **/
+    public static boolean isDecisive(int score) {
+        return Math.abs(score) >= WIN_SCORE - MAX_WIN_PLIES;
+    }
+
+    /**
+     * Wins are stored in the table as the distance from the position rather
+     * than from the root, as the same position can be reached at any ply.
+     **/
+    private static int toTable(int score, int ply) {
+        return (isDecisive(score) ? score + (score > 0 ? ply : -ply) : score);
+    }
+
+    private static int fromTable(int score, int ply) {
+        return (isDecisive(score) ? score - (score > 0 ? ply : -ply) : score);
+    }
+
+    /**
+     * Converts a tablebase score (see {@code Tablebase.WIN_SCORE}) into a
+     * search score, counting the plies to the win from the root.
+     **/
+    private static int fromTablebase(int score, int ply) {
+        if (score == 0) {
+            return 0;
+        }
+        int distance = Tablebase.WIN_SCORE - Math.abs(score) + ply;
+        return (score > 0 ? WIN_SCORE - distance : distance - WIN_SCORE);
+    }
+
+    private int probeTablebase(Position position) {
+        if (tablebase == null || position.countPieces() > tablebase.getMaxPieces()) {
+            return Tablebase.NOT_FOUND;
+        }
+        return tablebase.probe(position);
+    }
+
+    /**
+     * @param position - the position to score.
+     * @return the score of the specified position for the side to move.
+     **/
+    public int evaluate(Position position) {
+        Side side = position.getSideToMove();
+
+        if (network != null) {
+            Accumulator accumulator = new Accumulator(network);
+
+            accumulator.refresh(position);
+            return network.evaluate(accumulator, side);
+        }
+        return assess(position, side) - assess(position, side.oppose());
+    }
+
+    /**
+     * Scores one side's pieces alone - the weight of each of its men and kings,
+     * plus the value of the cell each one stands on. {@link #evaluate} takes
+     * the difference between the two sides' scores.
+     *
+     * @param position - the position to score.
+     * @param side - the side whose pieces are scored.
+     * @return the score of the specified side's pieces.
+     **/
+    private int assess(Position position, Side side) {
+        int piecePositions = 0;
+
+        for (int squares = position.getPieces(side); squares != 0; squares &= squares - 1) {
+            piecePositions += weights.getCellValue(Square.scoreCell(Integer.numberOfTrailingZeros(squares)));
+        }
+        return position.countMen(side) * weights.getManValue() + position.countKings(side) * weights.getKingValue() + piecePositions;
+    }
+
+    /**
+     * Follows the best moves stored in the transposition table.
+     *
+     * @param position - the position to start from.
+     * @param maxLength - the most turns to follow.
+     * @return the position after each turn of the principal variation.
+     **/
+    private List<Position> getPrincipalVariation(Position position, int maxLength) {
+        ArrayList<Position> variation = new ArrayList<>();
+
+        for (int i = 0; i != maxLength; i++) {
+            long entry = table.probe(Zobrist.hash(position));
+
+            if (entry == 0 || TranspositionTable.getBestMove(entry) == TranspositionTable.NO_MOVE) {
+                break;
+            }
+            ArrayList<Position> successors = MoveGenerator.generate(position);
+            int bestMove = TranspositionTable.getBestMove(entry);
+
+            if (bestMove >= successors.size() || variation.contains(successors.get(bestMove))) {
+                break;
+            }
+            position = successors.get(bestMove);
+            variation.add(position);
+        }
+        return variation;
+    }
+
+    private static int kthBest(int[] scores, Integer[] order, int searched, int k) {
+        int[] found = new int[searched];
+
+        for (int i = 0; i != searched; i++) {
+            found[i] = scores[order[i]];
+        }
+        Arrays.sort(found);
+        return found[searched - k];
+    }
+
+    private static void sortByScore(Integer[] order, int[] scores) {
+        Arrays.sort(order, (a, b) -> Integer.compare(scores[b], scores[a]));
+    }
+
+    /**
+     * @return roughly the score of being a man ahead, to put scores in terms
+     * a player understands. The network's score is a scaled win probability
+     * logit, which a man swings by about one.
+     **/
+    public int getManScore() {
+        return (network != null ? NeuralNetwork.SCORE_SCALE : weights.getManValue());
+    }
+
+    /**
+     * @return the number of positions searched by the last analysis.
+     **/
+    public long getNodeCount() {
+        return nodeCount;
+    }
+}
@@ -0,0 +1,99 @@
+package sypan.draughts.game.search;
+
+import sypan.draughts.game.position.Zobrist;
+
+/**
+ * {@code TranspositionTable} remembers the result of searching a position, by
+ * its {@link Zobrist} hash, so a position reached again - by a different
+ * order of moves, or by the next iteration of a deeper search - needn't be
+ * searched again. Where it must be, the best move found last time is tried
+ * first.<p>
+ *
+ * Each entry is two {@code long}s - the packed result, and the hash XORed
+ * with the result. An entry only counts if the two agree, so the table needs
+ * no locks: an entry torn by two threads writing at once is simply a miss.
+ *
+ * @author Carl Linley
+ **/
+public class TranspositionTable {
+
+    public final static int EXACT = 0, LOWER_BOUND = 1, UPPER_BOUND = 2;
+
+    /**
+     * The best move index stored when there is none.
+     **/
+    public final static int NO_MOVE = 0xFF;
+
+    private final static long VALID = 1L << 40;
+
+    private final long[] keys, entries;
+    private final int mask;
+
+    /**
+     * @param sizeMB - the size of the table in megabytes, rounded down to a
+     * power of two.
+     **/
+    public TranspositionTable(int sizeMB) {
+        int entryCount = Integer.highestOneBit(Math.max(sizeMB, 1) * 1024 * 1024 / 16);
+
+        keys = new long[entryCount];
+        entries = new long[entryCount];
+        mask = entryCount - 1;
+    }
+
+    /**
+     * @param hash - the hash of the position.
+     * @return the entry for the specified position, or 0 if there is none.
+     **/
+    public long probe(long hash) {
+        int index = (int) hash & mask;
+        long entry = entries[index];
+
+        return ((keys[index] ^ entry) == hash ? entry : 0);
+    }
+
+    /**
+     * Stores the result of a search. An entry for a different position is
+     * always replaced, but an entry for the same position is only replaced by
+     * a search at least as deep.
+     *
+     * @param hash - the hash of the position.
+     * @param depth - the depth searched.
+     * @param score - the score found.
+     * @param bound - {@code EXACT}, {@code LOWER_BOUND} or
+     * {@code UPPER_BOUND}.
+     * @param bestMove - the index of the best move, or {@code NO_MOVE}.
+     **/
+    public void store(long hash, int depth, int score, int bound, int bestMove) {
+        int index = (int) hash & mask;
+        long existing = probe(hash);
+
+        if (existing != 0 && getDepth(existing) > depth) {
+            return;
+        }
+        long entry = VALID | ((long) (bestMove & 0xFF) << 32) | ((long) bound << 24) | ((depth & 0xFF) << 16) | ((score + 32768) & 0xFFFF);
+
+        entries[index] = entry;
+        keys[index] = hash ^ entry;
+    }
+
+    public static int getScore(long entry) {
+        return (int) (entry & 0xFFFF) - 32768;
+    }
+
+    public static int getDepth(long entry) {
+        return (int) (entry >>> 16) & 0xFF;
+    }
+
+    public static int getBound(long entry) {
+        return (int) (entry >>> 24) & 0xFF;
+    }
+
+    public static int getBestMove(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public int size() {
+        return entries.length;
+    }
+}
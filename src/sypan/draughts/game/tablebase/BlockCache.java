@@ -0,0 +1,106 @@
+package sypan.draughts.game.tablebase;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * {@code BlockCache} keeps a bounded number of decoded tablebase blocks in
+ * memory, shared between every table and every searching thread.<p>
+ *
+ * Reading the cache takes no locks. Each block may only be kept in one of four
+ * slots chosen by its key; a hit is a handful of reads of an
+ * {@code AtomicReferenceArray}. On a miss the block is decoded by the calling
+ * thread and replaces one of its four slots - an empty one if possible,
+ * otherwise one that hasn't been used since it was last considered for
+ * eviction (the "clock" approximation of least-recently-used). Two threads
+ * missing on the same block at once will both decode it, which is harmless as
+ * decoded blocks are never modified.
+ *
+ * @author Carl Linley
+ **/
+public class BlockCache {
+
+    private final static int WAYS = 4;
+
+    private final AtomicReferenceArray<CachedBlock> slots;
+    private final int setMask;
+
+    /**
+     * @param capacity - the maximum number of blocks to keep, rounded up to a
+     * power of two.
+     **/
+    public BlockCache(int capacity) {
+        int setCount = Integer.highestOneBit(Math.max(capacity / WAYS, 1) * 2 - 1);
+
+        slots = new AtomicReferenceArray<>(setCount * WAYS);
+        setMask = setCount - 1;
+    }
+
+    /**
+     * @param key - the unique key of the block.
+     * @param decoder - decodes the block if it isn't cached.
+     * @return the decoded block.
+     **/
+    public short[] get(long key, Supplier<short[]> decoder) {
+        int base = setOf(key) * WAYS;
+
+        for (int way = 0; way != WAYS; way++) {
+            CachedBlock cached = slots.get(base + way);
+
+            if (cached != null && cached.key == key) {
+                cached.referenced = true;
+                return cached.entries;
+            }
+        }
+
+        short[] entries = decoder.get();
+        slots.set(base + chooseVictim(base), new CachedBlock(key, entries));
+        return entries;
+    }
+
+    private int chooseVictim(int base) {
+        for (int way = 0; way != WAYS; way++) {
+            CachedBlock cached = slots.get(base + way);
+
+            if (cached == null) {
+                return way;
+            }
+        }
+        for (int way = 0; way != WAYS; way++) {
+            CachedBlock cached = slots.get(base + way);
+
+            if (!cached.referenced) {
+                return way;
+            }
+            cached.referenced = false; // Second chance
+        }
+        return 0;
+    }
+
+    private int setOf(long key) {
+        int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+
+        return (hash ^ (hash >>> 16)) & setMask;
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    private final static class CachedBlock {
+
+        private final long key;
+        private final short[] entries;
+
+        /**
+         * Deliberately not volatile - a lost update only makes eviction
+         * slightly less accurate, and hits stay free of memory fences.
+         **/
+        private boolean referenced;
+
+        private CachedBlock(long key, short[] entries) {
+            this.key = key;
+            this.entries = entries;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package sypan.draughts.game.tablebase;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * {@code GeneratedTable} is a table held entirely in memory while it is being
+ * generated. Results are packed two bits a position, 32 to a {@code long},
+ * with a byte per position for the distance.
+ *
+ * @author Carl Linley
+ **/
+public class GeneratedTable extends TablebaseTable {
+
+    private final long[] results;
+    private final byte[] distances;
+
+    public GeneratedTable(int blackMen, int blackKings, int whiteMen, int whiteKings) {
+        super(blackMen, blackKings, whiteMen, whiteKings);
+
+        results = new long[(size() + 31) / 32];
+        distances = new byte[size()];
+    }
+
+    @Override
+    public int getEntry(int index) {
+        return (getResult(index) << 8) | getDistance(index);
+    }
+
+    @Override
+    public int getResult(int index) {
+        return (int) (results[index >>> 5] >>> ((index & 31) << 1)) & 3;
+    }
+
+    @Override
+    public int getDistance(int index) {
+        return distances[index] & 0xFF;
+    }
+
+    /**
+     * Sets the result of a position. Threads may safely set results at the same
+     * time, so long as they work on separate ranges of 32 positions.
+     *
+     * @param index - the index of the position.
+     * @param result - the result, one of {@code DRAW}, {@code WIN},
+     * {@code LOSS} or {@code INVALID}.
+     * @param distance - the number of turns until the game ends.
+     **/
+    public void setResult(int index, int result, int distance) {
+        int shift = (index & 31) << 1;
+
+        results[index >>> 5] = (results[index >>> 5] & ~(3L << shift)) | ((long) result << shift);
+        distances[index] = (byte) Math.min(distance, MAX_DISTANCE);
+    }
+
+    /**
+     * Saves this table in blocks, ready to be mapped by {@link MappedTable}.
+     *
+     * @param directory - the directory to save this table in.
+     * @throws IOException if the table cannot be written.
+     **/
+    public void save(String directory) throws IOException {
+        int blockCount = getBlockCount();
+        long[] offsets = new long[blockCount + 1];
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        long dataStart = HEADER_SIZE + (blockCount + 1) * 8L;
+
+        for (int block = 0; block != blockCount; block++) {
+            offsets[block] = dataStart + blocks.size();
+            writeBlock(block, blocks);
+        }
+        offsets[blockCount] = dataStart + blocks.size();
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(new File(directory, getName() + ".tb"))))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(getSignature());
+            out.writeInt(size());
+            out.writeInt(BLOCK_SIZE);
+            out.writeInt(blockCount);
+
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+            blocks.writeTo(out);
+        }
+    }
+
+    /**
+     * Writes a block as runs of identical entries if that is smaller, or raw
+     * otherwise.
+     **/
+    private void writeBlock(int block, ByteArrayOutputStream out) {
+        int start = block * BLOCK_SIZE, length = getBlockLength(block);
+        ByteArrayOutputStream runs = new ByteArrayOutputStream();
+
+        for (int i = 0; i < length;) {
+            int entry = getEntry(start + i), runLength = 1;
+
+            while (i + runLength < length && getEntry(start + i + runLength) == entry) {
+                runLength++;
+            }
+            writeVarInt(runs, runLength);
+            runs.write(entry >>> 8);
+            runs.write(entry & 0xFF);
+            i += runLength;
+        }
+
+        int rawSize = (length + 3) / 4 + length;
+
+        if (runs.size() < rawSize) {
+            out.write(BLOCK_RUNS);
+            out.write(runs.toByteArray(), 0, runs.size());
+            return;
+        }
+        out.write(BLOCK_RAW);
+
+        for (int i = 0; i < length; i += 4) {
+            int packed = 0;
+
+            for (int j = 0; j != 4 && i + j < length; j++) {
+                packed |= getResult(start + i + j) << (j * 2);
+            }
+            out.write(packed);
+        }
+        for (int i = 0; i != length; i++) {
+            out.write(distances[start + i]);
+        }
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while (value >= 0x80) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -0,0 +1,101 @@
+package sypan.draughts.game.tablebase;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * {@code MappedTable} reads a table saved by {@link GeneratedTable} straight
+ * from a memory-mapped file, so opening a table costs next to nothing and the
+ * operating system decides how much of it stays in memory.<p>
+ *
+ * Raw blocks are read directly from the mapped file. Blocks stored as runs are
+ * decoded on first use and kept in the tablebase's shared
+ * {@link BlockCache}.<p>
+ *
+ * Reading a {@code MappedTable} never changes its state, so it may be probed
+ * by any number of threads at once.
+ *
+ * @author Carl Linley
+ **/
+public class MappedTable extends TablebaseTable {
+
+    private final MappedByteBuffer buffer;
+    private final BlockCache blockCache;
+
+    private MappedTable(int signature, MappedByteBuffer buffer, BlockCache blockCache) {
+        super(signature >>> 24, (signature >>> 16) & 0xFF, (signature >>> 8) & 0xFF, signature & 0xFF);
+
+        this.buffer = buffer;
+        this.blockCache = blockCache;
+    }
+
+    /**
+     * @param filePath - the table file to map.
+     * @param blockCache - the cache to keep decoded blocks in.
+     * @return the mapped table.
+     * @throws IOException if the file cannot be mapped or is not a table.
+     **/
+    public static MappedTable open(String filePath, BlockCache blockCache) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("'" + filePath + "' is too large to map.");
+            }
+            // The mapping stays valid once the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != FILE_MAGIC || buffer.getInt(12) != BLOCK_SIZE) {
+                throw new IOException("'" + filePath + "' is not a tablebase file of this version.");
+            }
+            MappedTable table = new MappedTable(buffer.getInt(4), buffer, blockCache);
+
+            if (buffer.getInt(8) != table.size() || buffer.getInt(16) != table.getBlockCount()) {
+                throw new IOException("'" + filePath + "' does not match its signature.");
+            }
+            return table;
+        }
+    }
+
+    @Override
+    public int getEntry(int index) {
+        int block = index / BLOCK_SIZE, offset = index % BLOCK_SIZE,
+            blockStart = (int) buffer.getLong(HEADER_SIZE + block * 8);
+
+        if (buffer.get(blockStart) == BLOCK_RAW) {
+            int length = getBlockLength(block),
+                result = (buffer.get(blockStart + 1 + offset / 4) >>> ((offset & 3) * 2)) & 3,
+                distance = buffer.get(blockStart + 1 + (length + 3) / 4 + offset) & 0xFF;
+
+            return (result << 8) | distance;
+        }
+        long key = ((long) getSignature() << 32) | block;
+
+        return blockCache.get(key, () -> decodeRuns(block, blockStart))[offset];
+    }
+
+    private short[] decodeRuns(int block, int blockStart) {
+        short[] entries = new short[getBlockLength(block)];
+        int position = blockStart + 1;
+
+        for (int i = 0; i < entries.length;) {
+            int runLength = 0, shift = 0, b;
+
+            do {
+                b = buffer.get(position++);
+                runLength |= (b & 0x7F) << shift;
+                shift += 7;
+            }
+            while ((b & 0x80) != 0);
+
+            short entry = (short) (((buffer.get(position) & 0xFF) << 8) | (buffer.get(position + 1) & 0xFF));
+            position += 2;
+
+            for (int j = 0; j != runLength; j++) {
+                entries[i++] = entry;
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,201 @@
+package sypan.draughts.game.tablebase;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.Position;
+import sypan.utility.Logger;
+
+/**
+ * {@code Tablebase} gives the perfect result of any endgame position with few
+ * enough pieces, as generated by the tablebase generator tool.<p>
+ *
+ * Tables are kept in {@code DIRECTORY}, one file per material signature, and
+ * are memory-mapped the first time a position of their signature is probed -
+ * nothing is read up front. Decoded blocks are shared between all tables in a
+ * cache of at most {@code CACHE_BLOCKS} blocks.
+ *
+ * @author Carl Linley
+ **/
+public class Tablebase {
+
+    public final static String DIRECTORY = "tablebase";
+
+    /**
+     * The score of a won position. Wins are scored {@code WIN_SCORE - distance}
+     * and losses {@code distance - WIN_SCORE}, so quicker wins and slower
+     * losses score higher.
+     **/
+    public final static int WIN_SCORE = 10000;
+
+    /**
+     * Returned by {@code probe} if the position is not in the tablebase.
+     **/
+    public final static int NOT_FOUND = Integer.MIN_VALUE;
+
+    /**
+     * The maximum number of decoded blocks kept in memory (8KB each).
+     **/
+    public final static int CACHE_BLOCKS = 2048;
+
+    private static volatile Tablebase activeTablebase;
+    private static volatile boolean loaded;
+
+    private final ConcurrentHashMap<Integer, TablebaseTable> tables;
+
+    /**
+     * The signatures of tables with no file, so probes of them don't check
+     * the disk again.
+     **/
+    private final Set<Integer> missingTables;
+    private final BlockCache blockCache;
+    private final String directory;
+
+    private int maxPieces;
+
+    public Tablebase(String directory) {
+        this.directory = directory;
+        tables = new ConcurrentHashMap<>();
+        missingTables = ConcurrentHashMap.newKeySet();
+        blockCache = new BlockCache(CACHE_BLOCKS);
+
+        File[] files = new File(directory).listFiles((file, name) -> name.endsWith(".tb"));
+
+        if (files != null) {
+            for (File f : files) {
+                String name = f.getName();
+                int pieces = 0;
+
+                for (int i = 0; i != 4; i++) {
+                    pieces += Character.digit(name.charAt(i), 10);
+                }
+                maxPieces = Math.max(maxPieces, pieces);
+            }
+        }
+    }
+
+    /**
+     * @return the tablebase used by the AI, or {@code null} if none has been
+     * generated.
+     **/
+    public static Tablebase getActive() {
+        if (!loaded) {
+            synchronized (Tablebase.class) {
+                if (!loaded) {
+                    Tablebase tablebase = new Tablebase(DIRECTORY);
+
+                    if (tablebase.getMaxPieces() > 0) {
+                        Logger.logInfo("Found endgame tablebase for up to " + tablebase.getMaxPieces() + " pieces. ('" + DIRECTORY + "')");
+                        activeTablebase = tablebase;
+                    }
+                    loaded = true;
+                }
+            }
+        }
+        return activeTablebase;
+    }
+
+    /**
+     * @param position - the position to probe.
+     * @return the score of the specified position from the point of view of the
+     * side to move - see {@code WIN_SCORE} - or {@code NOT_FOUND}.
+     **/
+    public int probe(Position position) {
+        Side side = position.getSideToMove();
+
+        if (position.getPieces(side) == 0) {
+            return -WIN_SCORE;
+        }
+        if (position.getPieces(side.oppose()) == 0) {
+            return WIN_SCORE;
+        }
+        if (position.countPieces() > maxPieces) {
+            return NOT_FOUND;
+        }
+
+        Position oriented = orient(position);
+        TablebaseTable table = getTable(TablebaseTable.signature(oriented));
+
+        if (table == null) {
+            return NOT_FOUND;
+        }
+        int entry = table.getEntry(table.index(oriented)), distance = entry & 0xFF;
+
+        switch (entry >>> 8) {
+            case TablebaseTable.WIN:
+                return WIN_SCORE - distance;
+
+            case TablebaseTable.LOSS:
+                return distance - WIN_SCORE;
+
+            case TablebaseTable.DRAW:
+                return 0;
+
+            default:
+                return NOT_FOUND;
+        }
+    }
+
+    /**
+     * @param position - the position to orient.
+     * @return the specified position if black is to move, otherwise the
+     * position rotated half a turn with the colours swapped, so that black is
+     * to move. Both positions have the same result.
+     **/
+    public static Position orient(Position position) {
+        if (position.getSideToMove() == Side.BLACK) {
+            return position;
+        }
+        return new Position(Integer.reverse(position.getWhite()), Integer.reverse(position.getBlack()), Integer.reverse(position.getKings()), Side.BLACK);
+    }
+
+    /**
+     * @param signature - the signature of the table.
+     * @return the table, mapping it if necessary, or {@code null} if it has
+     * not been generated.
+     **/
+    public TablebaseTable getTable(int signature) {
+        TablebaseTable table = tables.get(signature);
+
+        if (table != null || missingTables.contains(signature)) {
+            return table;
+        }
+        return tables.computeIfAbsent(signature, s -> {
+            File file = new File(directory, TablebaseTable.getName(s) + ".tb");
+
+            if (!file.exists()) {
+                missingTables.add(s);
+                return null;
+            }
+            try {
+                return MappedTable.open(file.getPath(), blockCache);
+            }
+            catch (IOException e) {
+                Logger.logWarning("Failed to load tablebase table: " + e + " - " + e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Adds a freshly generated table.
+     *
+     * @param table - the table to add.
+     **/
+    public void addTable(TablebaseTable table) {
+        tables.put(table.getSignature(), table);
+        missingTables.remove(table.getSignature());
+        maxPieces = Math.max(maxPieces, table.getPieceCount());
+    }
+
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+}
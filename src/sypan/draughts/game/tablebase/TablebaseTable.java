@@ -0,0 +1,261 @@
+package sypan.draughts.game.tablebase;
+
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.Position;
+
+/**
+ * {@code TablebaseTable} holds the result of every position of a single
+ * material signature - a set number of black men, black kings, white men and
+ * white kings - with black to move. Positions with white to move are looked up
+ * in the mirrored signature, with the board rotated and the colours swapped.
+ * <p>
+ *
+ * Each position is given a unique index by ranking the squares of each piece
+ * type as a combination. Black men can never stand on row 0 or white men on
+ * row 7 (they would have been crowned), so each only ranges over 28 squares,
+ * and kings only range over the squares the men left empty. The only wasted
+ * indices are those where a black man and a white man share a square - these
+ * are marked {@code INVALID}.<p>
+ *
+ * Every position has a result and a distance (in turns) to the end of the
+ * game, so a won game is won as quickly as possible. Tables are either being
+ * generated ({@link GeneratedTable}) or read from disk ({@link MappedTable}).
+ * <p>
+ *
+ * On disk, a table is split into blocks of {@code BLOCK_SIZE} positions. Each
+ * block is stored either raw - results packed four to a byte, followed by a
+ * distance byte per position - or as runs of identical entries, whichever is
+ * smaller. A table of block offsets follows the header, so any block can be
+ * found without reading those before it.
+ *
+ * @author Carl Linley
+ **/
+public abstract class TablebaseTable {
+
+    public final static int DRAW = 0, WIN = 1, LOSS = 2, INVALID = 3;
+
+    public final static int MAX_DISTANCE = 255;
+
+    final static int FILE_MAGIC = 0x44544232, // "DTB2"
+                     HEADER_SIZE = 20, BLOCK_SIZE = 4096,
+                     BLOCK_RAW = 0, BLOCK_RUNS = 1;
+
+    private final static long[][] BINOMIAL = new long[33][33];
+
+    static {
+        for (int n = 0; n != 33; n++) {
+            BINOMIAL[n][0] = 1;
+
+            for (int k = 1; k <= n; k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+    }
+
+    private final int blackMen, blackKings, whiteMen, whiteKings;
+    private final long whiteMenCombinations, blackKingCombinations, whiteKingCombinations;
+    private final int size;
+
+    protected TablebaseTable(int blackMen, int blackKings, int whiteMen, int whiteKings) {
+        this.blackMen = blackMen;
+        this.blackKings = blackKings;
+        this.whiteMen = whiteMen;
+        this.whiteKings = whiteKings;
+
+        int freeSquares = 32 - blackMen - whiteMen;
+
+        whiteMenCombinations = BINOMIAL[28][whiteMen];
+        blackKingCombinations = BINOMIAL[freeSquares][blackKings];
+        whiteKingCombinations = BINOMIAL[freeSquares - blackKings][whiteKings];
+
+        long fullSize = BINOMIAL[28][blackMen] * whiteMenCombinations * blackKingCombinations * whiteKingCombinations;
+
+        if (fullSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Signature " + getName() + " is too large for a table.");
+        }
+        size = (int) fullSize;
+    }
+
+    /**
+     * @param blackMen - the number of black men.
+     * @param blackKings - the number of black kings.
+     * @param whiteMen - the number of white men.
+     * @param whiteKings - the number of white kings.
+     * @return a single int identifying the specified signature.
+     **/
+    public static int signature(int blackMen, int blackKings, int whiteMen, int whiteKings) {
+        return (blackMen << 24) | (blackKings << 16) | (whiteMen << 8) | whiteKings;
+    }
+
+    /**
+     * @param position - a position with black to move.
+     * @return the signature of the specified position.
+     **/
+    public static int signature(Position position) {
+        return signature(position.countMen(Side.BLACK), position.countKings(Side.BLACK), position.countMen(Side.WHITE), position.countKings(Side.WHITE));
+    }
+
+    /**
+     * @param position - a position of this table's signature, with black to
+     * move.
+     * @return the index of the specified position.
+     **/
+    public int index(Position position) {
+        int kings = position.getKings(),
+            blackManMask = position.getBlack() & ~kings, whiteManMask = position.getWhite() & ~kings,
+            freeMask = ~(blackManMask | whiteManMask), blackKingMask = position.getBlack() & kings;
+
+        long index = rank(blackManMask >>> 4);
+        index = index * whiteMenCombinations + rank(whiteManMask);
+        index = index * blackKingCombinations + rank(compress(blackKingMask, freeMask));
+        index = index * whiteKingCombinations + rank(compress(position.getWhite() & kings, freeMask & ~blackKingMask));
+
+        return (int) index;
+    }
+
+    /**
+     * @param index - the index of a position.
+     * @return the position with the specified index, with black to move, or
+     * {@code null} if the index is invalid.
+     **/
+    public Position getPosition(int index) {
+        long remaining = index;
+
+        int whiteKingRank = (int) (remaining % whiteKingCombinations);
+        remaining /= whiteKingCombinations;
+        int blackKingRank = (int) (remaining % blackKingCombinations);
+        remaining /= blackKingCombinations;
+        int whiteManRank = (int) (remaining % whiteMenCombinations);
+        remaining /= whiteMenCombinations;
+
+        int blackManMask = unrank(remaining, blackMen) << 4, whiteManMask = unrank(whiteManRank, whiteMen);
+
+        if ((blackManMask & whiteManMask) != 0) {
+            return null;
+        }
+        int freeMask = ~(blackManMask | whiteManMask),
+            blackKingMask = expand(unrank(blackKingRank, blackKings), freeMask),
+            whiteKingMask = expand(unrank(whiteKingRank, whiteKings), freeMask & ~blackKingMask);
+
+        return new Position(blackManMask | blackKingMask, whiteManMask | whiteKingMask, blackKingMask | whiteKingMask, Side.BLACK);
+    }
+
+    /**
+     * Ranks a set of squares as a combination (in colexicographic order).
+     **/
+    private static long rank(int mask) {
+        long rank = 0;
+        int chosen = 0;
+
+        while (mask != 0) {
+            rank += BINOMIAL[Integer.numberOfTrailingZeros(mask)][++chosen];
+            mask &= mask - 1;
+        }
+        return rank;
+    }
+
+    private static int unrank(long rank, int count) {
+        int mask = 0;
+
+        for (int k = count; k != 0; k--) {
+            int c = k - 1;
+
+            while (BINOMIAL[c + 1][k] <= rank) {
+                c++;
+            }
+            mask |= (1 << c);
+            rank -= BINOMIAL[c][k];
+        }
+        return mask;
+    }
+
+    /**
+     * @return <b>mask</b> with each bit moved to its position among the set
+     * bits of <b>free</b>.
+     **/
+    private static int compress(int mask, int free) {
+        int compressed = 0, bit = 0;
+
+        for (int squares = free; squares != 0; squares &= squares - 1, bit++) {
+            if ((mask & Integer.lowestOneBit(squares)) != 0) {
+                compressed |= (1 << bit);
+            }
+        }
+        return compressed;
+    }
+
+    private static int expand(int compressed, int free) {
+        int mask = 0, bit = 0;
+
+        for (int squares = free; squares != 0; squares &= squares - 1, bit++) {
+            if ((compressed & (1 << bit)) != 0) {
+                mask |= Integer.lowestOneBit(squares);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @param index - the index of the position.
+     * @return the result and distance of the position, packed as
+     * {@code (result << 8) | distance}.
+     **/
+    public abstract int getEntry(int index);
+
+    public int getResult(int index) {
+        return getEntry(index) >>> 8;
+    }
+
+    public int getDistance(int index) {
+        return getEntry(index) & 0xFF;
+    }
+
+    public int getSignature() {
+        return signature(blackMen, blackKings, whiteMen, whiteKings);
+    }
+
+    /**
+     * @return the signature of the table holding the positions of this
+     * signature with white to move.
+     **/
+    public int getMirrorSignature() {
+        return signature(whiteMen, whiteKings, blackMen, blackKings);
+    }
+
+    /**
+     * @param signature - the signature.
+     * @return the name of the specified signature - the number of black men,
+     * black kings, white men and white kings, e.g. "2101".
+     **/
+    public static String getName(int signature) {
+        return "" + (signature >>> 24) + ((signature >>> 16) & 0xFF) + ((signature >>> 8) & 0xFF) + (signature & 0xFF);
+    }
+
+    public String getName() {
+        return getName(getSignature());
+    }
+
+    public int getPieceCount() {
+        return blackMen + blackKings + whiteMen + whiteKings;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of blocks this table is split into on disk.
+     **/
+    public int getBlockCount() {
+        return (size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * @param block - the block number.
+     * @return the number of positions in the specified block - only the last
+     * block may be short.
+     **/
+    public int getBlockLength(int block) {
+        return Math.min(BLOCK_SIZE, size - block * BLOCK_SIZE);
+    }
+}
@@ -0,0 +1,100 @@
+package sypan.draughts.tool;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.List;
+
+import sypan.draughts.game.archive.ArchiveEntry;
+import sypan.draughts.game.archive.GameArchive;
+import sypan.draughts.game.archive.GameQuery;
+import sypan.draughts.game.player.PlayerType;
+import sypan.draughts.game.player.Side;
+
+/**
+ * {@code ArchiveSearch} is an offline tool which lists the saved games in the
+ * {@link GameArchive} matching a query, for example every game Minimax lost in
+ * more than 60 turns:<p>
+ *
+ * {@code ArchiveSearch lost=MINMAX min-turns=61}<p>
+ *
+ * Usage: {@code ArchiveSearch [played=TYPE] [won=TYPE] [lost=TYPE] [drawn]
+ * [end=CODE] [min-turns=N] [max-turns=N] [from=yyyy-MM-dd] [to=yyyy-MM-dd]
+ * [dir=DIRECTORY]}.
+ *
+ * @author Carl Linley
+ **/
+public class ArchiveSearch {
+
+    public static void main(String[] args) throws ParseException {
+        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+        GameQuery query = new GameQuery();
+        String directory = GameArchive.DIRECTORY;
+        long from = 0, to = Long.MAX_VALUE;
+
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            String value = (option.length == 2 ? option[1] : "");
+
+            switch (option[0]) {
+                case "played":
+                    query.playedBy(PlayerType.valueOf(value.toUpperCase()));
+                break;
+
+                case "won":
+                    query.wonBy(PlayerType.valueOf(value.toUpperCase()));
+                break;
+
+                case "lost":
+                    query.lostBy(PlayerType.valueOf(value.toUpperCase()));
+                break;
+
+                case "drawn":
+                    query.drawn();
+                break;
+
+                case "end":
+                    query.endedBy(Integer.parseInt(value));
+                break;
+
+                case "min-turns":
+                    query.withMinimumTurns(Integer.parseInt(value));
+                break;
+
+                case "max-turns":
+                    query.withMaximumTurns(Integer.parseInt(value));
+                break;
+
+                case "from":
+                    from = dateFormat.parse(value).getTime();
+                break;
+
+                case "to":
+                    to = dateFormat.parse(value).getTime() + 86_399_999; // The end of the day
+                break;
+
+                case "dir":
+                    directory = value;
+                break;
+
+                default:
+                    System.out.println("Unknown option '" + arg + "'.");
+                return;
+            }
+        }
+        if (from != 0 || to != Long.MAX_VALUE) {
+            query.between(from, to);
+        }
+        GameArchive archive = GameArchive.open(directory);
+        long startTime = System.nanoTime();
+        List<ArchiveEntry> matches = archive.query(query);
+        long queryTimeUS = (System.nanoTime() - startTime) / 1000;
+
+        for (ArchiveEntry entry : matches) {
+            Side victor = entry.getVictor();
+
+            System.out.println(entry.getFilePath() + " | " + entry.getPlayer(Side.BLACK) + " v " + entry.getPlayer(Side.WHITE) + " | "
+                    + (entry.isDraw() ? "draw" : victor == null ? "unfinished" : victor.getName() + " won") + " | " + entry.getTurnCount() + " turns");
+        }
+        System.out.println(matches.size() + " of " + archive.size() + " games matched in " + (queryTimeUS / 1000f) + "ms.");
+    }
+}
@@ -0,0 +1,278 @@
+package sypan.draughts.tool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntToDoubleFunction;
+
+import sypan.draughts.game.EvaluationWeights;
+import sypan.draughts.game.GameSimulation;
+import sypan.draughts.game.position.Square;
+import sypan.utility.Logger;
+
+/**
+ * {@code EvaluationTuner} is an offline tool which tunes the weights used by
+ * {@link GameSimulation#assess} against the results of saved games, using the
+ * method popularised by the Texel chess engine.<p>
+ *
+ * Every quiet position in the corpus is scored, the score is squashed into a
+ * predicted result with a sigmoid, and each weight is nudged up or down in turn
+ * for as long as doing so reduces the mean squared error between the predicted
+ * and actual results. The error is summed in parallel across every core.<p>
+ *
+ * The score of each position is cached and only updated by the change in the
+ * weight being tried, so trying a weight costs a single pass over the corpus
+ * rather than re-scoring every piece.<p>
+ *
+ * Usage: {@code EvaluationTuner [history directory] [output file] [scale]}.
+ * The scale multiplies the starting weights, giving the tuner finer steps to
+ * work with - the AI only ever compares scores, so this makes no difference to
+ * how it plays. It defaults to 4 when starting from the built-in weights, and
+ * to 1 when starting from a weight file, which is already scaled.
+ *
+ * @author Carl Linley
+ **/
+public class EvaluationTuner {
+
+    private final static int PARAMETER_COUNT = 2 + Square.COUNT, MAX_ITERATIONS = 200;
+
+    private final PositionCorpus corpus;
+    private final ExecutorService executor;
+    private final int[] parameter, cellMask, cachedScore;
+    private final int threadCount;
+
+    private double sigmoidScale;
+
+    public EvaluationTuner(PositionCorpus corpus, EvaluationWeights startingWeights, int scale) {
+        this.corpus = corpus;
+
+        threadCount = Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(threadCount);
+
+        parameter = new int[PARAMETER_COUNT];
+        parameter[0] = startingWeights.getManValue() * scale;
+        parameter[1] = startingWeights.getKingValue() * scale;
+
+        cellMask = new int[Square.COUNT];
+
+        for (int square = 0; square != Square.COUNT; square++) {
+            cellMask[Square.scoreCell(square)] |= (1 << square);
+        }
+        for (int cell = 0; cell != Square.COUNT; cell++) {
+            parameter[cell + 2] = startingWeights.getCellValue(cell) * scale;
+        }
+        cachedScore = new int[corpus.size()];
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        Logger.init();
+
+        String historyDirectory = (args.length > 0 ? args[0] : "history"),
+               outputFile = (args.length > 1 ? args[1] : EvaluationWeights.WEIGHT_FILE);
+        EvaluationWeights startingWeights = EvaluationWeights.getActive();
+        int scale = (args.length > 2 ? Integer.parseInt(args[2]) : startingWeights == EvaluationWeights.getDefault() ? 4 : 1);
+
+        PositionCorpus corpus = PositionCorpus.load(historyDirectory);
+
+        if (corpus.size() == 0) {
+            Logger.logSevere("No positions to tune with - play some games first!");
+            return;
+        }
+
+        EvaluationTuner tuner = new EvaluationTuner(corpus, startingWeights, scale);
+
+        try {
+            double finalError = tuner.tune();
+
+            tuner.getWeights().save(outputFile, "Tuned from " + corpus.size() + " positions - mean squared error " + finalError);
+            Logger.logInfo("Saved tuned weights. ('" + outputFile + "')");
+        }
+        finally {
+            tuner.shutdown();
+        }
+    }
+
+    /**
+     * Tunes the weights until no single step improves them, or the iteration
+     * limit is reached.
+     *
+     * @return the final mean squared error.
+     * @throws InterruptedException if interrupted whilst waiting on a worker.
+     * @throws ExecutionException if a worker fails.
+     **/
+    public double tune() throws InterruptedException, ExecutionException {
+        parallelSum(chunk -> {
+            for (int i = chunkStart(chunk); i != chunkEnd(chunk); i++) {
+                int score = 0;
+
+                for (int p = 0; p != PARAMETER_COUNT; p++) {
+                    score += parameter[p] * feature(p, i);
+                }
+                cachedScore[i] = score;
+            }
+            return 0;
+        });
+        fitSigmoidScale();
+
+        double bestError = error(0, 0);
+        Logger.logInfo("Initial error: " + bestError + " (sigmoid scale " + sigmoidScale + ")");
+
+        for (int iteration = 1; iteration <= MAX_ITERATIONS; iteration++) {
+            boolean improved = false;
+
+            for (int p = 0; p != PARAMETER_COUNT; p++) {
+                for (int step : new int[] {1, -1}) {
+                    double newError = error(p, step);
+
+                    if (newError < bestError) {
+                        bestError = newError;
+                        applyStep(p, step);
+                        improved = true;
+                        break;
+                    }
+                }
+            }
+            Logger.logInfo("Iteration " + iteration + " - error: " + bestError);
+
+            if (!improved) {
+                break;
+            }
+        }
+        return bestError;
+    }
+
+    /**
+     * Finds the sigmoid scale which best fits the starting weights, so the
+     * tuner improves the weights rather than simply rescaling them.
+     **/
+    private void fitSigmoidScale() throws InterruptedException, ExecutionException {
+        double bestError;
+
+        sigmoidScale = 0.1;
+        bestError = error(0, 0);
+
+        for (double step = 0.05; step > 0.00001; step /= 10) {
+            boolean improved = true;
+
+            while (improved) {
+                improved = false;
+
+                for (double direction : new double[] {step, -step}) {
+                    if (sigmoidScale + direction <= 0) {
+                        continue;
+                    }
+                    sigmoidScale += direction;
+                    double newError = error(0, 0);
+
+                    if (newError < bestError) {
+                        bestError = newError;
+                        improved = true;
+                        break;
+                    }
+                    sigmoidScale -= direction;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param p - the parameter being tried.
+     * @param step - the amount to change the parameter by.
+     * @return the mean squared error of the corpus with the specified change
+     * made.
+     **/
+    private double error(int p, int step) throws InterruptedException, ExecutionException {
+        double errorSum = parallelSum(chunk -> {
+            double sum = 0;
+
+            for (int i = chunkStart(chunk); i != chunkEnd(chunk); i++) {
+                int score = cachedScore[i] + (step == 0 ? 0 : step * feature(p, i));
+                double difference = corpus.getResult(i) - (1 / (1 + Math.exp(-sigmoidScale * score)));
+
+                sum += difference * difference;
+            }
+            return sum;
+        });
+        return errorSum / corpus.size();
+    }
+
+    private void applyStep(int p, int step) throws InterruptedException, ExecutionException {
+        parameter[p] += step;
+
+        parallelSum(chunk -> {
+            for (int i = chunkStart(chunk); i != chunkEnd(chunk); i++) {
+                cachedScore[i] += step * feature(p, i);
+            }
+            return 0;
+        });
+    }
+
+    /**
+     * The score of a position is {@code assess(BLACK) - assess(WHITE)}, which
+     * is linear in the weights. This returns the multiplier of the specified
+     * weight in that score.
+     *
+     * @param p - the parameter.
+     * @param i - the index of the position.
+     * @return the feature value of parameter <b>p</b> for position <b>i</b>.
+     **/
+    private int feature(int p, int i) {
+        int black = corpus.getBlack(i), white = corpus.getWhite(i), kings = corpus.getKings(i);
+
+        switch (p) {
+            case 0:
+                return 2 * (Integer.bitCount(black & ~kings) - Integer.bitCount(white & ~kings));
+
+            case 1:
+                return 2 * (Integer.bitCount(black & kings) - Integer.bitCount(white & kings));
+
+            default:
+                return Integer.bitCount(black & cellMask[p - 2]) - Integer.bitCount(white & cellMask[p - 2]);
+        }
+    }
+
+    /**
+     * Splits the corpus into one chunk per thread, runs the specified function
+     * on every chunk in parallel and sums the results.
+     **/
+    private double parallelSum(IntToDoubleFunction chunkFunction) throws InterruptedException, ExecutionException {
+        ArrayList<Future<Double>> results = new ArrayList<>(threadCount);
+        double sum = 0;
+
+        for (int chunk = 0; chunk != threadCount; chunk++) {
+            final int thisChunk = chunk;
+            results.add(executor.submit(() -> chunkFunction.applyAsDouble(thisChunk)));
+        }
+        for (Future<Double> result : results) {
+            sum += result.get();
+        }
+        return sum;
+    }
+
+    private int chunkStart(int chunk) {
+        return (int) ((long) corpus.size() * chunk / threadCount);
+    }
+
+    private int chunkEnd(int chunk) {
+        return (int) ((long) corpus.size() * (chunk + 1) / threadCount);
+    }
+
+    /**
+     * @return the current weights.
+     **/
+    public EvaluationWeights getWeights() {
+        int[][] tileScores = new int[8][4];
+
+        for (int cell = 0; cell != Square.COUNT; cell++) {
+            tileScores[cell / 4][cell % 4] = parameter[cell + 2];
+        }
+        return new EvaluationWeights(parameter[0], parameter[1], tileScores);
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,228 @@
+package sypan.draughts.tool;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import sypan.draughts.game.neural.Accumulator;
+import sypan.draughts.game.neural.NeuralNetwork;
+import sypan.draughts.game.piece.PieceType;
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.Position;
+import sypan.utility.Logger;
+
+/**
+ * {@code NeuralTrainer} is an offline tool which trains a {@link NeuralNetwork}
+ * on the positions of saved games - including the games the AI plays against
+ * itself - by stochastic gradient descent.<p>
+ *
+ * Every position is also learned from the other side of the board (rotated
+ * with the colours swapped and the result flipped), doubling the data. Every
+ * tenth position is held back to measure how well the network generalises.<p>
+ *
+ * Usage: {@code NeuralTrainer [history directory] [output file] [epochs]}. If
+ * the output file already holds a network, training continues from it.
+ *
+ * @author Carl Linley
+ **/
+public class NeuralTrainer {
+
+    private final static float INITIAL_LEARNING_RATE = 0.01f, LEARNING_RATE_DECAY = 0.9f;
+    private final static int VALIDATION_INTERVAL = 10;
+
+    private final static PieceType[] PIECE_TYPES = PieceType.values();
+
+    private final PositionCorpus corpus;
+    private final NeuralNetwork network;
+    private final Random random;
+
+    private final float[] accumulated, hidden, second, secondGradient, hiddenGradient;
+    private final int[] activeInputs;
+
+    public NeuralTrainer(PositionCorpus corpus, NeuralNetwork network) {
+        this.corpus = corpus;
+        this.network = network;
+
+        random = new Random();
+
+        accumulated = new float[NeuralNetwork.HIDDEN_COUNT];
+        hidden = new float[NeuralNetwork.HIDDEN_COUNT];
+        second = new float[NeuralNetwork.SECOND_COUNT];
+        secondGradient = new float[NeuralNetwork.SECOND_COUNT];
+        hiddenGradient = new float[NeuralNetwork.HIDDEN_COUNT];
+        activeInputs = new int[NeuralNetwork.INPUT_COUNT];
+    }
+
+    public static void main(String[] args) throws IOException {
+        Logger.init();
+
+        String historyDirectory = (args.length > 0 ? args[0] : "history"),
+               outputFile = (args.length > 1 ? args[1] : NeuralNetwork.NETWORK_FILE);
+        int epochs = (args.length > 2 ? Integer.parseInt(args[2]) : 20);
+
+        PositionCorpus corpus = PositionCorpus.load(historyDirectory);
+
+        if (corpus.size() < VALIDATION_INTERVAL) {
+            Logger.logSevere("Not enough positions to train with - play some games first!");
+            return;
+        }
+
+        NeuralNetwork network = NeuralNetwork.load(outputFile);
+
+        if (network == null) {
+            network = NeuralNetwork.randomise(new Random());
+        }
+        new NeuralTrainer(corpus, network).train(epochs);
+
+        network.save(outputFile);
+        Logger.logInfo("Saved trained network. ('" + outputFile + "')");
+    }
+
+    /**
+     * @param epochs - the number of passes to make over the corpus.
+     **/
+    public void train(int epochs) {
+        int[] order = new int[corpus.size()];
+        float learningRate = INITIAL_LEARNING_RATE;
+
+        for (int i = 0; i != order.length; i++) {
+            order[i] = i;
+        }
+
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            double trainingLoss = 0;
+            int trainingCount = 0;
+
+            shuffle(order);
+
+            for (int i : order) {
+                if (i % VALIDATION_INTERVAL == 0) {
+                    continue;
+                }
+                float result = corpus.getResult(i);
+
+                trainingLoss += step(corpus.getBlack(i), corpus.getWhite(i), corpus.getKings(i), result, learningRate);
+                trainingLoss += step(Integer.reverse(corpus.getWhite(i)), Integer.reverse(corpus.getBlack(i)), Integer.reverse(corpus.getKings(i)), 1 - result, learningRate);
+                trainingCount += 2;
+            }
+            Logger.logInfo("Epoch " + epoch + " - training loss: " + (trainingLoss / trainingCount) + ", validation loss: " + validationLoss());
+            learningRate *= LEARNING_RATE_DECAY;
+        }
+    }
+
+    private void shuffle(int[] order) {
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1), swap = order[i];
+
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+
+    private double validationLoss() {
+        double loss = 0;
+        int count = 0;
+
+        for (int i = 0; i < corpus.size(); i += VALIDATION_INTERVAL) {
+            accumulate(corpus.getBlack(i), corpus.getWhite(i), corpus.getKings(i));
+            float predicted = sigmoid(network.forward(accumulated, hidden, second));
+
+            loss += crossEntropy(predicted, corpus.getResult(i));
+            count++;
+        }
+        return loss / count;
+    }
+
+    /**
+     * Trains the network on a single position.
+     *
+     * @return the loss before training.
+     **/
+    private double step(int black, int white, int kings, float result, float learningRate) {
+        int inputCount = accumulate(black, white, kings);
+        float predicted = sigmoid(network.forward(accumulated, hidden, second)),
+              outputGradient = predicted - result; // Cross-entropy through the sigmoid
+
+        float[] outputWeights = network.getOutputWeights(), secondWeights = network.getSecondWeights(),
+                secondBias = network.getSecondBias(), inputWeights = network.getInputWeights(),
+                hiddenBias = network.getHiddenBias();
+
+        for (int j = 0; j != NeuralNetwork.SECOND_COUNT; j++) {
+            secondGradient[j] = (second[j] > 0 && second[j] < 1 ? outputGradient * outputWeights[j] : 0);
+            outputWeights[j] -= learningRate * outputGradient * second[j];
+        }
+        network.setOutputBias(network.getOutputBias() - learningRate * outputGradient);
+
+        Arrays.fill(hiddenGradient, 0);
+
+        for (int j = 0; j != NeuralNetwork.SECOND_COUNT; j++) {
+            if (secondGradient[j] == 0) {
+                continue;
+            }
+            int row = j * NeuralNetwork.HIDDEN_COUNT;
+
+            for (int h = 0; h != NeuralNetwork.HIDDEN_COUNT; h++) {
+                hiddenGradient[h] += secondGradient[j] * secondWeights[row + h];
+                secondWeights[row + h] -= learningRate * secondGradient[j] * hidden[h];
+            }
+            secondBias[j] -= learningRate * secondGradient[j];
+        }
+
+        for (int h = 0; h != NeuralNetwork.HIDDEN_COUNT; h++) {
+            if (accumulated[h] <= 0 || accumulated[h] >= 1) {
+                hiddenGradient[h] = 0;
+            }
+            hiddenBias[h] -= learningRate * hiddenGradient[h];
+        }
+
+        // Only the inputs that were on have any gradient - this is what keeps training fast
+        for (int i = 0; i != inputCount; i++) {
+            int row = activeInputs[i] * NeuralNetwork.HIDDEN_COUNT;
+
+            for (int h = 0; h != NeuralNetwork.HIDDEN_COUNT; h++) {
+                inputWeights[row + h] -= learningRate * hiddenGradient[h];
+            }
+        }
+        return crossEntropy(predicted, result);
+    }
+
+    /**
+     * Fills {@code accumulated} with the first layer of the specified position,
+     * and {@code activeInputs} with the inputs that are on.
+     *
+     * @return the number of active inputs.
+     **/
+    private int accumulate(int black, int white, int kings) {
+        Position position = new Position(black, white, kings, Side.BLACK);
+        float[] inputWeights = network.getInputWeights();
+        int inputCount = 0;
+
+        System.arraycopy(network.getHiddenBias(), 0, accumulated, 0, accumulated.length);
+
+        for (PieceType type : PIECE_TYPES) {
+            int squares = Accumulator.pieceMask(position, type);
+
+            while (squares != 0) {
+                int input = NeuralNetwork.inputIndex(Integer.numberOfTrailingZeros(squares), type),
+                    row = input * NeuralNetwork.HIDDEN_COUNT;
+
+                for (int h = 0; h != NeuralNetwork.HIDDEN_COUNT; h++) {
+                    accumulated[h] += inputWeights[row + h];
+                }
+                activeInputs[inputCount++] = input;
+                squares &= squares - 1;
+            }
+        }
+        return inputCount;
+    }
+
+    private static float sigmoid(float x) {
+        return (float) (1 / (1 + Math.exp(-x)));
+    }
+
+    private static double crossEntropy(float predicted, float result) {
+        double p = Math.min(Math.max(predicted, 1e-6), 1 - 1e-6);
+
+        return -(result * Math.log(p) + (1 - result) * Math.log(1 - p));
+    }
+}
@@ -0,0 +1,116 @@
+package sypan.draughts.tool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+
+import sypan.draughts.game.GameRecord;
+import sypan.draughts.game.book.BookMove;
+import sypan.draughts.game.book.OpeningBook;
+import sypan.draughts.game.player.Side;
+import sypan.draughts.game.position.Square;
+import sypan.draughts.game.position.Zobrist;
+import sypan.utility.Logger;
+
+/**
+ * {@code OpeningBookBuilder} is an offline tool which builds the
+ * {@link OpeningBook} from saved games - both games against people and games
+ * the AI played against itself.<p>
+ *
+ * The first few turns of every complete game are replayed, and every move
+ * played is tallied against the hash of the position it was played from, along
+ * with the result of the game for the side that played it.<p>
+ *
+ * Usage: {@code OpeningBookBuilder [output file] [turns] [minimum games]
+ * [directories...]}. Moves played in fewer than the minimum number of games
+ * are left out of the book.
+ *
+ * @author Carl Linley
+ **/
+public class OpeningBookBuilder {
+
+    private final HashMap<Long, HashMap<Integer, BookMove>> positions;
+    private final int turnLimit;
+
+    private int gameCount;
+
+    public OpeningBookBuilder(int turnLimit) {
+        this.turnLimit = turnLimit;
+        positions = new HashMap<>();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Logger.init();
+
+        String outputFile = (args.length > 0 ? args[0] : OpeningBook.BOOK_FILE);
+        int turnLimit = (args.length > 1 ? Integer.parseInt(args[1]) : 16),
+            minimumGames = (args.length > 2 ? Integer.parseInt(args[2]) : 2);
+
+        OpeningBookBuilder builder = new OpeningBookBuilder(turnLimit);
+
+        if (args.length > 3) {
+            for (int i = 3; i != args.length; i++) {
+                builder.addGames(args[i]);
+            }
+        }
+        else {
+            builder.addGames("history");
+        }
+
+        ArrayList<BookMove> moves = builder.getMoves(minimumGames);
+
+        OpeningBook.save(outputFile, moves);
+        Logger.logInfo("Saved opening book of " + moves.size() + " moves from " + builder.gameCount + " games. ('" + outputFile + "')");
+    }
+
+    /**
+     * Adds every complete game in the specified directory to the book.
+     *
+     * @param directory - the directory of saved games.
+     * @throws IOException if the directory cannot be read.
+     **/
+    public void addGames(String directory) throws IOException {
+        for (String filePath : GameRecord.findSavedGames(directory)) {
+            GameRecord record = GameRecord.read(filePath);
+
+            if (record == null || !record.isComplete()) {
+                continue;
+            }
+            float blackResult = record.getResult();
+            int[] turn = {0};
+
+            record.replay((position, move) -> {
+                if (turn[0]++ >= turnLimit) {
+                    return;
+                }
+                int origin = Square.index(move.getOrigin()), destination = Square.index(move.getDestination());
+                long hash = Zobrist.hash(position);
+
+                positions.computeIfAbsent(hash, h -> new HashMap<>())
+                         .computeIfAbsent((origin << 8) | destination, m -> new BookMove(hash, origin, destination, 0, 0, 0))
+                         .addResult(move.getSide() == Side.BLACK ? blackResult : 1 - blackResult);
+            });
+            gameCount++;
+        }
+    }
+
+    /**
+     * @param minimumGames - the fewest games a move must have been played in.
+     * @return every move played in at least the specified number of games,
+     * sorted as stored in the book.
+     **/
+    public ArrayList<BookMove> getMoves(int minimumGames) {
+        ArrayList<BookMove> moves = new ArrayList<>();
+
+        for (HashMap<Integer, BookMove> positionMoves : positions.values()) {
+            for (BookMove m : positionMoves.values()) {
+                if (m.getGames() >= minimumGames) {
+                    moves.add(m);
+                }
+            }
+        }
+        Collections.sort(moves);
+        return moves;
+    }
+}
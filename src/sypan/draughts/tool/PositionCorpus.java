@@ -0,0 +1,133 @@
+package sypan.draughts.tool;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import sypan.draughts.game.GameRecord;
+import sypan.draughts.game.log.GameLog;
+import sypan.draughts.game.log.GameLogReader;
+import sypan.draughts.game.position.Position;
+import sypan.utility.Logger;
+
+/**
+ * {@code PositionCorpus} is a large, flat store of positions labelled with the
+ * result of the game they came from. It is used by the offline tools to learn
+ * from past games.<p>
+ *
+ * Positions are stored column-wise in primitive arrays (three masks and a
+ * result byte) rather than as {@link Position} instances - thirteen bytes a
+ * position, so millions of positions fit comfortably in memory.
+ *
+ * @author Carl Linley
+ **/
+public class PositionCorpus {
+
+    private int[] black, white, kings;
+    private byte[] result;
+    private int size;
+
+    public PositionCorpus() {
+        black = new int[1024];
+        white = new int[1024];
+        kings = new int[1024];
+        result = new byte[1024];
+    }
+
+    /**
+     * Loads every quiet position from every saved game in the specified
+     * directory, and from the {@code GameLog} in it if there is one. Positions
+     * where the side to move can jump are skipped, as their static score says
+     * little about who is winning.
+     *
+     * @param directory - the directory of saved games.
+     * @return the loaded corpus.
+     * @throws IOException if the directory cannot be read.
+     **/
+    public static PositionCorpus load(String directory) throws IOException {
+        PositionCorpus corpus = new PositionCorpus();
+        int gameCount = 0;
+
+        for (String filePath : GameRecord.findSavedGames(directory)) {
+            if (corpus.addGame(GameRecord.read(filePath))) {
+                gameCount++;
+            }
+        }
+
+        if (GameLog.hasSegments(directory)) {
+            try (GameLogReader reader = new GameLogReader(directory)) {
+                for (GameRecord record = reader.next(); record != null; record = reader.next()) {
+                    if (corpus.addGame(record)) {
+                        gameCount++;
+                    }
+                }
+            }
+        }
+        Logger.logInfo("Loaded " + corpus.size() + " positions from " + gameCount + " games.");
+        return corpus;
+    }
+
+    /**
+     * Adds every quiet position of a completed game.
+     *
+     * @param record - the game, or {@code null}.
+     * @return true if the game was added.
+     **/
+    private boolean addGame(GameRecord record) {
+        if (record == null || !record.isComplete()) {
+            return false;
+        }
+        byte gameResult = (byte) (record.getResult() * 2);
+
+        record.replay((position, move) -> {
+            if (!position.canCapture(position.getSideToMove())) {
+                add(position, gameResult);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * @param position - the position to add.
+     * @param gameResult - the result of the game from black's point of view, in
+     * half-points (0 for a loss, 1 for a draw, 2 for a win).
+     **/
+    public void add(Position position, byte gameResult) {
+        if (size == black.length) {
+            int newLength = black.length * 2;
+
+            black = Arrays.copyOf(black, newLength);
+            white = Arrays.copyOf(white, newLength);
+            kings = Arrays.copyOf(kings, newLength);
+            result = Arrays.copyOf(result, newLength);
+        }
+        black[size] = position.getBlack();
+        white[size] = position.getWhite();
+        kings[size] = position.getKings();
+        result[size++] = gameResult;
+    }
+
+    public int getBlack(int index) {
+        return black[index];
+    }
+
+    public int getWhite(int index) {
+        return white[index];
+    }
+
+    public int getKings(int index) {
+        return kings[index];
+    }
+
+    /**
+     * @param index - the index of the position.
+     * @return the result of the position's game from black's point of view - 1
+     * for a win, 0.5 for a draw, 0 for a loss.
+     **/
+    public float getResult(int index) {
+        return result[index] / 2f;
+    }
+
+    public int size() {
+        return size;
+    }
+}
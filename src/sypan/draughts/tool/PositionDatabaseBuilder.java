@@ -0,0 +1,98 @@
+package sypan.draughts.tool;
+
+import java.io.IOException;
+
+import sypan.draughts.game.GameRecord;
+import sypan.draughts.game.database.PositionDatabase;
+import sypan.draughts.game.log.GameLog;
+import sypan.draughts.game.log.GameLogReader;
+import sypan.draughts.game.position.Square;
+import sypan.draughts.game.position.Zobrist;
+import sypan.utility.Logger;
+
+/**
+ * {@code PositionDatabaseBuilder} is an offline tool which builds the
+ * {@link PositionDatabase} from stored games - every saved game, and every
+ * game in a {@code GameLog}, in the directories given.<p>
+ *
+ * Every complete game is replayed, and the position at the start of every
+ * turn is counted along with the result of the game and the move played from
+ * it.<p>
+ *
+ * The table is held off the heap, so building a large database needs direct
+ * memory rather than heap - raise {@code -XX:MaxDirectMemorySize} if needed.
+ * <p>
+ *
+ * Usage: {@code PositionDatabaseBuilder [output file] [directories...]}.
+ *
+ * @author Carl Linley
+ **/
+public class PositionDatabaseBuilder {
+
+    private final PositionDatabase database;
+
+    private int gameCount;
+
+    public PositionDatabaseBuilder() {
+        database = PositionDatabase.create(1 << 20);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Logger.init();
+
+        String outputFile = (args.length > 0 ? args[0] : PositionDatabase.DATABASE_FILE);
+        PositionDatabaseBuilder builder = new PositionDatabaseBuilder();
+        long startTime = System.currentTimeMillis();
+
+        if (args.length > 1) {
+            for (int i = 1; i != args.length; i++) {
+                builder.addGames(args[i]);
+            }
+        }
+        else {
+            builder.addGames("history");
+        }
+        builder.database.save(outputFile);
+
+        Logger.logInfo("Saved position database of " + builder.database.size() + " positions from " + builder.gameCount + " games in "
+                + (System.currentTimeMillis() - startTime) / 1000 + "s. ('" + outputFile + "')");
+    }
+
+    /**
+     * Adds every complete game in the specified directory, and in the game log
+     * in it if there is one.
+     *
+     * @param directory - the directory of stored games.
+     * @throws IOException if the directory cannot be read.
+     **/
+    public void addGames(String directory) throws IOException {
+        for (String filePath : GameRecord.findSavedGames(directory)) {
+            addGame(GameRecord.read(filePath));
+        }
+
+        if (GameLog.hasSegments(directory)) {
+            try (GameLogReader reader = new GameLogReader(directory)) {
+                for (GameRecord record = reader.next(); record != null; record = reader.next()) {
+                    addGame(record);
+                }
+            }
+        }
+    }
+
+    private void addGame(GameRecord record) {
+        if (record == null || !record.isComplete()) {
+            return;
+        }
+        int blackResult = (int) (record.getResult() * 2);
+
+        record.replay((position, move) -> database.add(Zobrist.hash(position), blackResult, Square.index(move.getOrigin()), Square.index(move.getDestination())));
+
+        if (++gameCount % 100000 == 0) {
+            Logger.logInfo("Added " + gameCount + " games - " + database.size() + " positions so far.");
+        }
+    }
+
+    public PositionDatabase getDatabase() {
+        return database;
+    }
+}
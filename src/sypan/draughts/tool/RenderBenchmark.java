@@ -0,0 +1,322 @@
+package sypan.draughts.tool;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import sypan.draughts.client.Client;
+import sypan.draughts.client.config.Configuration;
+import sypan.draughts.client.profile.FrameHistogram;
+import sypan.draughts.game.GameReplay;
+import sypan.draughts.game.archive.ArchiveEntry;
+import sypan.draughts.game.archive.GameArchive;
+import sypan.draughts.game.archive.GameQuery;
+import sypan.utility.Logger;
+
+import com.jme3.app.Application;
+import com.jme3.app.state.AbstractAppState;
+import com.jme3.app.state.AppStateManager;
+import com.jme3.renderer.Statistics;
+import com.jme3.system.JmeContext;
+
+/**
+ * {@code RenderBenchmark} is an offline tool which starts the client without a
+ * window, replays a saved game from the {@link GameArchive} with every effect
+ * enabled, and records each frame - how long it took, the draw calls and
+ * triangles rendered, and the bytes allocated by the render thread - so
+ * rendering regressions can be caught before a release.<p>
+ *
+ * The client runs with fixed settings (1280x720, high models and shadows,
+ * effects on, the quality governor off), so runs on the same machine can be
+ * compared. The first {@code WARM_UP_SECONDS} after loading are not recorded;
+ * the replay then plays one step every {@code STEP_SECONDS}, and recording
+ * stops {@code LINGER_SECONDS} after the last step, once its effects are over.
+ * <p>
+ *
+ * Results are written to {@code OUTPUT_DIRECTORY} - every frame as CSV, the
+ * frame times in HdrHistogram's percentile distribution format, and a
+ * summary.<p>
+ *
+ * In {@code offscreen} mode the scene is rendered to an offscreen buffer. A
+ * GPU is not needed - on Linux, Mesa's software renderer under a virtual X
+ * server will do:<p>
+ *
+ * {@code LIBGL_ALWAYS_SOFTWARE=1 xvfb-run -s "-screen 0 1280x720x24" java ...
+ * RenderBenchmark}<p>
+ *
+ * In {@code null} mode nothing is rendered at all, so only the cost of
+ * updating the scene is measured, and draw calls and triangles are reported as
+ * zero. jME holds a context with no renderer to 60 FPS by sleeping between
+ * frames, so each frame is timed from the start of its update instead, leaving
+ * the sleep out. Nothing is heard either - the client has no audio.<p>
+ *
+ * Usage: {@code RenderBenchmark [offscreen|null] [saved game]} - by default,
+ * the longest game in the archive is replayed offscreen.
+ *
+ * @author Carl Linley
+ **/
+public class RenderBenchmark extends AbstractAppState {
+
+    private enum Phase {
+        WARM_UP, REPLAY, LINGER, DONE
+    };
+
+    public final static String OUTPUT_DIRECTORY = "benchmarks";
+
+    private final static int WIDTH = 1280, HEIGHT = 720, MAX_FRAMES = 100_000;
+    private final static float WARM_UP_SECONDS = 3f, STEP_SECONDS = 0.75f, LINGER_SECONDS = 3f;
+
+    private final String savedGame;
+    private final boolean nullRenderer;
+
+    private final long[] frameNanos, allocatedBytes;
+    private final int[] drawCalls, triangles, vertices;
+
+    private Client client;
+    private GameReplay replay;
+    private Statistics statistics;
+    private int[] statisticsData;
+    private int objectsIndex, trianglesIndex, verticesIndex;
+    private com.sun.management.ThreadMXBean threadBean;
+
+    private Phase phase = Phase.WARM_UP;
+    private float phaseTime;
+    private int frameCount;
+    private long lastFrameNanos, lastAllocatedBytes, updateStartNanos;
+
+    public RenderBenchmark(String savedGame, boolean nullRenderer) {
+        this.savedGame = savedGame;
+        this.nullRenderer = nullRenderer;
+
+        frameNanos = new long[MAX_FRAMES];
+        allocatedBytes = new long[MAX_FRAMES];
+        drawCalls = new int[MAX_FRAMES];
+        triangles = new int[MAX_FRAMES];
+        vertices = new int[MAX_FRAMES];
+    }
+
+    public static void main(String[] args) {
+        Logger.init();
+
+        boolean nullRenderer = (args.length > 0 && args[0].equalsIgnoreCase("null"));
+        String savedGame = (args.length > 1 ? args[1] : findLongestGame());
+
+        if (savedGame == null) {
+            Logger.logSevere("No saved game to replay - the archive is empty.");
+            return;
+        }
+        Configuration config = new Configuration();
+
+        config.setResolution(new Dimension(WIDTH, HEIGHT));
+        config.setGameplay(false, false, false, false, true, false);
+        config.setQualityGovernor(false, Configuration.DEFAULT_TARGET_FRAME_RATE);
+
+        Logger.logInfo("Benchmarking '" + savedGame + "' " + (nullRenderer ? "with no renderer" : "offscreen") + ".");
+        Client.startBenchmark(config, nullRenderer ? JmeContext.Type.Headless : JmeContext.Type.OffscreenSurface,
+                new RenderBenchmark(savedGame, nullRenderer));
+    }
+
+    /**
+     * @return the path of the game in the archive with the most turns, or
+     * {@code null} if the archive is empty.
+     **/
+    private static String findLongestGame() {
+        List<ArchiveEntry> games = GameArchive.getActive().query(new GameQuery());
+        ArchiveEntry longest = null;
+
+        for (ArchiveEntry entry : games) {
+            if (longest == null || entry.getTurnCount() > longest.getTurnCount()) {
+                longest = entry;
+            }
+        }
+        return (longest == null ? null : longest.getFilePath());
+    }
+
+    @Override
+    public void initialize(AppStateManager stateManager, Application app) {
+        super.initialize(stateManager, app);
+
+        client = (Client) app;
+        statistics = app.getRenderer().getStatistics();
+
+        String[] labels = statistics.getLabels();
+        List<String> labelList = Arrays.asList(labels);
+
+        statisticsData = new int[labels.length];
+        objectsIndex = labelList.indexOf("Objects");
+        trianglesIndex = labelList.indexOf("Triangles");
+        verticesIndex = labelList.indexOf("Vertices");
+
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+            if (!threadBean.isThreadAllocatedMemorySupported()) {
+                threadBean = null;
+            }
+        }
+        if (threadBean == null) {
+            Logger.logWarning("This JVM cannot measure allocations - they will be reported as zero.");
+        }
+    }
+
+    @Override
+    public void update(float timePerFrame) {
+        updateStartNanos = System.nanoTime();
+
+        if (!client.isInitialised() || phase == Phase.DONE) {
+            return;
+        }
+        statistics.setEnabled(true);
+        phaseTime += timePerFrame;
+
+        switch (phase) {
+            case WARM_UP:
+                if (phaseTime >= WARM_UP_SECONDS) {
+                    replay = new GameReplay(savedGame, client);
+
+                    if (replay.getStepCount() == 0) {
+                        Logger.logSevere("Failed to load '" + savedGame + "' - nothing to benchmark.");
+                        phase = Phase.DONE;
+                        client.stop();
+                        return;
+                    }
+                    client.setCurrentGame(replay);
+                    setPhase(Phase.REPLAY);
+                }
+            break;
+
+            case REPLAY:
+                if (phaseTime >= STEP_SECONDS && !client.isPieceMoving()) {
+                    if (replay.getCurrentStep() == replay.getStepCount()) {
+                        setPhase(Phase.LINGER);
+                    }
+                    else {
+                        replay.nextMove();
+                        phaseTime = 0;
+                    }
+                }
+            break;
+
+            case LINGER:
+                if (phaseTime >= LINGER_SECONDS) {
+                    finish();
+                }
+            break;
+        }
+    }
+
+    private void setPhase(Phase newPhase) {
+        phase = newPhase;
+        phaseTime = 0;
+    }
+
+    /**
+     * Records the frame just rendered.
+     **/
+    @Override
+    public void postRender() {
+        long now = System.nanoTime(), allocated = (threadBean == null ? 0 : threadBean.getThreadAllocatedBytes(Thread.currentThread().getId()));
+
+        if ((phase == Phase.REPLAY || phase == Phase.LINGER) && lastFrameNanos != 0) {
+            statistics.getData(statisticsData);
+
+            frameNanos[frameCount] = now - (nullRenderer ? updateStartNanos : lastFrameNanos);
+            allocatedBytes[frameCount] = allocated - lastAllocatedBytes;
+            drawCalls[frameCount] = statisticsData[objectsIndex];
+            triangles[frameCount] = statisticsData[trianglesIndex];
+            vertices[frameCount] = statisticsData[verticesIndex];
+
+            if (++frameCount == MAX_FRAMES) {
+                Logger.logWarning("Recorded " + MAX_FRAMES + " frames - stopping early.");
+                finish();
+            }
+        }
+        statistics.clearFrame();
+        lastFrameNanos = now;
+        lastAllocatedBytes = allocated;
+    }
+
+    private void finish() {
+        phase = Phase.DONE;
+
+        try {
+            writeResults();
+        }
+        catch (IOException e) {
+            Logger.logSevere("Failed to write benchmark results: " + e.getMessage());
+        }
+        client.stop();
+    }
+
+    private void writeResults() throws IOException {
+        File directory = new File(OUTPUT_DIRECTORY);
+        String name = "benchmark-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + (nullRenderer ? "-null" : "");
+        FrameHistogram frameTimes = new FrameHistogram();
+
+        directory.mkdirs();
+
+        try (PrintStream out = new PrintStream(new File(directory, name + ".csv"), "UTF-8")) {
+            out.println("frame,frame_ms,draw_calls,triangles,vertices,allocated_bytes");
+
+            for (int i = 0; i != frameCount; i++) {
+                out.format("%d,%.3f,%d,%d,%d,%d%n", i, frameNanos[i] / 1_000_000.0, drawCalls[i], triangles[i], vertices[i], allocatedBytes[i]);
+                frameTimes.record(frameNanos[i] / 1000);
+            }
+        }
+        try (PrintStream out = new PrintStream(new File(directory, name + ".hgrm"), "UTF-8")) {
+            frameTimes.writePercentileDistribution(out, 1000);
+        }
+        try (PrintStream out = new PrintStream(new File(directory, name + ".txt"), "UTF-8")) {
+            writeSummary(out, frameTimes);
+        }
+        writeSummary(System.out, frameTimes);
+        Logger.logInfo("Wrote benchmark results to " + new File(directory, name) + ".*");
+    }
+
+    private void writeSummary(PrintStream out, FrameHistogram frameTimes) {
+        out.println("Game: " + savedGame + " (" + replay.getStepCount() + " steps)");
+        out.println("Renderer: " + (nullRenderer ? "none" : "offscreen") + ", " + WIDTH + "x" + HEIGHT);
+        out.format("Frames: %d, mean %.2f FPS%n", frameCount, 1000 / (frameTimes.getMean() / 1000));
+        out.format("Frame time (ms): p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f%n",
+                frameTimes.getValueAtPercentile(50) / 1000.0, frameTimes.getValueAtPercentile(90) / 1000.0,
+                frameTimes.getValueAtPercentile(99) / 1000.0, frameTimes.getValueAtPercentile(99.9) / 1000.0,
+                frameTimes.getMaxValue() / 1000.0);
+        writeSummaryLine(out, "Draw calls", toLongs(drawCalls));
+        writeSummaryLine(out, "Triangles", toLongs(triangles));
+        writeSummaryLine(out, "Allocated bytes", Arrays.copyOf(allocatedBytes, frameCount));
+    }
+
+    /**
+     * Writes the mean, median, 99th percentile and maximum of a per-frame
+     * value.
+     **/
+    private void writeSummaryLine(PrintStream out, String name, long[] values) {
+        if (values.length == 0) {
+            return;
+        }
+        long total = 0;
+
+        Arrays.sort(values);
+
+        for (long value : values) {
+            total += value;
+        }
+        out.format("%s per frame: mean %.0f, p50 %d, p99 %d, max %d%n", name, (double) total / values.length,
+                values[(values.length - 1) / 2], values[(int) Math.ceil(values.length * 0.99) - 1], values[values.length - 1]);
+    }
+
+    private long[] toLongs(int[] values) {
+        long[] longs = new long[frameCount];
+
+        for (int i = 0; i != frameCount; i++) {
+            longs[i] = values[i];
+        }
+        return longs;
+    }
+}
@@ -0,0 +1,182 @@
+package sypan.draughts.tool;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sypan.draughts.game.GameRecord;
+import sypan.draughts.game.annotation.AnnotationFile;
+import sypan.draughts.game.annotation.Judgement;
+import sypan.draughts.game.annotation.MoveAnnotation;
+import sypan.draughts.game.move.Move;
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.position.PositionHistory;
+import sypan.draughts.game.position.Square;
+import sypan.draughts.game.position.Zobrist;
+import sypan.draughts.game.search.AnalysisLine;
+import sypan.draughts.game.search.SearchEngine;
+import sypan.utility.Logger;
+
+/**
+ * {@code ReplayAnnotator} is an offline tool which analyses every turn of
+ * every saved game, and marks the inaccuracies, mistakes and blunders in an
+ * {@link AnnotationFile} beside each game for {@code GameReplay} to show.<p>
+ *
+ * Each position of a game is searched by the {@link SearchEngine}. The score
+ * a turn lost is the score of the best move less the score of the position
+ * the turn actually reached.<p>
+ *
+ * Games are annotated in parallel, one per core. Only the paths of the saved
+ * games are gathered up front - each game is read when a thread picks it up,
+ * and at most a couple of games per thread are queued at once, so the archive
+ * can be any size. Games already annotated since they were saved are skipped.
+ * <p>
+ *
+ * Usage: {@code ReplayAnnotator [depth] [milliseconds per position]
+ * [directories...]}.
+ *
+ * @author Carl Linley
+ **/
+public class ReplayAnnotator {
+
+    /**
+     * Scores are clamped to this many men either way, so throwing away a won
+     * game counts as a large swing rather than an enormous one.
+     **/
+    private final static int SCORE_LIMIT_MEN = 12;
+
+    private final int depth, timeLimitMS;
+    private final AtomicInteger annotatedCount = new AtomicInteger(), annotationCount = new AtomicInteger();
+
+    public ReplayAnnotator(int depth, int timeLimitMS) {
+        this.depth = depth;
+        this.timeLimitMS = timeLimitMS;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Logger.init();
+
+        int depth = (args.length > 0 ? Integer.parseInt(args[0]) : 8),
+            timeLimitMS = (args.length > 1 ? Integer.parseInt(args[1]) : 250);
+
+        ArrayList<String> savedGames = new ArrayList<>();
+
+        if (args.length > 2) {
+            for (int i = 2; i != args.length; i++) {
+                savedGames.addAll(GameRecord.findSavedGames(args[i]));
+            }
+        }
+        else {
+            savedGames.addAll(GameRecord.findSavedGames("history"));
+        }
+
+        ReplayAnnotator annotator = new ReplayAnnotator(depth, timeLimitMS);
+        long start = System.currentTimeMillis();
+
+        annotator.annotateAll(savedGames);
+        Logger.logInfo("Annotated " + annotator.annotatedCount + " of " + savedGames.size() + " games (" + annotator.annotationCount
+                + " annotations) in " + (System.currentTimeMillis() - start) / 1000 + "s.");
+    }
+
+    /**
+     * Annotates every game not already annotated, on every core.
+     *
+     * @param savedGames - the paths of the saved games.
+     * @throws InterruptedException if interrupted while waiting.
+     **/
+    public void annotateAll(List<String> savedGames) throws InterruptedException {
+        int threadCount = Runtime.getRuntime().availableProcessors();
+
+        // Once the queue is full, the submitting thread annotates the next game itself
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threadCount * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        for (String gamePath : savedGames) {
+            if (!AnnotationFile.isUpToDate(gamePath)) {
+                executor.execute(() -> annotate(gamePath));
+            }
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    /**
+     * Annotates a single game.
+     *
+     * @param gamePath - the path of the saved game.
+     **/
+    public void annotate(String gamePath) {
+        GameRecord record = GameRecord.read(gamePath);
+
+        if (record == null) {
+            Logger.logWarning("Skipping '" + gamePath + "' - missing or corrupted.");
+            return;
+        }
+        SearchEngine engine = new SearchEngine();
+        List<Move> moves = record.getMoves();
+        ArrayList<Integer> turnStarts = record.getTurnStarts();
+        ArrayList<Position> positions = new ArrayList<>(turnStarts.size() + 1);
+
+        // The position at the start of every turn, and after the last
+        Position position = Position.initial();
+
+        for (int turn = 0; turn <= turnStarts.size(); turn++) {
+            int end = (turn == turnStarts.size() ? moves.size() : turnStarts.get(turn));
+
+            for (int step = (turn == 0 ? 0 : turnStarts.get(turn - 1)); step < end; step++) {
+                position.applyStep(Square.index(moves.get(step).getOrigin()), Square.index(moves.get(step).getDestination()));
+            }
+            if (turn != turnStarts.size()) {
+                position.setSideToMove(moves.get(turnStarts.get(turn)).getSide());
+            }
+            else if (!turnStarts.isEmpty()) {
+                position.setSideToMove(moves.get(turnStarts.get(turn - 1)).getSide().oppose());
+            }
+            positions.add(position.copy());
+        }
+
+        // Score every position for its side to move, remembering the best move
+        int manScore = engine.getManScore(), scoreLimit = SCORE_LIMIT_MEN * manScore;
+        int[] scores = new int[positions.size()];
+        String[] bestMoves = new String[positions.size()];
+        PositionHistory history = new PositionHistory();
+
+        for (int i = 0; i != positions.size(); i++) {
+            if (i == 0) {
+                history.push(Zobrist.hash(positions.get(0)), true);
+            }
+            else {
+                history.push(positions.get(i - 1), positions.get(i));
+            }
+            List<AnalysisLine> lines = engine.analyse(positions.get(i), history, 1, depth, timeLimitMS, null);
+
+            scores[i] = (lines.isEmpty() ? -scoreLimit : Math.max(-scoreLimit, Math.min(scoreLimit, lines.get(0).getScore())));
+            bestMoves[i] = (lines.isEmpty() ? null : AnalysisLine.describe(positions.get(i), lines.get(0).getMove()));
+        }
+
+        ArrayList<MoveAnnotation> annotations = new ArrayList<>();
+
+        for (int turn = 0; turn != turnStarts.size(); turn++) {
+            String played = AnalysisLine.describe(positions.get(turn), positions.get(turn + 1));
+            int scoreLost = scores[turn] + scores[turn + 1]; // The next score is the opponent's
+            Judgement judgement = Judgement.of(scoreLost, manScore);
+
+            if (judgement != null && !played.equals(bestMoves[turn])) {
+                annotations.add(new MoveAnnotation(turnStarts.get(turn), positions.get(turn).getSideToMove(), judgement, scoreLost, played, bestMoves[turn]));
+            }
+        }
+
+        try {
+            AnnotationFile.write(gamePath, "Depth " + depth + ", " + timeLimitMS + "ms per position", annotations);
+            annotatedCount.incrementAndGet();
+            annotationCount.addAndGet(annotations.size());
+        }
+        catch (IOException e) {
+            Logger.logWarning("Failed to write annotations of '" + gamePath + "': " + e);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package sypan.draughts.tool;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import sypan.draughts.game.position.MoveGenerator;
+import sypan.draughts.game.position.Position;
+import sypan.draughts.game.tablebase.GeneratedTable;
+import sypan.draughts.game.tablebase.Tablebase;
+import sypan.draughts.game.tablebase.TablebaseTable;
+import sypan.utility.Logger;
+
+/**
+ * {@code TablebaseGenerator} is an offline tool which generates the endgame
+ * tablebase - the result of every position with up to a set number of
+ * pieces.<p>
+ *
+ * Signatures are solved in order of piece count, then number of men, so that
+ * every position reachable by a capture or a crowning has already been solved.
+ * A signature is solved together with its mirror (the same pieces with the
+ * colours swapped), as moves within the signature lead from one to the
+ * other.<p>
+ *
+ * Each signature is solved in layers of increasing distance: positions with
+ * no moves are lost in 0, positions with a move to a loss in 0 are won in 1,
+ * positions where every move leads to a win in 1 or less are lost in 2, and so
+ * on. Whatever is left unsolved once no more positions can be solved is a
+ * draw. Each layer only depends on those before it, so every layer is split
+ * between every core.<p>
+ *
+ * Usage: {@code TablebaseGenerator [max pieces] [directory]}. Tables already
+ * in the directory are kept, so the tablebase can be extended one piece count
+ * at a time.
+ *
+ * @author Carl Linley
+ **/
+public class TablebaseGenerator {
+
+    private final Tablebase tablebase;
+    private final ExecutorService executor;
+    private final int threadCount;
+
+    public TablebaseGenerator(Tablebase tablebase) {
+        this.tablebase = tablebase;
+
+        threadCount = Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(threadCount);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        Logger.init();
+
+        int maxPieces = (args.length > 0 ? Integer.parseInt(args[0]) : 4);
+        String directory = (args.length > 1 ? args[1] : Tablebase.DIRECTORY);
+
+        new File(directory).mkdirs();
+
+        TablebaseGenerator generator = new TablebaseGenerator(new Tablebase(directory));
+
+        try {
+            generator.generate(maxPieces);
+        }
+        finally {
+            generator.shutdown();
+        }
+    }
+
+    /**
+     * Generates every table with up to the specified number of pieces.
+     *
+     * @param maxPieces - the maximum number of pieces.
+     * @throws IOException if a table cannot be saved.
+     * @throws InterruptedException if interrupted whilst waiting on a worker.
+     * @throws ExecutionException if a worker fails.
+     **/
+    public void generate(int maxPieces) throws IOException, InterruptedException, ExecutionException {
+        ArrayList<int[]> signatures = new ArrayList<>();
+
+        for (int blackMen = 0; blackMen <= maxPieces; blackMen++) {
+            for (int blackKings = 0; blackMen + blackKings <= maxPieces; blackKings++) {
+                for (int whiteMen = 0; blackMen + blackKings + whiteMen <= maxPieces; whiteMen++) {
+                    for (int whiteKings = 0; blackMen + blackKings + whiteMen + whiteKings <= maxPieces; whiteKings++) {
+                        // Only add each pair of mirrored signatures once
+                        if (blackMen + blackKings != 0 && whiteMen + whiteKings != 0
+                         && TablebaseTable.signature(blackMen, blackKings, whiteMen, whiteKings) <= TablebaseTable.signature(whiteMen, whiteKings, blackMen, blackKings)) {
+                            signatures.add(new int[] {blackMen, blackKings, whiteMen, whiteKings});
+                        }
+                    }
+                }
+            }
+        }
+        signatures.sort(Comparator.comparingInt((int[] s) -> s[0] + s[1] + s[2] + s[3]).thenComparingInt(s -> s[0] + s[2]));
+
+        for (int[] s : signatures) {
+            if (tablebase.getTable(TablebaseTable.signature(s[0], s[1], s[2], s[3])) != null) {
+                continue; // Already generated
+            }
+            long startTime = System.currentTimeMillis();
+
+            GeneratedTable table = new GeneratedTable(s[0], s[1], s[2], s[3]);
+            GeneratedTable mirror = (table.getMirrorSignature() == table.getSignature() ? table : new GeneratedTable(s[2], s[3], s[0], s[1]));
+            GeneratedTable[] group = (mirror == table ? new GeneratedTable[] {table} : new GeneratedTable[] {table, mirror});
+
+            solve(group);
+
+            for (GeneratedTable t : group) {
+                t.save(tablebase.getDirectory());
+                tablebase.addTable(t);
+                logSummary(t, System.currentTimeMillis() - startTime);
+            }
+        }
+        Logger.logInfo("Tablebase complete for up to " + maxPieces + " pieces. ('" + tablebase.getDirectory() + "')");
+    }
+
+    private void solve(GeneratedTable[] group) throws InterruptedException, ExecutionException {
+        AtomicInteger furthestKnownDistance = new AtomicInteger();
+        int quietLayers = 0;
+
+        for (GeneratedTable table : group) {
+            runInParallel(table, (index, position) -> {
+                if (position == null) {
+                    table.setResult(index, TablebaseTable.INVALID, 0);
+                }
+                return false;
+            });
+        }
+
+        for (int distance = 0; distance <= TablebaseTable.MAX_DISTANCE; distance++) {
+            final int thisDistance = distance;
+            int solved = 0;
+
+            for (GeneratedTable table : group) {
+                solved += runInParallel(table, (index, position) -> {
+                    if (position == null || table.getResult(index) != TablebaseTable.DRAW) {
+                        return false;
+                    }
+                    int result = solveAt(group, position, thisDistance, furthestKnownDistance);
+
+                    if (result != TablebaseTable.DRAW) {
+                        table.setResult(index, result, thisDistance);
+                        return true;
+                    }
+                    return false;
+                });
+            }
+
+            // Stop once nothing more is being solved and no known result is further away
+            quietLayers = (solved == 0 ? quietLayers + 1 : 0);
+
+            if (quietLayers >= 2 && distance > furthestKnownDistance.get() + 1) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return {@code WIN} or {@code LOSS} if the position is won or lost in
+     * exactly <b>distance</b>, otherwise {@code DRAW} (unsolved).
+     **/
+    private int solveAt(GeneratedTable[] group, Position position, int distance, AtomicInteger furthestKnownDistance) {
+        ArrayList<Position> successors = MoveGenerator.generate(position);
+
+        if (successors.isEmpty()) {
+            return (distance == 0 ? TablebaseTable.LOSS : TablebaseTable.DRAW);
+        }
+        if (distance == 0) {
+            return TablebaseTable.DRAW;
+        }
+
+        boolean seekingWin = (distance % 2 != 0);
+
+        for (Position successor : successors) {
+            Position oriented = Tablebase.orient(successor);
+            int result, successorDistance;
+
+            if (oriented.getBlack() == 0) {
+                result = TablebaseTable.LOSS;
+                successorDistance = 0;
+            }
+            else {
+                int signature = TablebaseTable.signature(oriented);
+                TablebaseTable table = null;
+
+                for (TablebaseTable t : group) {
+                    if (t.getSignature() == signature) {
+                        table = t;
+                    }
+                }
+                boolean inGroup = (table != null);
+
+                if (!inGroup) {
+                    table = tablebase.getTable(signature);
+                }
+                int entry = table.getEntry(table.index(oriented));
+
+                result = entry >>> 8;
+                successorDistance = entry & 0xFF;
+
+                if (!inGroup && result != TablebaseTable.DRAW) {
+                    furthestKnownDistance.accumulateAndGet(successorDistance, Math::max);
+                }
+            }
+
+            if (seekingWin) {
+                if (result == TablebaseTable.LOSS && successorDistance == distance - 1) {
+                    return TablebaseTable.WIN;
+                }
+            }
+            else if (result != TablebaseTable.WIN || successorDistance > distance - 1) {
+                return TablebaseTable.DRAW;
+            }
+        }
+        return (seekingWin ? TablebaseTable.DRAW : TablebaseTable.LOSS);
+    }
+
+    /**
+     * Runs the specified task on every index of the table, split between every
+     * core. Each thread is given whole blocks of 32 positions, so no two
+     * threads ever write to the same {@code long} of results.
+     *
+     * @return the number of times the task returned true.
+     **/
+    private int runInParallel(GeneratedTable table, PositionTask task) throws InterruptedException, ExecutionException {
+        ArrayList<Future<Integer>> results = new ArrayList<>();
+        int blockCount = (table.size() + 31) / 32, chunkCount = threadCount * 8, total = 0;
+
+        for (int chunk = 0; chunk != chunkCount; chunk++) {
+            int start = (int) ((long) blockCount * chunk / chunkCount) * 32,
+                end = Math.min((int) ((long) blockCount * (chunk + 1) / chunkCount) * 32, table.size());
+
+            results.add(executor.submit(() -> {
+                int count = 0;
+
+                for (int index = start; index < end; index++) {
+                    if (task.run(index, table.getPosition(index))) {
+                        count++;
+                    }
+                }
+                return count;
+            }));
+        }
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        return total;
+    }
+
+    private void logSummary(GeneratedTable table, long timeTaken) {
+        int wins = 0, losses = 0, draws = 0, longest = 0;
+
+        for (int i = 0; i != table.size(); i++) {
+            switch (table.getResult(i)) {
+                case TablebaseTable.WIN:
+                    wins++;
+                    longest = Math.max(longest, table.getDistance(i));
+                break;
+
+                case TablebaseTable.LOSS:
+                    losses++;
+                break;
+
+                case TablebaseTable.DRAW:
+                    draws++;
+                break;
+            }
+        }
+        Logger.logInfo("Generated table " + table.getName() + " in " + timeTaken + "ms - " + wins + " won, " + losses + " lost, " + draws + " drawn, longest win " + longest + " turns.");
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private interface PositionTask {
+
+        /**
+         * @param index - the index of the position.
+         * @param position - the position, or {@code null} if the index is
+         * invalid.
+         * @return true if the task changed the position's result.
+         **/
+        boolean run(int index, Position position);
+    }
+}